@@ -0,0 +1,72 @@
+package com.oskopek.studyguide.benchmark;
+
+import com.google.common.eventbus.EventBus;
+import com.oskopek.studyguide.constraint.CourseEnrollmentConstraint;
+import com.oskopek.studyguide.constraint.CourseGroupConstraint;
+import com.oskopek.studyguide.constraint.DefaultConstraint;
+import com.oskopek.studyguide.constraint.GlobalConstraint;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.constraints.Constraints;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the sequential and the fork/join evaluation of {@link Constraints#recheckAll()}.
+ * The constraints are taken round-robin from the constraints of the {@code my_study.json} test plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConstraintsBenchmark {
+
+    private static final String plan = "src/test/resources/com/oskopek/studyguide/persistence/my_study.json";
+
+    @Param({"10", "100", "1000"})
+    int constraintCount;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    private Constraints constraints;
+
+    /**
+     * Load the plan and fill the benchmarked constraints.
+     *
+     * @throws IOException if the plan failed to load
+     */
+    @Setup
+    public void setUp() throws IOException {
+        ResourceBundle messages = ResourceBundle.getBundle("com.oskopek.studyguide.view.messages");
+        StudyPlan studyPlan = new JsonDataReaderWriter(messages, new EventBus()).readFrom(plan);
+        List<DefaultConstraint> loaded = studyPlan.getConstraints().allConstraintStream()
+                .collect(Collectors.toList());
+        constraints = new Constraints();
+        for (int i = 0; i < constraintCount; i++) {
+            DefaultConstraint constraint = loaded.get(i % loaded.size());
+            if (constraint instanceof CourseEnrollmentConstraint) {
+                constraints.getCourseEnrollmentConstraintList().add((CourseEnrollmentConstraint) constraint);
+            } else if (constraint instanceof CourseGroupConstraint) {
+                constraints.getCourseGroupConstraintList().add((CourseGroupConstraint) constraint);
+            } else {
+                constraints.getGlobalConstraintList().add((GlobalConstraint) constraint);
+            }
+        }
+        constraints.setParallel(parallel);
+    }
+
+    /**
+     * Recheck all constraints.
+     */
+    @Benchmark
+    public void recheckAll() {
+        constraints.recheckAll();
+    }
+}
@@ -0,0 +1,181 @@
+package com.oskopek.studyguide.benchmark;
+
+import com.oskopek.studyguide.controller.CachingFindCourses;
+import com.oskopek.studyguide.controller.FindRegistryCoursesController;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.DefaultStudyPlan;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import com.oskopek.studyguide.persistence.SmileDataReaderWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks of the hot paths on a whole {@link StudyPlan}: constraint validation, course search, persistence
+ * (JSON and binary) and course removal. The plans are described by the {@code input} parameter, see {@link StudyPlanGenerator}.
+ * Other sizes can be benchmarked by overriding it, e.g. {@code -p input=5000x10x12x4}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StudyPlanBenchmark {
+
+    @Param({"200x6x8x2", "2000x10x12x4", "20000x12x12x6", "mff_bc_ioi_2017_2018.json"})
+    String input;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private StudyPlan plan;
+    private byte[] json;
+    private JsonDataReaderWriter readerWriter;
+    private byte[] binary;
+    private SmileDataReaderWriter binaryReaderWriter;
+    private FindRegistryCoursesController findCoursesController;
+    private String query;
+
+    /**
+     * Load the plan and prepare the search query: the start of the name of a course from the middle of the
+     * registry, with a typo.
+     *
+     * @throws IOException if the plan failed to load
+     */
+    @Setup
+    public void setUp() throws IOException {
+        plan = StudyPlanGenerator.load(input);
+        json = StudyPlanGenerator.toJson(plan);
+        readerWriter = StudyPlanGenerator.newReaderWriter();
+        binaryReaderWriter = StudyPlanGenerator.newBinaryReaderWriter();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(json.length);
+        binaryReaderWriter.writeTo(plan, outputStream);
+        binary = outputStream.toByteArray();
+        logger.debug("Plan {}: {} B of JSON, {} B binary.", input, json.length, binary.length);
+        findCoursesController = new FindRegistryCoursesController(plan.getCourseRegistry());
+        List<Course> courses = plan.getCourseRegistry().courseMapValues().stream()
+                .sorted((a, b) -> a.getId().compareTo(b.getId())).collect(Collectors.toList());
+        String name = courses.get(courses.size() / 2).nameOrLocalizedName();
+        query = name.substring(0, Math.min(name.length(), 6)).toLowerCase() + "x";
+    }
+
+    /**
+     * Recheck all constraints of the plan.
+     */
+    @Benchmark
+    public void recheckAll() {
+        plan.getConstraints().recheckAll();
+    }
+
+    /**
+     * Search the registry for the query, as the find courses dialog does on every keystroke.
+     *
+     * @param blackhole the sink for the found courses
+     */
+    @Benchmark
+    public void findCourses(Blackhole blackhole) {
+        findCoursesController.findCourses(query).forEach(blackhole::consume);
+    }
+
+    /**
+     * Load the plan from JSON.
+     *
+     * @return the loaded plan
+     * @throws IOException if the plan failed to load
+     */
+    @Benchmark
+    public StudyPlan readFrom() throws IOException {
+        return readerWriter.readFrom(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Load the plan from JSON and set up the course search on it, as the application does when a plan is opened.
+     *
+     * @return the search of the loaded plan
+     * @throws IOException if the plan failed to load
+     */
+    @Benchmark
+    public CachingFindCourses readFromAndIndex() throws IOException {
+        StudyPlan loaded = readerWriter.readFrom(new ByteArrayInputStream(json));
+        return new CachingFindCourses(new FindRegistryCoursesController(loaded.getCourseRegistry()));
+    }
+
+    /**
+     * Save the plan to JSON.
+     *
+     * @return the saved plan
+     * @throws IOException if the plan failed to save
+     */
+    @Benchmark
+    public byte[] writeTo() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(json.length);
+        readerWriter.writeTo(plan, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Load the plan from the binary format.
+     *
+     * @return the loaded plan
+     * @throws IOException if the plan failed to load
+     */
+    @Benchmark
+    public StudyPlan readFromBinary() throws IOException {
+        return binaryReaderWriter.readFrom(new ByteArrayInputStream(binary));
+    }
+
+    /**
+     * Save the plan to the binary format.
+     *
+     * @return the saved plan
+     * @throws IOException if the plan failed to save
+     */
+    @Benchmark
+    public byte[] writeToBinary() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(binary.length);
+        binaryReaderWriter.writeTo(plan, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Remove an enrolled course from a fresh copy of the plan.
+     *
+     * @param copy the fresh copy
+     */
+    @Benchmark
+    public void removeCourse(PlanCopy copy) {
+        copy.plan.removeCourse(copy.toRemove);
+    }
+
+    /**
+     * A fresh copy of the benchmarked plan for every invocation, for benchmarks that change it.
+     */
+    @State(Scope.Thread)
+    public static class PlanCopy {
+
+        private DefaultStudyPlan plan;
+        private Course toRemove;
+
+        /**
+         * Load the copy and choose the course to remove: the course of the enrollment in the middle of the plan.
+         *
+         * @param benchmark the benchmark with the plan to copy
+         * @throws IOException if the copy failed to load
+         */
+        @Setup(Level.Invocation)
+        public void setUp(StudyPlanBenchmark benchmark) throws IOException {
+            plan = (DefaultStudyPlan) StudyPlanGenerator.fromJson(benchmark.json);
+            List<CourseEnrollment> enrollments = plan.getSemesterPlan().allCourseEnrollments()
+                    .collect(Collectors.toList());
+            toRemove = enrollments.get(enrollments.size() / 2).getCourse();
+        }
+    }
+}
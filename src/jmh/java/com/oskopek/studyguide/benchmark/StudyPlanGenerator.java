@@ -0,0 +1,228 @@
+package com.oskopek.studyguide.benchmark;
+
+import com.google.common.eventbus.EventBus;
+import com.oskopek.studyguide.constraint.*;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.DefaultStudyPlan;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.constraints.Constraints;
+import com.oskopek.studyguide.model.constraints.CourseGroup;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import com.oskopek.studyguide.model.courses.EnrollableIn;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import com.oskopek.studyguide.persistence.SmileDataReaderWriter;
+import org.apache.commons.lang.math.Fraction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Generates synthetic {@link StudyPlan}s for the benchmarks, or loads the bundled test plans.
+ * <p>
+ * A plan is described by an input string: either a size {@code COURSESxSEMESTERSxENROLLMENTSxDEPTH} (number of
+ * courses in the registry, number of semesters, enrollments per semester and the depth of the prerequisite chains),
+ * or the file name of a plan in the test resources (for example {@code mff_bc_ioi_2017_2018.json}). Bundled plans
+ * with an empty semester plan are filled with 8 semesters of 10 random enrollments each.
+ * <p>
+ * All plans are passed through {@link JsonDataReaderWriter}, so that they are injected the same way as loaded ones.
+ * Generation is deterministic.
+ */
+public final class StudyPlanGenerator {
+
+    private static final String resources = "src/test/resources/com/oskopek/studyguide/persistence/";
+    private static final String[] syllables = {"al", "be", "ci", "do", "ek", "fu", "ga", "hy", "in", "jo", "ka", "lo",
+            "ma", "ne", "or", "pi", "qu", "ra", "se", "ti", "uv", "vi", "wa", "xe", "yo", "ze"};
+    private static final String[] localizedSyllables = {"á", "če", "dí", "ěr", "ňo", "ří", "še", "ťu", "ů", "ža"};
+    private static final long seed = 42L;
+
+    /**
+     * Empty default constructor.
+     */
+    private StudyPlanGenerator() {
+        // intentionally empty
+    }
+
+    /**
+     * Create the plan described by the input.
+     *
+     * @param input the plan description, see the class documentation
+     * @return the loaded plan
+     * @throws IOException if the plan failed to load
+     * @throws IllegalArgumentException if the input is not a valid description
+     */
+    public static StudyPlan load(String input) throws IOException, IllegalArgumentException {
+        if (input.endsWith(".json")) {
+            StudyPlan plan = newReaderWriter().readFrom(resources + input);
+            if (plan.getSemesterPlan().getSemesterList().isEmpty()) {
+                enroll(plan, 8, 10, new Random(seed));
+                plan = fromJson(toJson(plan));
+            }
+            return plan;
+        }
+        String[] size = input.split("x");
+        if (size.length != 4) {
+            throw new IllegalArgumentException("Expected COURSESxSEMESTERSxENROLLMENTSxDEPTH, got: " + input);
+        }
+        return fromJson(toJson(generate(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                Integer.parseInt(size[2]), Integer.parseInt(size[3]))));
+    }
+
+    /**
+     * Generate a random plan. The returned plan's constraints are not injected yet, pass it through
+     * {@link #toJson(StudyPlan)} and {@link #fromJson(byte[])} before validating them.
+     *
+     * @param courseCount the number of courses in the registry
+     * @param semesterCount the number of semesters
+     * @param enrollmentsPerSemester the number of enrollments in every semester
+     * @param requisiteDepth the length of the longest prerequisite chain, 0 for no prerequisites
+     * @return the generated plan
+     * @throws IllegalArgumentException if there are less courses than enrollments
+     */
+    public static DefaultStudyPlan generate(int courseCount, int semesterCount, int enrollmentsPerSemester,
+            int requisiteDepth) throws IllegalArgumentException {
+        if (courseCount < semesterCount * enrollmentsPerSemester) {
+            throw new IllegalArgumentException("Not enough courses for " + semesterCount * enrollmentsPerSemester
+                    + " enrollments.");
+        }
+        Random random = new Random(seed);
+        DefaultStudyPlan plan = new DefaultStudyPlan();
+        List<List<Course>> levels = new ArrayList<>(requisiteDepth + 1);
+        for (int i = 0; i <= requisiteDepth; i++) {
+            levels.add(new ArrayList<>());
+        }
+        for (int i = 0; i < courseCount; i++) {
+            int level = i % (requisiteDepth + 1);
+            List<Course> prerequisites = new ArrayList<>(2);
+            List<Course> corequisites = new ArrayList<>(1);
+            if (level > 0) {
+                List<Course> lower = levels.get(level - 1);
+                prerequisites.add(lower.get(random.nextInt(lower.size())));
+                if (random.nextInt(4) == 0) {
+                    Course other = lower.get(random.nextInt(lower.size()));
+                    if (!prerequisites.contains(other)) {
+                        prerequisites.add(other);
+                    }
+                }
+                if (random.nextInt(8) == 0) {
+                    corequisites.add(lower.get(random.nextInt(lower.size())));
+                }
+            }
+            Course course = new Course(String.format("NSWI%05d", i), randomName(random, syllables, 3 + i % 4),
+                    randomName(random, localizedSyllables, 3), Locale.forLanguageTag("cs"),
+                    Credits.valueOf(2 + random.nextInt(7)), EnrollableIn.values()[random.nextInt(3)],
+                    Collections.emptyList(), prerequisites, corequisites);
+            plan.getCourseRegistry().putCourse(course);
+            levels.get(level).add(course);
+        }
+        enroll(plan, semesterCount, enrollmentsPerSemester, random);
+        return plan;
+    }
+
+    /**
+     * Add semesters with random course enrollments to the plan, along with their enrollment constraints, some
+     * course group constraints over the enrolled courses and the usual global constraints.
+     *
+     * @param plan the plan to fill
+     * @param semesterCount the number of semesters to add
+     * @param enrollmentsPerSemester the number of enrollments in every semester
+     * @param random the source of randomness
+     */
+    private static void enroll(StudyPlan plan, int semesterCount, int enrollmentsPerSemester, Random random) {
+        List<Course> courses = new ArrayList<>(plan.getCourseRegistry().courseMapValues());
+        courses.sort(Comparator.comparing(Course::getId));
+        Collections.shuffle(courses, random);
+        Constraints constraints = plan.getConstraints();
+        List<Course> enrolled = new ArrayList<>(semesterCount * enrollmentsPerSemester);
+        for (int i = 0; i < semesterCount; i++) {
+            Semester semester = new Semester("Semester" + (i + 1));
+            plan.getSemesterPlan().addSemester(semester);
+            for (int j = 0; j < enrollmentsPerSemester && enrolled.size() < courses.size(); j++) {
+                Course course = courses.get(enrolled.size());
+                CourseEnrollment enrollment = semester.addCourseEnrollment(course);
+                enrollment.setFulfilled(random.nextInt(5) != 0);
+                enrolled.add(course);
+                constraints.getCourseEnrollmentConstraintList()
+                        .add(new CourseEnrollmentRequisiteConstraint(enrollment));
+            }
+        }
+        int groupSize = Math.max(1, enrolled.size() / 5);
+        for (int from = 0; from < enrolled.size(); from += groupSize) {
+            List<Course> group = enrolled.subList(from, Math.min(enrolled.size(), from + groupSize));
+            int credits = group.stream().mapToInt(c -> c.getCredits().getCreditValue()).sum();
+            constraints.getCourseGroupConstraintList().add(
+                    new CourseGroupCreditsSumConstraint(new CourseGroup(group), Credits.valueOf(credits / 2)));
+            constraints.getCourseGroupConstraintList().add(
+                    new CourseGroupCreditsPercentageConstraint(new CourseGroup(group), Fraction.getFraction(2, 3)));
+            constraints.getCourseGroupConstraintList().add(new CourseGroupFulfilledAllConstraint(new CourseGroup(
+                    group.subList(0, Math.min(group.size(), 3)))));
+        }
+        constraints.getGlobalConstraintList().add(new GlobalCreditsSumConstraint(Credits.valueOf(180)));
+        constraints.getGlobalConstraintList().add(new GlobalCreditsSumUntilSemesterConstraint(Credits.valueOf(45), 2));
+        constraints.getGlobalConstraintList().add(new GlobalCourseMaxFulfilledConstraint(1));
+        constraints.getGlobalConstraintList().add(new GlobalCourseRepeatedEnrollmentConstraint(2));
+    }
+
+    /**
+     * Generate a random name out of the given syllables.
+     *
+     * @param random the source of randomness
+     * @param syllables the syllables to use
+     * @param length the number of syllables
+     * @return the capitalized name
+     */
+    private static String randomName(Random random, String[] syllables, int length) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            name.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Serialize the plan.
+     *
+     * @param plan the plan
+     * @return the plan in JSON
+     * @throws IOException if the plan failed to serialize
+     */
+    public static byte[] toJson(StudyPlan plan) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        newReaderWriter().writeTo(plan, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Deserialize a plan.
+     *
+     * @param json the plan in JSON
+     * @return the deserialized plan
+     * @throws IOException if the plan failed to deserialize
+     */
+    public static StudyPlan fromJson(byte[] json) throws IOException {
+        return newReaderWriter().readFrom(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Create a reader/writer injecting the default messages and a new event bus.
+     *
+     * @return the reader/writer
+     */
+    public static JsonDataReaderWriter newReaderWriter() {
+        return new JsonDataReaderWriter(ResourceBundle.getBundle("com.oskopek.studyguide.view.messages"),
+                new EventBus());
+    }
+
+    /**
+     * Create a binary reader/writer injecting the default messages and a new event bus.
+     *
+     * @return the reader/writer
+     */
+    public static SmileDataReaderWriter newBinaryReaderWriter() {
+        return new SmileDataReaderWriter(ResourceBundle.getBundle("com.oskopek.studyguide.view.messages"),
+                new EventBus());
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks of the StudyGuide hot paths. Run them using the {@code benchmark} Maven profile.
+ */
+package com.oskopek.studyguide.benchmark;
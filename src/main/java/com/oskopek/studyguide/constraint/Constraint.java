@@ -15,6 +15,8 @@ import com.oskopek.studyguide.model.courses.Course;
                 name = "CourseEnrollmentEnrolledInConstraint"),
         @JsonSubTypes.Type(value = CourseEnrollmentPrerequisiteConstraint.class,
                 name = "CourseEnrollmentPrerequisiteConstraint"),
+        @JsonSubTypes.Type(value = CourseEnrollmentRequisiteConstraint.class,
+                name = "CourseEnrollmentRequisiteConstraint"),
         @JsonSubTypes.Type(value = CourseGroupCreditsPercentageConstraint.class,
                 name = "CourseGroupCreditsPercentageConstraint"),
         @JsonSubTypes.Type(value = CourseGroupCreditsSumConstraint.class,
@@ -39,6 +41,14 @@ public interface Constraint {
      */
     void validate();
 
+    /**
+     * Same as {@link #validate()}, but reads the plan through the given snapshot, that can be shared by all
+     * constraints validated in one recheck.
+     *
+     * @param snapshot the snapshot of the plan this constraint is in
+     */
+    void validate(EvaluationSnapshot snapshot);
+
     /**
      * Used for firing a broken constraint event if the constraint is broken.
      *
@@ -0,0 +1,79 @@
+package com.oskopek.studyguide.constraint;
+
+import com.oskopek.studyguide.constraint.event.StringMessageEvent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The result of evaluating a {@link DefaultConstraint}: the broken and fixed events its validation would have posted.
+ * Verdicts are computed by {@link DefaultConstraint#evaluate(EvaluationSnapshot)} and can be published later,
+ * possibly on another thread.
+ */
+public final class ConstraintVerdict {
+
+    private final DefaultConstraint constraint;
+    private final List<Object> events;
+
+    /**
+     * Create a verdict.
+     *
+     * @param constraint the evaluated constraint
+     * @param events the events posted by the evaluation, in order
+     */
+    ConstraintVerdict(DefaultConstraint constraint, List<Object> events) {
+        this.constraint = constraint;
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Get the evaluated constraint.
+     *
+     * @return the constraint
+     */
+    public DefaultConstraint getConstraint() {
+        return constraint;
+    }
+
+    /**
+     * Get the events the evaluation would have posted.
+     *
+     * @return an unmodifiable list of the events, in order
+     */
+    public List<Object> getEvents() {
+        return events;
+    }
+
+    /**
+     * Get the messages of the broken constraint events of the verdict.
+     *
+     * @return the messages, in order, empty if the constraint is not broken
+     */
+    public List<String> getBrokenMessages() {
+        return events.stream().filter(e -> e instanceof StringMessageEvent)
+                .map(e -> ((StringMessageEvent) e).getMessage()).collect(Collectors.toList());
+    }
+
+    /**
+     * Is the constraint broken according to this verdict?
+     *
+     * @return true iff there is at least one broken constraint event
+     */
+    public boolean isBroken() {
+        return events.stream().anyMatch(e -> e instanceof StringMessageEvent);
+    }
+
+    /**
+     * Post all events of the verdict to the constraint's event bus, in order.
+     * Should be called on the thread the event bus subscribers expect, usually the JavaFX Application Thread.
+     */
+    public void publish() {
+        events.forEach(constraint.eventBus::post);
+    }
+
+    @Override
+    public String toString() {
+        return "ConstraintVerdict[" + constraint + ", " + events + "]";
+    }
+}
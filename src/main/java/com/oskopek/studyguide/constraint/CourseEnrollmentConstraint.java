@@ -59,7 +59,7 @@ public abstract class CourseEnrollmentConstraint extends DefaultConstraint {
 
     @Override
     public void fireBrokenEvent(String reason, CourseEnrollment enrollment) {
-        eventBus.post(new BrokenCourseEnrollmentConstraintEvent(messages, reason, this, enrollment));
+        post(new BrokenCourseEnrollmentConstraintEvent(messages, reason, this, enrollment));
     }
 
     /**
@@ -7,16 +7,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Checks if all the corequisite courses for a {@link com.oskopek.studyguide.model.CourseEnrollment}
  * are enrolled in (at the latest this current semester).
+ * Superseded by {@link CourseEnrollmentRequisiteConstraint}, kept for loading older plans.
  */
 public class CourseEnrollmentCorequisiteConstraint extends CourseEnrollmentConstraint {
 
-    // TODO merge this with Prereq constraint (more efficient)
     private final String message = "constraint.unfulfilledCorequisite";
 
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
@@ -38,16 +36,30 @@ public class CourseEnrollmentCorequisiteConstraint extends CourseEnrollmentConst
     }
 
     @Override
-    public void validate() {
-        Set<Course> corequisites = new HashSet<>(getCourseEnrollment().getCourse().getCorequisites());
-        Stream<Course> coursesUntilNow = takeUntilSemester(semesterPlan, getCourseEnrollment().getSemester())
-                .map(CourseEnrollment::getCourse);
-        Set<Course> corequisitesUntilNow = coursesUntilNow.filter(corequisites::contains).collect(Collectors.toSet());
-        corequisites.removeAll(corequisitesUntilNow);
+    public void validate(EvaluationSnapshot snapshot) {
+        Set<Course> corequisites = findUnfulfilledCorequisites(getCourseEnrollment(), snapshot);
         if (!corequisites.isEmpty()) {
             fireBrokenEvent(generateMessage(message, corequisites), getCourseEnrollment());
         } else {
             fireFixedEvent(this);
         }
     }
+
+    /**
+     * Finds the corequisites of the enrolled course that are not enrolled in this or any previous semester.
+     *
+     * @param enrollment the enrollment to check
+     * @param snapshot the snapshot of the plan the enrollment is in
+     * @return a new set of the unfulfilled corequisites, empty if all are fulfilled
+     */
+    static Set<Course> findUnfulfilledCorequisites(CourseEnrollment enrollment, EvaluationSnapshot snapshot) {
+        Set<Course> corequisites = new HashSet<>(enrollment.getCourse().getCorequisites());
+        int semesterIndex = snapshot.indexOf(enrollment.getSemester());
+        int lastSemesterIndex = semesterIndex < 0 ? snapshot.getSemesterCount() - 1 : semesterIndex;
+        corequisites.removeIf(corequisite -> {
+            int enrolledIndex = snapshot.getEarliestEnrollment(corequisite);
+            return enrolledIndex >= 0 && enrolledIndex <= lastSemesterIndex;
+        });
+        return corequisites;
+    }
 }
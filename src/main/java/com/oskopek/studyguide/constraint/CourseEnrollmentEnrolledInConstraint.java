@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Checks if the course is enrolled only in the allowed semester.
+ * Superseded by {@link CourseEnrollmentRequisiteConstraint}, kept for loading older plans.
  *
  * @see EnrollableIn
  */
@@ -35,40 +36,54 @@ public class CourseEnrollmentEnrolledInConstraint extends CourseEnrollmentConstr
     }
 
     @Override
-    public void validate() {
-        EnrollableIn enrollableIn = getCourseEnrollment().getCourse().getEnrollableIn();
-        if (EnrollableIn.BOTH.equals(enrollableIn)) {
+    public void validate(EvaluationSnapshot snapshot) {
+        EnrollableIn enrolledIn = findInvalidEnrolledIn(getCourseEnrollment(), snapshot);
+        if (enrolledIn == null) {
             fireFixedEvent(this);
-            return;
+        } else {
+            fireBrokenEvent(generateMessage(enrolledIn, getCourseEnrollment().getCourse().getEnrollableIn()),
+                    getCourseEnrollment());
+        }
+    }
+
+    /**
+     * Checks if the course enrollment is in a semester of an allowed type.
+     *
+     * @param enrollment the enrollment to check
+     * @param snapshot the snapshot of the plan the enrollment is in
+     * @return the type of semester the course is enrolled in if it is not allowed, null if it is allowed
+     * @throws IllegalStateException if the enrollment's semester is not in the plan
+     */
+    static EnrollableIn findInvalidEnrolledIn(CourseEnrollment enrollment, EvaluationSnapshot snapshot)
+            throws IllegalStateException {
+        EnrollableIn enrollableIn = enrollment.getCourse().getEnrollableIn();
+        if (EnrollableIn.BOTH.equals(enrollableIn)) {
+            return null;
         }
-        Semester semester = getCourseEnrollment().getSemester();
-        int semesterIndex = getSemesterPlan().getSemesterList().indexOf(semester);
+        Semester semester = enrollment.getSemester();
+        int semesterIndex = snapshot.indexOf(semester);
         if (semesterIndex < 0) {
-            throw new IllegalStateException("Semester " + semester + " not found in semester plan " + semesterPlan);
+            throw new IllegalStateException("Semester " + semester + " not found in semester plan.");
         }
 
         semesterIndex += 1; // count from one
         switch (enrollableIn) {
             case BOTH:
-                fireFixedEvent(this);
-                return;
+                return null;
             case SUMMER:
                 if (semesterIndex % 2 == 0) {
-                    fireFixedEvent(this);
-                    return;
+                    return null;
                 }
                 break;
             case WINTER:
                 if (semesterIndex % 2 == 1) {
-                    fireFixedEvent(this);
-                    return;
+                    return null;
                 }
                 break;
             default:
                 throw new IllegalStateException("Unknown enrollableIn: " + enrollableIn);
         }
-        fireBrokenEvent(generateMessage(semesterIndex % 2 == 1 ? EnrollableIn.WINTER : EnrollableIn.SUMMER,
-                enrollableIn), getCourseEnrollment());
+        return semesterIndex % 2 == 1 ? EnrollableIn.WINTER : EnrollableIn.SUMMER;
     }
 
     /**
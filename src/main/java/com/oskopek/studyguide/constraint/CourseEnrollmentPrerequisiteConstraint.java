@@ -7,12 +7,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Checks if all the prerequisite courses for a {@link com.oskopek.studyguide.model.CourseEnrollment}
  * are marked as fulfilled (at the latest one semester before the current one).
+ * Superseded by {@link CourseEnrollmentRequisiteConstraint}, kept for loading older plans.
  */
 public class CourseEnrollmentPrerequisiteConstraint extends CourseEnrollmentConstraint {
 
@@ -37,25 +36,33 @@ public class CourseEnrollmentPrerequisiteConstraint extends CourseEnrollmentCons
     }
 
     @Override
-    public void validate() {
-        Set<Course> prerequisites = new HashSet<>(getCourseEnrollment().getCourse().getPrerequisites());
-        int semesterIndex = semesterPlan.getSemesterList().indexOf(getCourseEnrollment().getSemester()) - 1;
-        if (semesterIndex < 0) {
-            if (!prerequisites.isEmpty()) {
-                fireBrokenEvent(generateMessage(message, prerequisites), getCourseEnrollment());
-            }
-            return;
-        }
-
-        Stream<CourseEnrollment> enrollmentsUntilNow = takeUntilSemester(semesterPlan,
-                semesterPlan.getSemesterList().get(semesterIndex));
-        Set<Course> fulfilledPrerequisites = enrollmentsUntilNow.filter(CourseEnrollment::isFulfilled)
-                .map(CourseEnrollment::getCourse).filter(prerequisites::contains).collect(Collectors.toSet());
-        prerequisites.removeAll(fulfilledPrerequisites);
+    public void validate(EvaluationSnapshot snapshot) {
+        Set<Course> prerequisites = findUnfulfilledPrerequisites(getCourseEnrollment(), snapshot);
         if (!prerequisites.isEmpty()) {
             fireBrokenEvent(generateMessage(message, prerequisites), getCourseEnrollment());
-        } else {
+        } else if (snapshot.indexOf(getCourseEnrollment().getSemester()) > 0) {
             fireFixedEvent(this);
         }
     }
+
+    /**
+     * Finds the prerequisites of the enrolled course that are not fulfilled in any previous semester.
+     *
+     * @param enrollment the enrollment to check
+     * @param snapshot the snapshot of the plan the enrollment is in
+     * @return a new set of the unfulfilled prerequisites, empty if all are fulfilled
+     */
+    static Set<Course> findUnfulfilledPrerequisites(CourseEnrollment enrollment, EvaluationSnapshot snapshot) {
+        Set<Course> prerequisites = new HashSet<>(enrollment.getCourse().getPrerequisites());
+        int semesterIndex = snapshot.indexOf(enrollment.getSemester()) - 1;
+        if (semesterIndex < 0) {
+            return prerequisites;
+        }
+
+        prerequisites.removeIf(prerequisite -> {
+            int fulfilledIndex = snapshot.getEarliestFulfillment(prerequisite);
+            return fulfilledIndex >= 0 && fulfilledIndex <= semesterIndex;
+        });
+        return prerequisites;
+    }
 }
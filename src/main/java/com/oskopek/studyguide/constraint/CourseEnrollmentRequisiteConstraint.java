@@ -0,0 +1,84 @@
+package com.oskopek.studyguide.constraint;
+
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.EnrollableIn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks all the requirements of a single {@link CourseEnrollment} at once: the corequisite courses
+ * have to be enrolled in (at the latest this current semester), the prerequisite courses have to be fulfilled
+ * (at the latest one semester before the current one) and the course has to be enrolled in an allowed semester.
+ * <p>
+ * Replaces the {@link CourseEnrollmentCorequisiteConstraint}, {@link CourseEnrollmentPrerequisiteConstraint} and
+ * {@link CourseEnrollmentEnrolledInConstraint} triple. Fires a broken event with the same message for every
+ * requirement those would have fired one for, in the same order.
+ */
+public class CourseEnrollmentRequisiteConstraint extends CourseEnrollmentConstraint {
+
+    private final String corequisiteMessage = "constraint.unfulfilledCorequisite";
+    private final String prerequisiteMessage = "constraint.unfulfilledPrerequisite";
+    private final String enrolledInMessage = "constraint.enrolledInInvalid";
+
+    /**
+     * Private default constructor, needed by CDI.
+     */
+    protected CourseEnrollmentRequisiteConstraint() {
+        // needed for CDI
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param enrollment the enrollment to check
+     */
+    public CourseEnrollmentRequisiteConstraint(CourseEnrollment enrollment) {
+        super(enrollment);
+    }
+
+    /**
+     * Creates a requisite constraint for the same enrollment and plan as the given constraint, sharing its injected
+     * resources. Used for upgrading the separate requisite constraints of older plans.
+     *
+     * @param original the constraint whose enrollment to check
+     * @return the new constraint
+     */
+    public static CourseEnrollmentRequisiteConstraint of(CourseEnrollmentConstraint original) {
+        CourseEnrollmentRequisiteConstraint constraint
+                = new CourseEnrollmentRequisiteConstraint(original.getCourseEnrollment());
+        constraint.setSemesterPlan(original.getSemesterPlan());
+        constraint.messages = original.messages;
+        constraint.eventBus = original.eventBus;
+        return constraint;
+    }
+
+    @Override
+    public void validate(EvaluationSnapshot snapshot) {
+        CourseEnrollment enrollment = getCourseEnrollment();
+        List<String> brokenMessages = new ArrayList<>(3);
+        Set<Course> corequisites = CourseEnrollmentCorequisiteConstraint
+                .findUnfulfilledCorequisites(enrollment, snapshot);
+        if (!corequisites.isEmpty()) {
+            brokenMessages.add(generateMessage(corequisiteMessage, corequisites));
+        }
+        Set<Course> prerequisites = CourseEnrollmentPrerequisiteConstraint
+                .findUnfulfilledPrerequisites(enrollment, snapshot);
+        if (!prerequisites.isEmpty()) {
+            brokenMessages.add(generateMessage(prerequisiteMessage, prerequisites));
+        }
+        EnrollableIn enrolledIn = CourseEnrollmentEnrolledInConstraint.findInvalidEnrolledIn(enrollment, snapshot);
+        if (enrolledIn != null) {
+            brokenMessages.add(String.format(messages.getString(enrolledInMessage), enrolledIn,
+                    enrollment.getCourse().getEnrollableIn()));
+        }
+
+        if (brokenMessages.isEmpty()) {
+            fireFixedEvent(this);
+        } else {
+            brokenMessages.forEach(message -> fireBrokenEvent(message, enrollment));
+        }
+    }
+}
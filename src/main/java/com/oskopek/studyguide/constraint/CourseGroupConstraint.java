@@ -67,7 +67,7 @@ public abstract class CourseGroupConstraint extends DefaultConstraint {
      * @param message the reason why the constraint is broken
      */
     public void fireBrokenEvent(String message) {
-        eventBus.post(new BrokenCourseGroupConstraintEvent(messages, message, this, courseGroup));
+        post(new BrokenCourseGroupConstraintEvent(messages, message, this, courseGroup));
     }
 
     @Override
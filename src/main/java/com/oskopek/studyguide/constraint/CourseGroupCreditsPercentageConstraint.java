@@ -3,7 +3,6 @@ package com.oskopek.studyguide.constraint;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.constraints.CourseGroup;
 import com.oskopek.studyguide.model.courses.Course;
 import org.apache.commons.lang.builder.EqualsBuilder;
@@ -11,8 +10,8 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.math.Fraction;
 
 import java.text.DecimalFormat;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Stream;
 
 /**
  * Checks if the {@link com.oskopek.studyguide.model.courses.Credits} ratio fulfilled to total number of
@@ -21,7 +20,8 @@ import java.util.stream.Stream;
  */
 public class CourseGroupCreditsPercentageConstraint extends CourseGroupConstraint {
 
-    private static final DecimalFormat percentageFormat = new DecimalFormat("##0.00");
+    private static final ThreadLocal<DecimalFormat> percentageFormat
+            = ThreadLocal.withInitial(() -> new DecimalFormat("##0.00"));
     private final String message = "constraint.courseGroupCreditsPercentageInvalid";
     private Fraction neededFraction;
 
@@ -52,7 +52,7 @@ public class CourseGroupCreditsPercentageConstraint extends CourseGroupConstrain
      */
     private static String toPercent(Fraction fraction) {
         // TODO math3 fraction.percentageValue()
-        return percentageFormat.format(fraction.doubleValue() * 100d) + "%";
+        return percentageFormat.get().format(fraction.doubleValue() * 100d) + "%";
     }
 
     /**
@@ -86,12 +86,10 @@ public class CourseGroupCreditsPercentageConstraint extends CourseGroupConstrain
     }
 
     @Override
-    public void validate() {
+    public void validate(EvaluationSnapshot snapshot) {
         List<Course> groupCourses = getCourseGroup().courseListProperty().get();
-        Stream<Course> fulfilledGroupCourses = semesterPlan.allCourseEnrollments().filter(CourseEnrollment::isFulfilled)
-                .map(CourseEnrollment::getCourse).filter(groupCourses::contains);
         int creditSum = groupCourses.stream().map(c -> c.getCredits().getCreditValue()).reduce(0, Integer::sum);
-        int fulfilledSum = fulfilledGroupCourses.map(c -> c.getCredits().getCreditValue()).reduce(0, Integer::sum);
+        int fulfilledSum = new HashSet<>(groupCourses).stream().mapToInt(snapshot::getFulfilledCredits).sum();
         Fraction gotFraction = Fraction.getFraction(fulfilledSum, creditSum);
         if (neededFraction.compareTo(gotFraction) > 0) {
             fireBrokenEvent(generateMessage(gotFraction, neededFraction));
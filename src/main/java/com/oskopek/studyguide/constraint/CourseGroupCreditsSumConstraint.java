@@ -2,15 +2,14 @@ package com.oskopek.studyguide.constraint;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.constraints.CourseGroup;
 import com.oskopek.studyguide.model.courses.Course;
 import com.oskopek.studyguide.model.courses.Credits;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
-import java.util.List;
-import java.util.stream.Stream;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Checks if the {@link com.oskopek.studyguide.model.courses.Credits} sum of fulfilled
@@ -41,12 +40,9 @@ public class CourseGroupCreditsSumConstraint extends CourseGroupConstraint {
     }
 
     @Override
-    public void validate() {
-        List<Course> groupCourses = getCourseGroup().courseListProperty().get();
-        Stream<Course> fulfilledGroupCourses = semesterPlan.allCourseEnrollments().filter(CourseEnrollment::isFulfilled)
-                .map(CourseEnrollment::getCourse).filter(groupCourses::contains);
-        Credits fulfilledSum = Credits
-                .valueOf(fulfilledGroupCourses.map(c -> c.getCredits().getCreditValue()).reduce(0, Integer::sum));
+    public void validate(EvaluationSnapshot snapshot) {
+        Set<Course> groupCourses = new HashSet<>(getCourseGroup().courseListProperty().get());
+        Credits fulfilledSum = Credits.valueOf(groupCourses.stream().mapToInt(snapshot::getFulfilledCredits).sum());
         if (fulfilledSum.compareTo(totalNeeded) < 0) {
             fireBrokenEvent(generateMessage(fulfilledSum, totalNeeded));
         } else {
@@ -1,7 +1,6 @@
 package com.oskopek.studyguide.constraint;
 
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.constraints.CourseGroup;
 import com.oskopek.studyguide.model.courses.Course;
 
@@ -34,11 +33,9 @@ public class CourseGroupFulfilledAllConstraint extends CourseGroupConstraint {
     }
 
     @Override
-    public void validate() {
-        Set<Course> fulfilledCompulsoryCourses = semesterPlan.allCourseEnrollments()
-                .filter(CourseEnrollment::isFulfilled).map(CourseEnrollment::getCourse).collect(Collectors.toSet());
+    public void validate(EvaluationSnapshot snapshot) {
         Set<Course> unfulfilledCompulsoryCourses = new HashSet<>(getCourseGroup().courseListProperty().get());
-        unfulfilledCompulsoryCourses.removeAll(fulfilledCompulsoryCourses);
+        unfulfilledCompulsoryCourses.removeAll(snapshot.getFulfilledCourses());
         if (unfulfilledCompulsoryCourses.size() > 0) {
             fireBrokenEvent(generateMessage(unfulfilledCompulsoryCourses));
         } else {
@@ -9,6 +9,8 @@ import com.oskopek.studyguide.model.Semester;
 import com.oskopek.studyguide.model.SemesterPlan;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.stream.Stream;
 
@@ -18,6 +20,8 @@ import java.util.stream.Stream;
  */
 public abstract class DefaultConstraint implements Constraint {
 
+    private static final ThreadLocal<List<Object>> recordedEvents = new ThreadLocal<>();
+
     protected transient SemesterPlan semesterPlan;
 
     @Inject
@@ -65,9 +69,49 @@ public abstract class DefaultConstraint implements Constraint {
         return takeUntilSemester(plan, plan.getSemesterList().get(semester - 1));
     }
 
+    @Override
+    public void validate() {
+        validate(EvaluationSnapshot.of(semesterPlan));
+    }
+
+    /**
+     * Validate the constraint like {@link #validate(EvaluationSnapshot)}, but instead of posting the resulting
+     * events, collect them in a verdict that can be published later. Used to evaluate constraints in parallel,
+     * while the thread changing the model waits for the results: apart from the snapshot, the constraint reads
+     * the live courses, course groups and enrollments.
+     *
+     * @param snapshot the snapshot of the plan this constraint is in
+     * @return the verdict, not yet published
+     */
+    public ConstraintVerdict evaluate(EvaluationSnapshot snapshot) {
+        List<Object> events = new ArrayList<>(1);
+        List<Object> outer = recordedEvents.get();
+        recordedEvents.set(events);
+        try {
+            validate(snapshot);
+        } finally {
+            recordedEvents.set(outer);
+        }
+        return new ConstraintVerdict(this, events);
+    }
+
+    /**
+     * Post the event to the event bus, or record it if called from within {@link #evaluate(EvaluationSnapshot)}.
+     *
+     * @param event the event to post
+     */
+    protected void post(Object event) {
+        List<Object> events = recordedEvents.get();
+        if (events == null) {
+            eventBus.post(event);
+        } else {
+            events.add(event);
+        }
+    }
+
     @Override
     public void fireFixedEvent(Constraint originallyBroken) {
-        eventBus.post(new FixedConstraintEvent(originallyBroken));
+        post(new FixedConstraintEvent(originallyBroken));
     }
 
     /**
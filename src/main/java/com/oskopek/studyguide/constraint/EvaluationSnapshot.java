@@ -0,0 +1,198 @@
+package com.oskopek.studyguide.constraint;
+
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.SemesterPlan;
+import com.oskopek.studyguide.model.courses.Course;
+
+import java.util.*;
+
+/**
+ * An immutable view of a {@link SemesterPlan}, computed in one pass over all its {@link CourseEnrollment}s.
+ * One snapshot is shared by all constraints validated in a single recheck, so that they do not have to
+ * re-stream and re-group the whole plan each.
+ * <p>
+ * The snapshot is only valid as long as the plan does not change. Semesters are indexed from 0.
+ */
+public final class EvaluationSnapshot {
+
+    private final SemesterPlan semesterPlan;
+    private final int semesterCount;
+    private final Set<Course> fulfilledCourses;
+    private final Map<Course, Integer> enrollmentCounts;
+    private final Map<Course, Integer> fulfilledCounts;
+    private final Map<Course, Integer> fulfilledCredits;
+    private final Map<Course, Integer> earliestEnrollment;
+    private final Map<Course, Integer> earliestFulfillment;
+    private final int[] fulfilledCreditsPrefix;
+    private final int lastNonEmptySemester;
+
+    /**
+     * Computes a snapshot of the given plan.
+     *
+     * @param semesterPlan the plan to take a snapshot of
+     * @throws IllegalArgumentException if the plan is null
+     */
+    private EvaluationSnapshot(SemesterPlan semesterPlan) throws IllegalArgumentException {
+        if (semesterPlan == null) {
+            throw new IllegalArgumentException("Cannot take a snapshot of a null semester plan.");
+        }
+        this.semesterPlan = semesterPlan;
+        List<Semester> semesters = semesterPlan.getSemesterList();
+        semesterCount = semesters.size();
+        Set<Course> fulfilledCourses = new HashSet<>();
+        Map<Course, Integer> enrollmentCounts = new HashMap<>();
+        Map<Course, Integer> fulfilledCounts = new HashMap<>();
+        Map<Course, Integer> fulfilledCredits = new HashMap<>();
+        Map<Course, Integer> earliestEnrollment = new HashMap<>();
+        Map<Course, Integer> earliestFulfillment = new HashMap<>();
+        fulfilledCreditsPrefix = new int[semesterCount + 1];
+        int lastNonEmptySemester = 0;
+        for (int i = 0; i < semesterCount; i++) {
+            Semester semester = semesters.get(i);
+            for (CourseEnrollment enrollment : semester.getCourseEnrollmentList()) {
+                Course course = enrollment.getCourse();
+                enrollmentCounts.merge(course, 1, Integer::sum);
+                earliestEnrollment.putIfAbsent(course, i);
+                if (enrollment.isFulfilled()) {
+                    fulfilledCourses.add(course);
+                    fulfilledCounts.merge(course, 1, Integer::sum);
+                    fulfilledCredits.merge(course, course.getCredits().getCreditValue(), Integer::sum);
+                    earliestFulfillment.putIfAbsent(course, i);
+                }
+            }
+            if (!semester.getCourseEnrollmentList().isEmpty()) {
+                lastNonEmptySemester = i + 1;
+            }
+            fulfilledCreditsPrefix[i + 1] = semesterPlan.fulfilledCreditsUntil(i + 1);
+        }
+        if (semesterCount > 0) {
+            semesterPlan.indexOf(semesters.get(0)); // build the plan's semester index before a parallel evaluation
+        }
+        this.fulfilledCourses = Collections.unmodifiableSet(fulfilledCourses);
+        this.enrollmentCounts = Collections.unmodifiableMap(enrollmentCounts);
+        this.fulfilledCounts = Collections.unmodifiableMap(fulfilledCounts);
+        this.fulfilledCredits = Collections.unmodifiableMap(fulfilledCredits);
+        this.earliestEnrollment = Collections.unmodifiableMap(earliestEnrollment);
+        this.earliestFulfillment = Collections.unmodifiableMap(earliestFulfillment);
+        this.lastNonEmptySemester = lastNonEmptySemester;
+    }
+
+    /**
+     * Take a snapshot of the given plan.
+     *
+     * @param semesterPlan the plan to take a snapshot of
+     * @return the snapshot
+     * @throws IllegalArgumentException if the plan is null
+     */
+    public static EvaluationSnapshot of(SemesterPlan semesterPlan) throws IllegalArgumentException {
+        return new EvaluationSnapshot(semesterPlan);
+    }
+
+    /**
+     * Get the number of semesters in the plan.
+     *
+     * @return the semester count
+     */
+    public int getSemesterCount() {
+        return semesterCount;
+    }
+
+    /**
+     * Get the index of the semester in the plan, in the sense of {@link List#indexOf(Object)}.
+     *
+     * @param semester the semester to look up
+     * @return the index counted from 0, or -1 if the semester is not in the plan
+     * @see SemesterPlan#indexOf(Semester)
+     */
+    public int indexOf(Semester semester) {
+        return semesterPlan.indexOf(semester);
+    }
+
+    /**
+     * Get the set of all courses that have at least one fulfilled enrollment.
+     *
+     * @return an unmodifiable set of the fulfilled courses
+     */
+    public Set<Course> getFulfilledCourses() {
+        return fulfilledCourses;
+    }
+
+    /**
+     * Get the number of enrollments of every enrolled course.
+     * The iteration order is the same as when grouping the plan's enrollments into a {@link HashMap}.
+     *
+     * @return an unmodifiable map of the enrollment counts
+     */
+    public Map<Course, Integer> getEnrollmentCounts() {
+        return enrollmentCounts;
+    }
+
+    /**
+     * Get the number of fulfilled enrollments of every fulfilled course.
+     * The iteration order is the same as when grouping the plan's fulfilled enrollments into a {@link HashMap}.
+     *
+     * @return an unmodifiable map of the fulfilled enrollment counts
+     */
+    public Map<Course, Integer> getFulfilledCounts() {
+        return fulfilledCounts;
+    }
+
+    /**
+     * Get the sum of credits of all fulfilled enrollments of the course.
+     *
+     * @param course the course
+     * @return the credit sum, 0 if not fulfilled
+     */
+    public int getFulfilledCredits(Course course) {
+        return fulfilledCredits.getOrDefault(course, 0);
+    }
+
+    /**
+     * Get the sum of credits of all fulfilled enrollments in the first {@code semesterCount} semesters.
+     *
+     * @param semesterCount the number of semesters to sum, clamped to the interval [0, semester count]
+     * @return the credit sum
+     */
+    public int getFulfilledCreditsUntil(int semesterCount) {
+        return fulfilledCreditsPrefix[Math.max(0, Math.min(semesterCount, this.semesterCount))];
+    }
+
+    /**
+     * Get the sum of credits of all fulfilled enrollments in the plan.
+     *
+     * @return the credit sum
+     */
+    public int getFulfilledCreditsTotal() {
+        return fulfilledCreditsPrefix[semesterCount];
+    }
+
+    /**
+     * Get the index of the first semester the course is enrolled in.
+     *
+     * @param course the course
+     * @return the index counted from 0, or -1 if it is not enrolled at all
+     */
+    public int getEarliestEnrollment(Course course) {
+        return earliestEnrollment.getOrDefault(course, -1);
+    }
+
+    /**
+     * Get the index of the first semester the course is fulfilled in.
+     *
+     * @param course the course
+     * @return the index counted from 0, or -1 if it is not fulfilled at all
+     */
+    public int getEarliestFulfillment(Course course) {
+        return earliestFulfillment.getOrDefault(course, -1);
+    }
+
+    /**
+     * Get the number of the last semester that has at least one enrollment.
+     *
+     * @return the semester number counted from 1, or 0 if all semesters are empty
+     */
+    public int getLastNonEmptySemester() {
+        return lastNonEmptySemester;
+    }
+}
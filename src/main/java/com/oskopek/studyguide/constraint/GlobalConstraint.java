@@ -37,6 +37,6 @@ public abstract class GlobalConstraint extends DefaultConstraint {
      * @param message the reason why the constraint is broken
      */
     protected void fireBrokenEvent(String message) {
-        eventBus.post(new BrokenGlobalConstraintEvent(messages, message, this));
+        post(new BrokenGlobalConstraintEvent(messages, message, this));
     }
 }
@@ -9,9 +9,7 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Checks if the total number of fulfilled
@@ -40,17 +38,14 @@ public class GlobalCourseMaxFulfilledConstraint extends GlobalConstraint {
     }
 
     @Override
-    public void validate() {
+    public void validate(EvaluationSnapshot snapshot) {
         logger.trace("Validating... (max: {})", maxFulfilled);
-        Map<Course, List<CourseEnrollment>> groupByCourse = semesterPlan.getSemesterList().stream()
-                .flatMap(s -> s.getCourseEnrollmentList().stream()).filter(CourseEnrollment::isFulfilled)
-                .collect(Collectors.groupingBy(CourseEnrollment::getCourse));
-        for (Map.Entry<Course, List<CourseEnrollment>> entry : groupByCourse.entrySet()) {
+        for (Map.Entry<Course, Integer> entry : snapshot.getFulfilledCounts().entrySet()) {
             Course course = entry.getKey();
-            List<CourseEnrollment> enrollments = entry.getValue();
-            if (enrollments.size() > maxFulfilled) {
-                logger.debug("Broken on {} (fulfilled: {}, max {})", course, enrollments.size(), maxFulfilled);
-                fireBrokenEvent(generateMessage(course, enrollments.size(), maxFulfilled));
+            int fulfilled = entry.getValue();
+            if (fulfilled > maxFulfilled) {
+                logger.debug("Broken on {} (fulfilled: {}, max {})", course, fulfilled, maxFulfilled);
+                fireBrokenEvent(generateMessage(course, fulfilled, maxFulfilled));
                 return;
             }
         }
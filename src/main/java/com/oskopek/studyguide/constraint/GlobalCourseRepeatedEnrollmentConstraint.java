@@ -2,16 +2,13 @@ package com.oskopek.studyguide.constraint;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.courses.Course;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Checks if the number of times a student is enrolled in a course is less than or equal to N.
@@ -39,17 +36,14 @@ public class GlobalCourseRepeatedEnrollmentConstraint extends GlobalConstraint {
     }
 
     @Override
-    public void validate() {
+    public void validate(EvaluationSnapshot snapshot) {
         logger.trace("Validating... (max: {})", maxRepeatedEnrollment);
-        Map<Course, List<CourseEnrollment>> groupByCourse = semesterPlan.getSemesterList().stream()
-                .flatMap(s -> s.getCourseEnrollmentList().stream())
-                .collect(Collectors.groupingBy(CourseEnrollment::getCourse));
-        for (Map.Entry<Course, List<CourseEnrollment>> entry : groupByCourse.entrySet()) {
+        for (Map.Entry<Course, Integer> entry : snapshot.getEnrollmentCounts().entrySet()) {
             Course course = entry.getKey();
-            List<CourseEnrollment> enrollments = entry.getValue();
-            if (enrollments.size() > maxRepeatedEnrollment) {
-                logger.debug("Broken on {} (enrolled: {}, max {})", course, enrollments.size(), maxRepeatedEnrollment);
-                fireBrokenEvent(generateMessage(course, enrollments.size(), maxRepeatedEnrollment));
+            int enrolled = entry.getValue();
+            if (enrolled > maxRepeatedEnrollment) {
+                logger.debug("Broken on {} (enrolled: {}, max {})", course, enrolled, maxRepeatedEnrollment);
+                fireBrokenEvent(generateMessage(course, enrolled, maxRepeatedEnrollment));
                 return;
             }
         }
@@ -2,7 +2,6 @@ package com.oskopek.studyguide.constraint;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.courses.Credits;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -33,11 +32,8 @@ public class GlobalCreditsSumConstraint extends GlobalConstraint {
     }
 
     @Override
-    public void validate() {
-        Credits fulfilledCourseCreditSum = Credits.valueOf(
-                semesterPlan.getSemesterList().stream().flatMap(s -> s.getCourseEnrollmentList().stream())
-                        .filter(CourseEnrollment::isFulfilled).map(ce -> ce.getCourse().getCredits().getCreditValue())
-                        .reduce(0, Integer::sum));
+    public void validate(EvaluationSnapshot snapshot) {
+        Credits fulfilledCourseCreditSum = Credits.valueOf(snapshot.getFulfilledCreditsTotal());
         if (fulfilledCourseCreditSum.compareTo(totalNeeded) < 0) {
             fireBrokenEvent(generateMessage(fulfilledCourseCreditSum, totalNeeded));
         } else {
@@ -2,7 +2,6 @@ package com.oskopek.studyguide.constraint;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.courses.Credits;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -39,16 +38,14 @@ public class GlobalCreditsSumUntilSemesterConstraint extends GlobalConstraint {
     }
 
     @Override
-    public void validate() {
+    public void validate(EvaluationSnapshot snapshot) {
         logger.debug("Validating sum >= {} until semester {}", totalNeeded, untilSemester);
-        if (semesterPlan.getSemesterList().size() < untilSemester) {
+        if (snapshot.getSemesterCount() < untilSemester) {
             fireFixedEvent(this);
             return;
         }
 
-        Credits fulfilledCourseCreditSum = Credits.valueOf(
-                takeUntilSemester(semesterPlan, untilSemester).filter(CourseEnrollment::isFulfilled)
-                        .map(ce -> ce.getCourse().getCredits().getCreditValue()).reduce(0, Integer::sum));
+        Credits fulfilledCourseCreditSum = Credits.valueOf(snapshot.getFulfilledCreditsUntil(untilSemester));
         if (fulfilledCourseCreditSum.compareTo(totalNeeded) < 0) {
             logger.debug("Broken sum >= {} until semester {}", totalNeeded, untilSemester);
             fireBrokenEvent(generateMessage(fulfilledCourseCreditSum, totalNeeded, untilSemester));
@@ -1,7 +1,6 @@
 package com.oskopek.studyguide.constraint;
 
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import com.oskopek.studyguide.model.Semester;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.slf4j.Logger;
@@ -9,9 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Currency;
-import java.util.List;
 
 /**
  * Checks if the last non-empty semester is beyond the allowed semester count.
@@ -19,7 +16,8 @@ import java.util.List;
  */
 public class GlobalLongStudyFeeConstraint extends GlobalConstraint {
 
-    private static final DecimalFormat currencyFormat = new DecimalFormat("##0.00");
+    private static final ThreadLocal<DecimalFormat> currencyFormat
+            = ThreadLocal.withInitial(() -> new DecimalFormat("##0.00"));
     private final String message = "constraint.globalLongStudyFeeInvalid";
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
     private BigDecimal feePerSemester;
@@ -41,27 +39,19 @@ public class GlobalLongStudyFeeConstraint extends GlobalConstraint {
      * @return the formatted currency value
      */
     private static String toCurrencyFormat(BigDecimal value, Currency currency) {
-        return currencyFormat.format(value.doubleValue()) + " " + currency.getSymbol();
+        return currencyFormat.get().format(value.doubleValue()) + " " + currency.getSymbol();
     }
 
     @Override
-    public void validate() {
+    public void validate(EvaluationSnapshot snapshot) {
         logger.debug("Validating fees for study plan from semester {} ({} {} per semester)", fromSemester,
                 feePerSemester.toPlainString(), currency.getSymbol());
-        if (semesterPlan.getSemesterList().size() < fromSemester) {
+        if (snapshot.getSemesterCount() < fromSemester) {
             fireFixedEvent(this);
             return;
         }
 
-        int lastNonEmptySemester = 0; // counted from 1
-        List<Semester> semesterList = new ArrayList<>(semesterPlan.getSemesterList());
-        for (int i = semesterList.size() - 1; i >= 0; i--) {
-            if (semesterList.get(i).getCourseEnrollmentList().size() > 0) {
-                lastNonEmptySemester = i + 1;
-                break;
-            }
-        }
-        int semestersOverLimit = Math.max(0, lastNonEmptySemester - fromSemester + 1);
+        int semestersOverLimit = Math.max(0, snapshot.getLastNonEmptySemester() - fromSemester + 1);
         if (semestersOverLimit > 0) {
             logger.debug("Study plan over limit, calculated fee: {} * {}", semestersOverLimit,
                     feePerSemester.toPlainString());
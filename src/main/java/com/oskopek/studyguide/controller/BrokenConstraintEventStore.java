@@ -0,0 +1,114 @@
+package com.oskopek.studyguide.controller;
+
+import com.google.common.base.Equivalence;
+import com.oskopek.studyguide.constraint.Constraint;
+import com.oskopek.studyguide.constraint.event.StringMessageEvent;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the current broken constraint event of every broken constraint and shows them in an observable list.
+ * <p>
+ * Constraints are compared by identity, because their equality is value based: two different constraints
+ * can be equal. A newer event of an already broken constraint replaces the old one at its position in the list.
+ * Updates are applied to the map immediately, but reach the list in one batched {@link ObservableList#setAll}
+ * per dispatched update (by default, per JavaFX pulse).
+ */
+public class BrokenConstraintEventStore {
+
+    private final Map<Equivalence.Wrapper<Constraint>, StringMessageEvent> brokenEvents = new LinkedHashMap<>();
+    private final ObservableList<StringMessageEvent> eventList = FXCollections.observableArrayList();
+    private final Executor dispatcher;
+    private boolean updateScheduled;
+
+    /**
+     * Create an empty store, updating the list on the JavaFX Application Thread.
+     */
+    public BrokenConstraintEventStore() {
+        this(Platform::runLater);
+    }
+
+    /**
+     * Create an empty store.
+     *
+     * @param dispatcher the executor to update the list on
+     * @throws IllegalArgumentException if the dispatcher is null
+     */
+    public BrokenConstraintEventStore(Executor dispatcher) throws IllegalArgumentException {
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("The dispatcher cannot be null.");
+        }
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Get the list of the current broken constraint events, in the order in which the constraints broke.
+     *
+     * @return the observable list, do not modify
+     */
+    public ObservableList<StringMessageEvent> getEventList() {
+        return eventList;
+    }
+
+    /**
+     * Store the event as the current event of its broken constraint, replacing the older one, if any.
+     *
+     * @param event the broken constraint event
+     */
+    public void putBroken(StringMessageEvent event) {
+        brokenEvents.put(Equivalence.identity().wrap(event.getBrokenConstraint()), event);
+        scheduleUpdate();
+    }
+
+    /**
+     * Remove the current event of the fixed constraint. Does nothing if the constraint was not broken.
+     *
+     * @param constraint the fixed constraint
+     */
+    public void removeFixed(Constraint constraint) {
+        if (brokenEvents.remove(Equivalence.identity().wrap(constraint)) != null) {
+            scheduleUpdate();
+        }
+    }
+
+    /**
+     * Is the constraint currently broken?
+     *
+     * @param constraint the constraint
+     * @return true iff there is a current broken event of this constraint instance
+     */
+    public boolean isBroken(Constraint constraint) {
+        return brokenEvents.containsKey(Equivalence.identity().wrap(constraint));
+    }
+
+    /**
+     * Remove all events, immediately also from the list.
+     */
+    public void clear() {
+        brokenEvents.clear();
+        eventList.clear();
+    }
+
+    /**
+     * Schedule an update of the list, unless one is already scheduled.
+     */
+    private void scheduleUpdate() {
+        if (!updateScheduled) {
+            updateScheduled = true;
+            dispatcher.execute(this::update);
+        }
+    }
+
+    /**
+     * Update the list to contain exactly the current events, in order.
+     */
+    private void update() {
+        updateScheduled = false;
+        eventList.setAll(brokenEvents.values());
+    }
+}
@@ -0,0 +1,230 @@
+package com.oskopek.studyguide.controller;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.oskopek.studyguide.model.courses.Course;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caches the results of the searches of another {@link FindCourses} instance, so that repeated searches
+ * (typically for course codes) are answered without searching again.
+ * <p>
+ * The cache is a bounded LRU cache keyed by the search method, the normalized key and the locale.
+ * Results are valid for one version of the searched data: whenever the version increases, all cached results
+ * are dropped. Hits and misses are recorded, see {@link #getStats()}.
+ */
+public class CachingFindCourses implements FindCourses {
+
+    /**
+     * The default maximum number of cached searches.
+     */
+    public static final int defaultMaximumSize = 256;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final FindCourses findCourses;
+    private final LongSupplier version;
+    private final Function<String, String> normalizer;
+    private final Cache<Query, List<Course>> cache;
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private volatile long cachedVersion;
+
+    /**
+     * Create a cache in front of the registry search, with the default maximum size.
+     *
+     * @param findCourses the registry search
+     * @throws IllegalArgumentException if the registry search is null
+     */
+    public CachingFindCourses(FindRegistryCoursesController findCourses) throws IllegalArgumentException {
+        this(findCourses, findCourses == null ? null : findCourses::getVersion,
+                FindRegistryCoursesController::normalize, defaultMaximumSize);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param findCourses the search to cache
+     * @param version the version of the data searched by it, must increase whenever the results could change
+     * @param normalizer maps keys to a normal form, keys with the same normal form must have the same results
+     * @param maximumSize the maximum number of cached searches
+     * @throws IllegalArgumentException if any argument is null or the maximum size is negative
+     */
+    public CachingFindCourses(FindCourses findCourses, LongSupplier version, Function<String, String> normalizer,
+            int maximumSize) throws IllegalArgumentException {
+        if (findCourses == null || version == null || normalizer == null) {
+            throw new IllegalArgumentException("The search, version and normalizer cannot be null.");
+        }
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size cannot be negative: " + maximumSize);
+        }
+        this.findCourses = findCourses;
+        this.version = version;
+        this.normalizer = normalizer;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.cachedVersion = version.getAsLong();
+    }
+
+    @Override
+    public Stream<Course> findCourses(String key) {
+        return cached(version.getAsLong(), "findCourses", key, null, () -> findCourses.findCourses(key));
+    }
+
+    @Override
+    public Stream<Course> findCoursesById(String id) {
+        return cached(version.getAsLong(), "findCoursesById", id, null, () -> findCourses.findCoursesById(id));
+    }
+
+    @Override
+    public Stream<Course> findCoursesByName(String name, Locale locale) {
+        return cached(version.getAsLong(), "findCoursesByName", name, locale,
+                () -> findCourses.findCoursesByName(name, locale));
+    }
+
+    /**
+     * Get a view of the cache in front of a snapshot of the cached search. The version of the searched data is
+     * read here, so the view neither reads the model, nor the version, and can be searched on any thread.
+     * It shares the cached results with this instance.
+     *
+     * @return a view that is safe to search on any thread
+     * @see FindCourses#snapshot()
+     */
+    @Override
+    public FindCourses snapshot() {
+        long snapshotVersion = version.getAsLong();
+        FindCourses snapshot = findCourses.snapshot();
+        return new FindCourses() {
+            @Override
+            public Stream<Course> findCourses(String key) {
+                return cached(snapshotVersion, "findCourses", key, null, () -> snapshot.findCourses(key));
+            }
+
+            @Override
+            public Stream<Course> findCoursesById(String id) {
+                return cached(snapshotVersion, "findCoursesById", id, null, () -> snapshot.findCoursesById(id));
+            }
+
+            @Override
+            public Stream<Course> findCoursesByName(String name, Locale locale) {
+                return cached(snapshotVersion, "findCoursesByName", name, locale,
+                        () -> snapshot.findCoursesByName(name, locale));
+            }
+        };
+    }
+
+    /**
+     * Get the hit and miss statistics of the cache since its creation.
+     *
+     * @return the statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Get the number of times the cache was dropped because the version of the searched data changed.
+     *
+     * @return the number of invalidations
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Return the cached results of the search, or search and cache them. Drops all cached results first,
+     * if the version of the searched data increased.
+     *
+     * @param currentVersion the version of the data searched by the search
+     * @param method the name of the search method
+     * @param key the search key
+     * @param locale the search locale, or null
+     * @param search the search to run on a miss
+     * @return a stream of the (cached) results
+     */
+    private Stream<Course> cached(long currentVersion, String method, String key, Locale locale,
+            Supplier<Stream<Course>> search) {
+        if (currentVersion > cachedVersion) {
+            synchronized (this) {
+                if (currentVersion > cachedVersion) {
+                    logger.debug("Searched data changed (version {} -> {}), dropping {} cached searches, {}.",
+                            cachedVersion, currentVersion, cache.size(), cache.stats());
+                    cache.invalidateAll();
+                    cachedVersion = currentVersion;
+                    invalidationCount.incrementAndGet();
+                }
+            }
+        }
+        // the version is a part of the key, results of a search that overlapped a change are never hit later
+        Query query = new Query(method, normalizer.apply(key), locale, currentVersion);
+        try {
+            return cache.get(query, () -> {
+                List<Course> found = search.get().collect(Collectors.toList());
+                return Collections.unmodifiableList(found);
+            }).stream();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) { // rethrow the search's own exception
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Searching for \"" + key + "\" failed.", e.getCause());
+        }
+    }
+
+    /**
+     * The key of a cached search.
+     */
+    private static final class Query {
+
+        private final String method;
+        private final String key;
+        private final Locale locale;
+        private final long version;
+
+        /**
+         * Create a query.
+         *
+         * @param method the name of the search method
+         * @param key the normalized search key
+         * @param locale the search locale, or null
+         * @param version the version of the searched data
+         */
+        private Query(String method, String key, Locale locale, long version) {
+            this.method = method;
+            this.key = key;
+            this.locale = locale;
+            this.version = version;
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37).append(method).append(key).append(locale).append(version)
+                    .toHashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Query)) {
+                return false;
+            }
+            Query that = (Query) o;
+            return new EqualsBuilder().append(method, that.method).append(key, that.key).append(locale, that.locale)
+                    .append(version, that.version).isEquals();
+        }
+    }
+}
@@ -1,20 +1,15 @@
 package com.oskopek.studyguide.controller;
 
 import com.google.common.eventbus.Subscribe;
-import com.oskopek.studyguide.constraint.Constraint;
 import com.oskopek.studyguide.constraint.event.BrokenCourseGroupConstraintEvent;
 import com.oskopek.studyguide.constraint.event.BrokenGlobalConstraintEvent;
 import com.oskopek.studyguide.constraint.event.FixedConstraintEvent;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.ListView;
 import org.slf4j.Logger;
 
 import javax.inject.Inject;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Controller for displaying broken {@link com.oskopek.studyguide.constraint.CourseGroupConstraint}s and {@link
@@ -28,9 +23,7 @@ public class ConstraintsController extends AbstractController {
     @Inject
     private transient Logger logger;
 
-    private ObservableList<StringMessageEvent> brokenConstraintEventList;
-
-    private Set<Constraint> constraintSet;
+    private BrokenConstraintEventStore brokenConstraintEvents;
 
     /**
      * Initializes the {@link #listView} data bindings.
@@ -38,9 +31,10 @@ public class ConstraintsController extends AbstractController {
     @FXML
     private void initialize() {
         eventBus.register(this);
-        brokenConstraintEventList = FXCollections.observableArrayList();
-        listView.setItems(brokenConstraintEventList);
-        constraintSet = new HashSet<>();
+        brokenConstraintEvents = new BrokenConstraintEventStore();
+        listView.setItems(brokenConstraintEvents.getEventList());
+        // an invalidation listener, to clear the events also when an equal plan is loaded
+        studyGuideApplication.studyPlanProperty().addListener(observable -> brokenConstraintEvents.clear());
     }
 
     /**
@@ -49,12 +43,7 @@ public class ConstraintsController extends AbstractController {
      * @param event the broken constraint event
      */
     private void onBrokenConstraintInternal(StringMessageEvent event) {
-        if (!constraintSet.contains(event.getBrokenConstraint())) {
-            constraintSet.add(event.getBrokenConstraint());
-        } else {
-            removeAllBrokenEventsFromList(event.getBrokenConstraint());
-        }
-        brokenConstraintEventList.add(event); // overwrite, use the newer one always
+        brokenConstraintEvents.putBroken(event); // overwrite, use the newer one always
     }
 
     /**
@@ -81,17 +70,6 @@ public class ConstraintsController extends AbstractController {
         onBrokenConstraintInternal(event);
     }
 
-    /**
-     * Internal util method for removing all broken constraint events from the {@link #brokenConstraintEventList}
-     * which have a given constraint as their cause.
-     *
-     * @param constraint the originally broken constraint
-     */
-    private void removeAllBrokenEventsFromList(Constraint constraint) {
-        brokenConstraintEventList
-                .removeIf(stringMessageEvent -> stringMessageEvent.getBrokenConstraint().equals(constraint));
-    }
-
     /**
      * An {@link com.google.common.eventbus.EventBus} subscriber,
      * listening for {@link FixedConstraintEvent}s.
@@ -101,10 +79,7 @@ public class ConstraintsController extends AbstractController {
     @Subscribe
     public void onFixedConstraint(FixedConstraintEvent event) {
         logger.debug("Constraint {} fixed.", event.getOriginallyBroken());
-        if (constraintSet.contains(event.getOriginallyBroken())) {
-            constraintSet.remove(event.getOriginallyBroken());
-            removeAllBrokenEventsFromList(event.getOriginallyBroken());
-        }
+        brokenConstraintEvents.removeFixed(event.getOriginallyBroken());
     }
 
 }
@@ -52,6 +52,9 @@ public class CourseDetailController extends AbstractController {
     @FXML
     private TextField corequisitesField;
 
+    @FXML
+    private TextField requiredByField;
+
     @Inject
     private transient Logger logger;
 
@@ -138,6 +141,7 @@ public class CourseDetailController extends AbstractController {
             prerequisitesField.setDisable(true);
             corequisitesField.setText("");
             corequisitesField.setDisable(true);
+            requiredByField.setText("");
         } else {
             nameField.setDisable(false);
             creditsField.setDisable(false);
@@ -157,6 +161,10 @@ public class CourseDetailController extends AbstractController {
                     course.get().corequisitesProperty(), corequisitesField.textProperty());
             prerequisitesProperty.bindBidirectional(studyGuideApplication.getStudyPlan().getCourseRegistry(),
                     course.get().prerequisitesProperty(), prerequisitesField.textProperty());
+            List<Course> requiredBy = studyGuideApplication.getStudyPlan().getCourseRegistry()
+                    .coursesRequiring(course.get());
+            requiredByField.setText(String.join(", ",
+                    requiredBy.stream().map(Course::getId).collect(Collectors.toList())));
         }
     }
 
@@ -0,0 +1,457 @@
+package com.oskopek.studyguide.controller;
+
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.CourseRegistry;
+import org.simmetrics.simplifiers.Simplifier;
+import org.simmetrics.simplifiers.Simplifiers;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * A pre-tokenized index of the ids and names of all courses in a {@link CourseRegistry}, for fuzzy course search.
+ * <p>
+ * Scores are exactly those of the {@link FindRegistryCoursesController#getMetric()} metric: the cosine similarity
+ * of the multisets of single characters (1-grams) of the lower cased strings without diacritics. Every course's
+ * 1-gram counts are computed once, when the index is built, and stored in an inverted index (1-gram to courses).
+ * A search then only visits the postings of the key's 1-grams, scores the courses sharing at least one 1-gram
+ * with the key and selects the best of them without sorting the whole registry. All other courses have a score
+ * of zero. The {@link Match} of a key can be reused by the search for the next key, see
+ * {@link #matchNames(String, Match)}.
+ * <p>
+ * An index is a snapshot: it becomes stale when a course is put into or removed from the registry,
+ * when an id, name, localized name or locale of an indexed course changes, or when the default locale changes
+ * (it decides between the name and the localized name). See {@link #isValidFor(CourseRegistry)}.
+ * Changes of the indexed courses are recognized by {@link Course#getSearchedFieldsVersion()}, the courses are not
+ * observed. The index has to be built and checked for validity on the thread that changes the registry and its
+ * courses. Searching a built index is thread-safe: it only reads the strings copied when it was built, never
+ * the courses themselves.
+ */
+final class CourseSearchIndex {
+
+    private static final Simplifier simplifier = Simplifiers.chain(Simplifiers.toLowerCase(),
+            Simplifiers.removeDiacritics());
+
+    private final long registryVersion;
+    private final long searchedFieldsVersion;
+    private final Locale defaultLocale;
+    private final Course[] courses;
+    private final int[] nameOrder;
+    private final int[] nameRanks;
+    private final String[] sortedIds;
+    private final int[] idOrder;
+    private final FieldIndex idIndex;
+    private final FieldIndex nameIndex;
+
+    /**
+     * Build the index of all courses currently in the registry.
+     *
+     * @param courseRegistry the registry to index
+     */
+    CourseSearchIndex(CourseRegistry courseRegistry) {
+        registryVersion = courseRegistry.getVersion();
+        searchedFieldsVersion = Course.getSearchedFieldsVersion();
+        defaultLocale = Locale.getDefault();
+        courses = courseRegistry.courseSnapshot().toArray(new Course[0]);
+        String[] names = new String[courses.length];
+        for (int i = 0; i < courses.length; i++) {
+            names[i] = courses[i].getName();
+        }
+        Integer[] order = new Integer[courses.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int res = names[a].compareTo(names[b]);
+            return res != 0 ? res : Integer.compare(a, b);
+        });
+        nameOrder = new int[courses.length];
+        nameRanks = new int[courses.length];
+        for (int i = 0; i < order.length; i++) {
+            nameOrder[i] = order[i];
+            nameRanks[order[i]] = i;
+        }
+        String[] ids = new String[courses.length];
+        for (int i = 0; i < courses.length; i++) {
+            ids[i] = courses[i].getId();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> ids[i]));
+        sortedIds = new String[courses.length];
+        idOrder = new int[courses.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = ids[order[i]];
+            idOrder[i] = order[i];
+        }
+        idIndex = new FieldIndex(courses, Course::getId);
+        nameIndex = new FieldIndex(courses, Course::nameOrLocalizedName);
+    }
+
+    /**
+     * Is this index an up to date index of the registry?
+     *
+     * @param courseRegistry the registry
+     * @return true iff neither the registry's courses, nor the indexed properties of them, nor the default locale
+     * changed since the index was built
+     */
+    boolean isValidFor(CourseRegistry courseRegistry) {
+        return searchedFieldsVersion == Course.getSearchedFieldsVersion()
+                && registryVersion == courseRegistry.getVersion()
+                && courses.length == courseRegistry.courseMapValues().size()
+                && defaultLocale.equals(Locale.getDefault());
+    }
+
+    /**
+     * Get the indexed course with the given id.
+     *
+     * @param id the course id
+     * @return the course, or null if no indexed course has the id
+     */
+    Course courseWithId(String id) {
+        int position = Arrays.binarySearch(sortedIds, id);
+        return position < 0 ? null : courses[idOrder[position]];
+    }
+
+    /**
+     * Get the indexed courses whose id starts with the prefix (case sensitive).
+     *
+     * @param prefix the id prefix, the empty prefix matches all courses
+     * @param limit the maximum number of courses to return
+     * @return at most {@code limit} matching courses, sorted by id
+     */
+    List<Course> coursesWithIdPrefix(String prefix, int limit) {
+        int position = Arrays.binarySearch(sortedIds, prefix);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        List<Course> matches = new ArrayList<>();
+        for (; position < sortedIds.length && matches.size() < limit && sortedIds[position].startsWith(prefix);
+                position++) {
+            matches.add(courses[idOrder[position]]);
+        }
+        return matches;
+    }
+
+    /**
+     * Match the key against the ids of the indexed courses.
+     *
+     * @param key the key to search
+     * @param previous the match of an earlier key to reuse, or null
+     * @return the match of the key
+     * @see #top(Match, int)
+     */
+    Match matchIds(String key, Match previous) {
+        return idIndex.match(key, previous);
+    }
+
+    /**
+     * Match the key against the names (or localized names) of the indexed courses.
+     *
+     * @param key the key to search
+     * @param previous the match of an earlier key to reuse, or null
+     * @return the match of the key
+     * @see #top(Match, int)
+     */
+    Match matchNames(String key, Match previous) {
+        return nameIndex.match(key, previous);
+    }
+
+    /**
+     * Score the matched courses and select the best ones. If there are not enough courses sharing a 1-gram with
+     * the key, the rest is filled with zero-score courses, ordered by name.
+     *
+     * @param match a match computed by this index
+     * @param limit the maximum number of courses to return
+     * @return at most {@code limit} score-course pairs, ordered by {@link Result#order}
+     * @throws IllegalArgumentException if the match was computed by another index
+     */
+    List<Result> top(Match match, int limit) throws IllegalArgumentException {
+        if (match.fieldIndex != idIndex && match.fieldIndex != nameIndex) {
+            throw new IllegalArgumentException("The match was computed by another index.");
+        }
+        float[] scores = match.scores();
+        Comparator<Integer> better = (a, b) -> {
+            int res = Float.compare(scores[b], scores[a]);
+            return res != 0 ? res : compareNames(a, b);
+        };
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, better.reversed());
+        for (int candidate = 0; candidate < scores.length; candidate++) {
+            if (scores[candidate] == 0f) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(candidate);
+            } else if (limit > 0 && isBetter(scores, candidate, best.peek())) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+        List<Integer> selected = new ArrayList<>(best);
+        selected.sort(better);
+        for (int i = 0; i < nameOrder.length && selected.size() < limit; i++) {
+            if (scores[nameOrder[i]] == 0f) {
+                selected.add(nameOrder[i]);
+            }
+        }
+        List<Result> result = new ArrayList<>(selected.size());
+        for (int index : selected) {
+            result.add(new Result(scores[index], courses[index], nameRanks[index]));
+        }
+        return result;
+    }
+
+    /**
+     * Is the first course a better search result than the second one? Avoids boxing in the selection loop,
+     * equivalent to a negative result of the selection comparator.
+     *
+     * @param scores the scores of the courses, indexed by position
+     * @param a the position of the first course
+     * @param b the position of the second course
+     * @return true iff the first course has a higher score, or the same score and comes first by name
+     */
+    private boolean isBetter(float[] scores, int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && compareNames(a, b) < 0);
+    }
+
+    /**
+     * Compare two indexed courses by {@link Course#getName()}, then by their position in the index.
+     * Uses the precomputed ranks of the courses in this order, so that ties in scores are cheap to break.
+     *
+     * @param a the position of the first course
+     * @param b the position of the second course
+     * @return the comparison result
+     */
+    private int compareNames(int a, int b) {
+        return Integer.compare(nameRanks[a], nameRanks[b]);
+    }
+
+    /**
+     * Lower case the string and remove diacritics, in the same way as the metric does.
+     *
+     * @param string the string, null is treated as empty
+     * @return the simplified string
+     */
+    static String simplify(String string) {
+        return simplifier.simplify(string == null ? "" : string);
+    }
+
+    /**
+     * Count the 1-grams (single characters) of the simplified string.
+     *
+     * @param simplified the simplified string
+     * @return the count of every character of the string
+     */
+    private static Map<Character, Integer> countGrams(String simplified) {
+        Map<Character, Integer> counts = new HashMap<>();
+        for (int i = 0; i < simplified.length(); i++) {
+            counts.merge(simplified.charAt(i), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Compute the squared norm of the 1-gram count vector.
+     *
+     * @param counts the 1-gram counts
+     * @return the sum of the squared counts
+     */
+    private static int squaredNorm(Map<Character, Integer> counts) {
+        int norm = 0;
+        for (int count : counts.values()) {
+            norm += count * count;
+        }
+        return norm;
+    }
+
+    /**
+     * A scored course, along with its rank in the name order of the index, so that results can be ordered
+     * without reading the names of the courses again.
+     */
+    static final class Result extends AbstractMap.SimpleImmutableEntry<Float, Course> {
+
+        /**
+         * Orders results by descending score, then by {@link Course#getName()}.
+         */
+        static final Comparator<Result> order = (a, b) -> {
+            int res = Float.compare(b.getKey(), a.getKey());
+            return res != 0 ? res : Integer.compare(a.nameRank, b.nameRank);
+        };
+
+        private final int nameRank;
+
+        /**
+         * Create a result.
+         *
+         * @param score the score of the course
+         * @param course the course
+         * @param nameRank the position of the course in the name order of the index
+         */
+        private Result(float score, Course course, int nameRank) {
+            super(score, course);
+            this.nameRank = nameRank;
+        }
+    }
+
+    /**
+     * The result of matching a key against one field of the indexed courses: the 1-gram counts of the key and
+     * the dot products of them with the 1-gram counts of every course. Immutable.
+     * <p>
+     * A match can be the base of the match of the next key (typically, the user typed another character):
+     * only the postings of the 1-grams whose count changed are then visited.
+     */
+    static final class Match {
+
+        private final FieldIndex fieldIndex;
+        private final Map<Character, Integer> keyCounts;
+        private final int[] dotProducts;
+
+        /**
+         * Create a match.
+         *
+         * @param fieldIndex the matched field index
+         * @param keyCounts the 1-gram counts of the key
+         * @param dotProducts the dot products, indexed by course position
+         */
+        private Match(FieldIndex fieldIndex, Map<Character, Integer> keyCounts, int[] dotProducts) {
+            this.fieldIndex = fieldIndex;
+            this.keyCounts = keyCounts;
+            this.dotProducts = dotProducts;
+        }
+
+        /**
+         * Compute the scores of all courses. As in the cosine similarity metric, an empty key is fully similar
+         * to empty strings only.
+         *
+         * @return a new array of the scores, indexed by course position
+         */
+        private float[] scores() {
+            float[] scores = new float[dotProducts.length];
+            if (keyCounts.isEmpty()) {
+                for (int course : fieldIndex.emptyCourses) {
+                    scores[course] = 1.0f;
+                }
+                return scores;
+            }
+            // the metric sums the (small, integer) products in floats, exactly, and divides in doubles
+            double keyNorm = Math.sqrt(squaredNorm(keyCounts));
+            for (int course = 0; course < scores.length; course++) {
+                if (dotProducts[course] != 0) {
+                    scores[course] = (float) (dotProducts[course] / (keyNorm * fieldIndex.norms[course]));
+                }
+            }
+            return scores;
+        }
+    }
+
+    /**
+     * An inverted 1-gram index of one string field of the indexed courses.
+     */
+    private static final class FieldIndex {
+
+        private final double[] norms;
+        private final int[] emptyCourses;
+        private final Map<Character, Postings> postings = new HashMap<>();
+
+        /**
+         * Tokenize the field of all courses.
+         *
+         * @param courses the indexed courses
+         * @param field the field to index
+         */
+        private FieldIndex(Course[] courses, Function<Course, String> field) {
+            norms = new double[courses.length];
+            int[] empty = new int[courses.length];
+            int emptyCount = 0;
+            for (int i = 0; i < courses.length; i++) {
+                Map<Character, Integer> counts = countGrams(simplify(field.apply(courses[i])));
+                if (counts.isEmpty()) {
+                    empty[emptyCount++] = i;
+                }
+                norms[i] = Math.sqrt(squaredNorm(counts));
+                for (Map.Entry<Character, Integer> count : counts.entrySet()) {
+                    postings.computeIfAbsent(count.getKey(), gram -> new Postings()).add(i, count.getValue());
+                }
+            }
+            emptyCourses = Arrays.copyOf(empty, emptyCount);
+        }
+
+        /**
+         * Match the key against the field. If the previous match is a match of this field and differs from the key
+         * in fewer 1-grams than the key has, its dot products are updated, instead of computed from scratch.
+         *
+         * @param key the key to search
+         * @param previous the match of an earlier key, or null
+         * @return the match of the key
+         */
+        private Match match(String key, Match previous) {
+            Map<Character, Integer> keyCounts = countGrams(simplify(key));
+            if (previous != null && previous.fieldIndex == this) {
+                Map<Character, Integer> delta = new HashMap<>(keyCounts);
+                previous.keyCounts.forEach((gram, count) -> delta.merge(gram, -count, Integer::sum));
+                delta.values().removeIf(count -> count == 0);
+                if (delta.size() < keyCounts.size()) {
+                    int[] dotProducts = previous.dotProducts.clone();
+                    addProducts(delta, dotProducts);
+                    return new Match(this, keyCounts, dotProducts);
+                }
+            }
+            int[] dotProducts = new int[norms.length];
+            addProducts(keyCounts, dotProducts);
+            return new Match(this, keyCounts, dotProducts);
+        }
+
+        /**
+         * Add the dot products of the (possibly negative) 1-gram counts with every course to the array.
+         * Only the postings of the given 1-grams are visited.
+         *
+         * @param counts the 1-gram counts
+         * @param dotProducts the dot products to add to, indexed by course position
+         */
+        private void addProducts(Map<Character, Integer> counts, int[] dotProducts) {
+            for (Map.Entry<Character, Integer> count : counts.entrySet()) {
+                Postings gramPostings = postings.get(count.getKey());
+                if (gramPostings == null) {
+                    continue;
+                }
+                int keyGramCount = count.getValue();
+                for (int i = 0; i < gramPostings.size; i++) {
+                    dotProducts[gramPostings.courses[i]] += keyGramCount * gramPostings.counts[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * The courses containing a 1-gram, with the number of its occurrences.
+     */
+    private static final class Postings {
+
+        private int[] courses = new int[4];
+        private int[] counts = new int[4];
+        private int size;
+
+        /**
+         * Add a course to the postings.
+         *
+         * @param course the course position
+         * @param count the number of occurrences of the 1-gram
+         */
+        private void add(int course, int count) {
+            if (size == courses.length) {
+                courses = Arrays.copyOf(courses, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            courses[size] = course;
+            counts[size] = count;
+            size++;
+        }
+    }
+}
@@ -38,4 +38,16 @@ public interface FindCourses {
      */
     Stream<Course> findCoursesByName(String name, Locale locale);
 
+    /**
+     * Get a view of the current state of the data-source, that can be searched on another thread while the model
+     * is changed on this one. Has to be called on the thread that changes the model (usually the JavaFX
+     * Application Thread). By default, returns this instance, which is only correct for data-sources that do not
+     * read the model.
+     *
+     * @return a non-null data-source that is safe to search on any thread
+     */
+    default FindCourses snapshot() {
+        return this;
+    }
+
 }
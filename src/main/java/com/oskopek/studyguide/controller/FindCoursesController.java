@@ -7,9 +7,12 @@ import com.oskopek.studyguide.model.courses.Course;
 import com.oskopek.studyguide.view.AlertCreator;
 import com.oskopek.studyguide.view.ChooseCourseDialogPaneCreator;
 import javafx.fxml.FXML;
+import javafx.geometry.Side;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Dialog;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.TextField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +32,8 @@ public class FindCoursesController extends AbstractController implements FindCou
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final List<FindCourses> findCoursesList;
+    private final IncrementalCourseSearch incrementalSearch;
+    private ContextMenu suggestionMenu;
     @FXML
     private TextField searchField;
     @Inject
@@ -39,6 +44,7 @@ public class FindCoursesController extends AbstractController implements FindCou
      */
     public FindCoursesController() {
         this.findCoursesList = new ArrayList<>();
+        this.incrementalSearch = new IncrementalCourseSearch(this, this::showSuggestions);
     }
 
     /**
@@ -49,6 +55,50 @@ public class FindCoursesController extends AbstractController implements FindCou
         studyGuideApplication.studyPlanProperty().addListener((observable, oldValue, newValue) -> {
             reinitialize(newValue);
         });
+        suggestionMenu = new ContextMenu();
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> handleSearchTextChanged(newValue));
+    }
+
+    /**
+     * Handles the user typing into the search field: searches for the text in the background and suggests
+     * the found courses.
+     *
+     * @param text the new text of the search field
+     */
+    private void handleSearchTextChanged(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            incrementalSearch.cancel();
+            suggestionMenu.hide();
+            return;
+        }
+        incrementalSearch.search(text);
+    }
+
+    /**
+     * Show the found courses in a menu under the search field, choosing one of them adds it as if it was chosen
+     * after a search. Called on the JavaFX Application Thread.
+     *
+     * @param courses the found courses
+     */
+    private void showSuggestions(List<Course> courses) {
+        if (courses.isEmpty() || !searchField.isFocused()) {
+            suggestionMenu.hide();
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            MenuItem item = new MenuItem(course.getId() + " - " + course.nameOrLocalizedName());
+            item.setMnemonicParsing(false);
+            item.setOnAction(event -> {
+                logger.debug("Chosen suggested course: {}", course);
+                addToLastSemester(course);
+            });
+            items.add(item);
+        }
+        suggestionMenu.getItems().setAll(items);
+        if (!suggestionMenu.isShowing()) {
+            suggestionMenu.show(searchField, Side.BOTTOM, 0, 0);
+        }
     }
 
     /**
@@ -82,30 +132,38 @@ public class FindCoursesController extends AbstractController implements FindCou
      */
     @FXML
     public void handleSearch() {
+        incrementalSearch.cancel();
+        suggestionMenu.hide();
         String input = searchField.getText();
         Course chosen = searchAndChooseCourse(input);
         if (chosen != null) {
             logger.debug("Chosen course: {}", chosen);
-            Semester addTo = studyGuideApplication.getStudyPlan().getSemesterPlan().lastSemester();
-            if (addTo == null) { // no semester in plan
-                AlertCreator.showAlert(Alert.AlertType.ERROR, messages.getString("findCourses.noSemester"));
-                return;
-            } else {
-                CourseEnrollment enrollment;
-                try {
-                    enrollment = addTo.addCourseEnrollment(chosen);
-                } catch (IllegalArgumentException e) {
-                    logger.debug("Added wrong course ({}), showing error box.", chosen);
-                    AlertCreator
-                            .showAlert(Alert.AlertType.ERROR, messages.getString("findCourses.courseAlreadyEnrolled"));
-                    return;
-                }
-                studyGuideApplication.getStudyPlan().getConstraints().addAllCourseEnrollmentConstraints(enrollment,
-                        studyGuideApplication.getStudyPlan().getSemesterPlan());
-                enrollment.registerEventBus(eventBus);
-            }
+            addToLastSemester(chosen);
+        }
+    }
 
+    /**
+     * Enroll the course in the last semester of the plan, along with its constraints.
+     *
+     * @param chosen the course chosen by the user
+     */
+    private void addToLastSemester(Course chosen) {
+        Semester addTo = studyGuideApplication.getStudyPlan().getSemesterPlan().lastSemester();
+        if (addTo == null) { // no semester in plan
+            AlertCreator.showAlert(Alert.AlertType.ERROR, messages.getString("findCourses.noSemester"));
+            return;
+        }
+        CourseEnrollment enrollment;
+        try {
+            enrollment = addTo.addCourseEnrollment(chosen);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Added wrong course ({}), showing error box.", chosen);
+            AlertCreator.showAlert(Alert.AlertType.ERROR, messages.getString("findCourses.courseAlreadyEnrolled"));
+            return;
         }
+        studyGuideApplication.getStudyPlan().getConstraints().addAllCourseEnrollmentConstraints(enrollment,
+                studyGuideApplication.getStudyPlan().getSemesterPlan());
+        enrollment.registerEventBus(eventBus);
     }
 
     /**
@@ -118,43 +176,88 @@ public class FindCoursesController extends AbstractController implements FindCou
     }
 
     /**
-     * Returns the top 10 distinct courses, using the search function on all {@link FindCourses} instances.
+     * Returns the top 10 distinct courses, using the search function on the {@link FindCourses} instances in order.
+     * The stream is sequential and lazy: the instances are only searched until there are 10 distinct courses.
      *
      * @param searchFunction the function from {@link FindCourses} to {@link Stream}s of {@link Course}s
-     * @return top 10 list of distinct collected Courses
+     * @return top 10 stream of distinct collected Courses
      */
-    private List<Course> findCoursesInternal(Function<? super FindCourses, Stream<Course>> searchFunction) {
-        return findCoursesList.parallelStream().flatMap(searchFunction).distinct().limit(10)
-                .collect(Collectors.toList());
+    private Stream<Course> findCoursesInternal(Function<? super FindCourses, Stream<Course>> searchFunction) {
+        return findCoursesInternal(findCoursesList, searchFunction);
+    }
+
+    /**
+     * Returns the top 10 distinct courses, using the search function on the given {@link FindCourses} instances
+     * in order.
+     *
+     * @param findCoursesList the instances to search
+     * @param searchFunction the function from {@link FindCourses} to {@link Stream}s of {@link Course}s
+     * @return top 10 stream of distinct collected Courses
+     */
+    private static Stream<Course> findCoursesInternal(List<FindCourses> findCoursesList,
+            Function<? super FindCourses, Stream<Course>> searchFunction) {
+        return findCoursesList.stream().flatMap(searchFunction).distinct().limit(10);
     }
 
     @Override
     public Stream<Course> findCourses(String key) {
-        return findCoursesList.parallelStream().flatMap((FindCourses f) -> f.findCourses(key)).distinct().limit(10);
+        return findCoursesInternal(f -> f.findCourses(key));
     }
 
     @Override
     public Stream<Course> findCoursesById(String id) {
-        return findCoursesList.parallelStream().flatMap(f -> f.findCoursesById(id)).distinct().limit(10);
+        return findCoursesInternal(f -> f.findCoursesById(id));
     }
 
     @Override
     public Stream<Course> findCoursesByName(String name, Locale locale) {
-        return findCoursesList.parallelStream().flatMap(f -> f.findCoursesByName(name, locale)).distinct().limit(10);
+        return findCoursesInternal(f -> f.findCoursesByName(name, locale));
+    }
+
+    /**
+     * Get a view of the snapshots of all the course data-sources, used by the search as the user types.
+     *
+     * @return a view that is safe to search on any thread
+     */
+    @Override
+    public FindCourses snapshot() {
+        List<FindCourses> snapshots = findCoursesList.stream().map(FindCourses::snapshot)
+                .collect(Collectors.toList());
+        return new FindCourses() {
+            @Override
+            public Stream<Course> findCourses(String key) {
+                return findCoursesInternal(snapshots, f -> f.findCourses(key));
+            }
+
+            @Override
+            public Stream<Course> findCoursesById(String id) {
+                return findCoursesInternal(snapshots, f -> f.findCoursesById(id));
+            }
+
+            @Override
+            public Stream<Course> findCoursesByName(String name, Locale locale) {
+                return findCoursesInternal(snapshots, f -> f.findCoursesByName(name, locale));
+            }
+        };
     }
 
     /**
      * Clears the {@link #findCoursesList}
-     * and adds the default {@link com.oskopek.studyguide.model.courses.CourseRegistry} from the model.
+     * and adds the default {@link com.oskopek.studyguide.model.courses.CourseRegistry} from the model,
+     * with a cache of the searches in front of it.
      *
      * @param studyPlan the model from which to add the registry
      */
     private void reinitialize(StudyPlan studyPlan) {
+        incrementalSearch.cancel();
+        suggestionMenu.hide();
         findCoursesList.clear();
         if (studyPlan == null) {
             return;
         }
-        findCoursesList.add(new FindRegistryCoursesController(studyPlan.getCourseRegistry()));
+        FindRegistryCoursesController findRegistryCourses
+                = new FindRegistryCoursesController(studyPlan.getCourseRegistry());
+        findCoursesList.add(new CachingFindCourses(findRegistryCourses));
     }
 
 }
@@ -8,8 +8,10 @@ import org.simmetrics.metrics.CosineSimilarity;
 import org.simmetrics.simplifiers.Simplifiers;
 import org.simmetrics.tokenizers.Tokenizers;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
@@ -25,7 +27,13 @@ public class FindRegistryCoursesController implements FindCourses {
     private static final StringMetric metric = StringMetricBuilder.with(new CosineSimilarity<>())
             .simplify(Simplifiers.toLowerCase()).simplify(Simplifiers.removeDiacritics()).tokenize(Tokenizers.qGram(1))
             .build();
+    private static final int resultLimit = 10;
+    private static final int minimumIdPrefixLength = 3;
     private final CourseRegistry courseRegistry;
+    private CourseSearchIndex searchIndex;
+    private long searchIndexVersion;
+    private volatile CourseSearchIndex.Match lastIdMatch;
+    private volatile CourseSearchIndex.Match lastNameMatch;
 
     /**
      * Create a controller instance for a {@link CourseRegistry}.
@@ -46,57 +54,189 @@ public class FindRegistryCoursesController implements FindCourses {
     }
 
     /**
-     * Computes a similarity index for all course  to the {@code key}, sorts the courses according to it and returns
-     * the first 10 (most similar).
+     * Looks the {@code key} up as a course id (or the prefix of ids) first, then computes a similarity index
+     * for all course  to the {@code key}, sorts the courses according to it and fills up the first 10 with the most
+     * similar ones. Uses the {@link CourseSearchIndex} of the registry, only courses sharing a character with the key
+     * are scored. The matches of the previous key are reused, so that a search for a key extended by a character
+     * only visits the courses containing that character.
      *
      * @param key the key to search
-     * @return the 10 most similar courses to the key
+     * @return the courses with the id or id prefix key, followed by the most similar courses to the key, 10 in total
      * @see org.simmetrics.StringMetric
      * @see CosineSimilarity
+     * @see #findIdMatches(CourseSearchIndex, String)
      */
     @Override
     public Stream<Course> findCourses(String key) {
+        return findCourses(getSearchIndex(), key);
+    }
+
+    /**
+     * Search for the key like {@link #findCourses(String)}, reading only the given search index.
+     *
+     * @param index the search index of the registry
+     * @param key the key to search
+     * @return the courses with the id or id prefix key, followed by the most similar courses to the key, 10 in total
+     */
+    private Stream<Course> findCourses(CourseSearchIndex index, String key) {
+        List<Course> idMatches = findIdMatches(index, normalize(key));
+        if (idMatches.size() >= resultLimit) {
+            return idMatches.stream().limit(resultLimit);
+        }
+        // successive keys usually differ by a character, reuse the matches of the last one
+        CourseSearchIndex.Match idMatch = index.matchIds(key, lastIdMatch);
+        CourseSearchIndex.Match nameMatch = index.matchNames(key, lastNameMatch);
+        lastIdMatch = idMatch;
+        lastNameMatch = nameMatch;
         // limit id search artificially to prevent weird results (a user searches names, mostly)
-        Stream<? extends Map.Entry<Float, ? extends Course>> sortedById = mapToSortedPairs(
-                course -> metric.compare(key, course.getId())).limit(3);
-        Stream<? extends Map.Entry<Float, ? extends Course>> sortedByName = mapToSortedPairs(
-                course -> metric.compare(key, course.nameOrLocalizedName())).limit(10);
-        return Stream.concat(sortedById, sortedByName).sorted(floatCoursePairComparator).distinct().limit(10)
+        Stream<CourseSearchIndex.Result> sortedById = index.top(idMatch, 3).stream();
+        Stream<CourseSearchIndex.Result> sortedByName = index.top(nameMatch, resultLimit).stream();
+        Stream<Course> similar = Stream.concat(sortedById, sortedByName).distinct()
+                .filter(result -> !idMatches.contains(result.getValue())) // may be both an id and a name result
+                .collect(TopKCollector.of(resultLimit, CourseSearchIndex.Result.order)).stream()
                 .map(Map.Entry::getValue);
+        return Stream.concat(idMatches.stream(), similar).limit(resultLimit);
+    }
+
+    /**
+     * Look the normalized key up in the ids of the search index, upper cased (as course codes usually are)
+     * and as is. Keys shorter than 3 characters only match whole ids, longer ones also prefixes of ids.
+     * Only the normalized key is used, so that keys with the same normal form have the same results.
+     *
+     * @param index the search index of the registry
+     * @param normalizedKey the normalized search key
+     * @return the matching courses, at most 10, the matches of the upper cased key first, each sorted by id
+     */
+    private static List<Course> findIdMatches(CourseSearchIndex index, String normalizedKey) {
+        String upperCaseKey = normalizedKey.toUpperCase(Locale.ROOT);
+        List<Course> matches = new ArrayList<>();
+        for (String lookup : upperCaseKey.equals(normalizedKey) ? new String[] {normalizedKey}
+                : new String[] {upperCaseKey, normalizedKey}) {
+            if (lookup.length() < minimumIdPrefixLength) {
+                Course course = index.courseWithId(lookup);
+                if (course != null) {
+                    matches.add(course);
+                }
+            } else {
+                matches.addAll(index.coursesWithIdPrefix(lookup, resultLimit));
+            }
+        }
+        return matches.size() <= resultLimit ? matches : new ArrayList<>(matches.subList(0, resultLimit));
     }
 
+    /**
+     * Get a view of the registry as it is now, backed only by its search index (which is brought up to date here).
+     * Its searches neither read the registry, nor its courses, so they can run on any thread. The view finds
+     * the courses by id and by name through the index, with the same scores as {@link #getMetric()}.
+     *
+     * @return a view that is safe to search on any thread
+     */
+    @Override
+    public FindCourses snapshot() {
+        CourseSearchIndex index = getSearchIndex();
+        return new FindCourses() {
+            @Override
+            public Stream<Course> findCourses(String key) {
+                return FindRegistryCoursesController.this.findCourses(index, key);
+            }
+
+            @Override
+            public Stream<Course> findCoursesById(String id) {
+                return index.top(index.matchIds(id, null), resultLimit).stream().map(Map.Entry::getValue);
+            }
+
+            @Override
+            public Stream<Course> findCoursesByName(String name, Locale locale) {
+                return index.top(index.matchNames(name, null), resultLimit).stream().map(Map.Entry::getValue);
+            }
+        };
+    }
+
+    /**
+     * Get the search index of the registry, (re)building it if the registry or its courses changed since
+     * the last search. Has to be called on the thread that changes the registry, see {@link CourseSearchIndex}.
+     *
+     * @return an up to date search index
+     */
+    private synchronized CourseSearchIndex getSearchIndex() {
+        if (searchIndex == null || !searchIndex.isValidFor(courseRegistry)) {
+            searchIndex = new CourseSearchIndex(courseRegistry);
+            searchIndexVersion++;
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Get the version of the searched data: changes whenever the results of a search could change, that is
+     * whenever a course is put into or removed from the registry, a searched property (id, name, localized name,
+     * locale) of a course changes or the default locale changes. Brings the search index up to date.
+     *
+     * @return the current version of the searched data
+     * @see CourseRegistry#getVersion()
+     */
+    public synchronized long getVersion() {
+        getSearchIndex();
+        return searchIndexVersion;
+    }
+
+    /**
+     * Normalize the search key in the same way as the metric does before comparing, so that keys that differ
+     * only in case or diacritics are recognized to have the same results.
+     *
+     * @param key the search key
+     * @return the normalized key
+     */
+    public static String normalize(String key) {
+        return CourseSearchIndex.simplify(key);
+    }
+
+    /**
+     * Computes a similarity index of the ids of all courses to the {@code id} and returns the 10 most similar
+     * courses, sorted.
+     *
+     * @param id the course id
+     * @return the 10 courses with the most similar id
+     */
     @Override
     public Stream<Course> findCoursesById(String id) {
         return findCoursesInternal(course -> metric.compare(id, course.getId()));
     }
 
+    /**
+     * Computes a similarity index of the names (or localized names) of all courses to the {@code name}
+     * and returns the 10 most similar courses, sorted.
+     *
+     * @param name the course name
+     * @param locale ignored, {@link Course#nameOrLocalizedName()} decides which name is compared
+     * @return the 10 courses with the most similar name
+     */
     @Override
     public Stream<Course> findCoursesByName(String name, Locale locale) {
         return findCoursesInternal(course -> metric.compare(name, course.nameOrLocalizedName()));
     }
 
     /**
-     * Returns a stream of courses, using the search function on all {@link FindCourses} instances.
+     * Returns a stream of the best courses, using the search function on all courses in the registry.
      *
      * @param valueFunction the function to compute a float, based on which courses are sorted
      * @return a stream of courses
-     * @see #mapToSortedPairs(Function)
+     * @see #mapToTopPairs(Function)
      */
     private Stream<Course> findCoursesInternal(Function<? super Course, Float> valueFunction) {
-        return mapToSortedPairs(valueFunction).map(Map.Entry::getValue);
+        return mapToTopPairs(valueFunction).stream().map(Map.Entry::getValue);
     }
 
     /**
-     * Returns a stream of sorted float-course pairs, using the search function on all {@link FindCourses} instances.
+     * Returns the best float-course pairs, using the search function on all courses in the registry.
+     * Only the best pairs are retained while the registry is scored, see {@link TopKCollector}.
      *
      * @param valueFunction the function to compute a float, based on which courses are sorted
-     * @return a stream of sorted float-course pairs
+     * @return at most 10 float-course pairs with the highest floats, sorted
      */
-    private Stream<? extends Map.Entry<Float, ? extends Course>> mapToSortedPairs(
-            Function<? super Course, Float> valueFunction) {
+    private List<Map.Entry<Float, Course>> mapToTopPairs(Function<? super Course, Float> valueFunction) {
         return courseRegistry.courseMapValues().parallelStream()
-                .map(course -> new HashMap.SimpleEntry<>(valueFunction.apply(course), course))
-                .sorted(floatCoursePairComparator);
+                .map(course -> (Map.Entry<Float, Course>) new HashMap.SimpleEntry<>(valueFunction.apply(course),
+                        course)).collect(TopKCollector.of(resultLimit, floatCoursePairComparator));
     }
 
     /**
@@ -0,0 +1,144 @@
+package com.oskopek.studyguide.controller;
+
+import com.oskopek.studyguide.model.courses.Course;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Searches for courses as the user types: every key is searched on a background executor and the results
+ * are handed to the consumer on the dispatcher (by default, the JavaFX Application Thread). The background search
+ * runs on a {@link FindCourses#snapshot()} of the course source, taken on the thread that calls
+ * {@link #search(String)}, so it never reads the model while that thread changes it.
+ * <p>
+ * Only the results of the latest key are ever delivered. A newer key (or {@link #cancel()}) cancels the search
+ * of the older one: if it did not start yet, it is skipped, otherwise its results are discarded.
+ * Successive searches reuse the work of the previous one, see {@link FindRegistryCoursesController#findCourses}.
+ */
+public class IncrementalCourseSearch {
+
+    private static final Executor defaultSearcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "CourseSearch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final FindCourses findCourses;
+    private final Executor searcher;
+    private final Executor dispatcher;
+    private final Consumer<List<Course>> resultConsumer;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+
+    /**
+     * Create a search running on a shared background thread and delivering the results on the JavaFX
+     * Application Thread.
+     *
+     * @param findCourses the source of the courses
+     * @param resultConsumer the consumer of the results of the latest key
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public IncrementalCourseSearch(FindCourses findCourses, Consumer<List<Course>> resultConsumer)
+            throws IllegalArgumentException {
+        this(findCourses, defaultSearcher, Platform::runLater, resultConsumer);
+    }
+
+    /**
+     * Create a search.
+     *
+     * @param findCourses the source of the courses
+     * @param searcher the executor to search on, should run the searches in order (single threaded)
+     * @param dispatcher the executor to deliver the results on
+     * @param resultConsumer the consumer of the results of the latest key
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public IncrementalCourseSearch(FindCourses findCourses, Executor searcher, Executor dispatcher,
+            Consumer<List<Course>> resultConsumer) throws IllegalArgumentException {
+        if (findCourses == null || searcher == null || dispatcher == null || resultConsumer == null) {
+            throw new IllegalArgumentException("The course source, executors and consumer cannot be null.");
+        }
+        this.findCourses = findCourses;
+        this.searcher = searcher;
+        this.dispatcher = dispatcher;
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Search for the key in the background, cancelling the search of the previous key.
+     * Has to be called on the thread that changes the model.
+     *
+     * @param key the key to search
+     */
+    public void search(String key) {
+        long keyGeneration = generation.incrementAndGet();
+        FindCourses snapshot = findCourses.snapshot();
+        searcher.execute(() -> searchInBackground(snapshot, key, keyGeneration));
+    }
+
+    /**
+     * Cancel the search of the current key, if any. Its results will not be delivered.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Get the number of searches cancelled so far, before they started or before their results were delivered.
+     *
+     * @return the number of cancelled searches
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Search for the key and dispatch the delivery of the results, unless the search was cancelled.
+     * Failed searches are logged and dropped, the next key is searched anew.
+     *
+     * @param snapshot the snapshot of the course source to search
+     * @param key the key to search
+     * @param keyGeneration the generation of the key
+     */
+    private void searchInBackground(FindCourses snapshot, String key, long keyGeneration) {
+        if (isCancelled(keyGeneration)) {
+            return;
+        }
+        List<Course> courses;
+        try {
+            courses = snapshot.findCourses(key).collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            logger.debug("Searching for \"{}\" failed, dropping the results: {}", key, e);
+            return;
+        }
+        if (isCancelled(keyGeneration)) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            if (!isCancelled(keyGeneration)) {
+                resultConsumer.accept(courses);
+            }
+        });
+    }
+
+    /**
+     * Has the search of the given generation been cancelled? Counts the cancellation if it has.
+     *
+     * @param keyGeneration the generation of the searched key
+     * @return true iff a newer key was searched or the search was cancelled
+     */
+    private boolean isCancelled(long keyGeneration) {
+        if (keyGeneration != generation.get()) {
+            cancelledCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
@@ -2,9 +2,13 @@ package com.oskopek.studyguide.controller;
 
 import com.oskopek.studyguide.model.DefaultStudyPlan;
 import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.persistence.DataReader;
 import com.oskopek.studyguide.persistence.DataWriter;
+import com.oskopek.studyguide.persistence.HttpPageCache;
 import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
 import com.oskopek.studyguide.persistence.MFFHtmlScraper;
+import com.oskopek.studyguide.persistence.SISHtmlScraper;
+import com.oskopek.studyguide.persistence.SmileDataReaderWriter;
 import com.oskopek.studyguide.view.AlertCreator;
 import com.oskopek.studyguide.view.EnterStringDialogPaneCreator;
 import com.oskopek.studyguide.view.ProgressCreator;
@@ -22,6 +26,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.stage.WindowEvent;
 import org.slf4j.Logger;
 
 import javax.inject.Inject;
@@ -39,8 +44,6 @@ import java.util.stream.Collectors;
 @Singleton
 public class RootLayoutController extends AbstractController {
 
-    private final DataWriter writer = new JsonDataReaderWriter();
-
     private File openedFile;
 
     @Inject
@@ -74,7 +77,7 @@ public class RootLayoutController extends AbstractController {
     @FXML
     private void handleOpen() {
         FileChooser chooser = new FileChooser();
-        chooser.setSelectedExtensionFilter(new FileChooser.ExtensionFilter("JSON StudyPlan", ".json", ".JSON"));
+        addExtensionFilters(chooser);
         File chosen = chooser.showOpenDialog(studyGuideApplication.getPrimaryStage());
         if (chosen == null) {
             return;
@@ -94,7 +97,9 @@ public class RootLayoutController extends AbstractController {
         Optional<ButtonType> result = enterStringController.getDialog().showAndWait();
         if (result.isPresent() && result.get() == ButtonType.APPLY) {
             String submittedURL = enterStringController.getSubmittedString();
-            MFFHtmlScraper scraper = new MFFHtmlScraper(studyGuideApplication.getSisUrl());
+            MFFHtmlScraper scraper = new MFFHtmlScraper(studyGuideApplication.getSisUrl(),
+                    SISHtmlScraper.defaultParallelism, SISHtmlScraper.defaultPerHostLimit);
+            scraper.setPageCache(HttpPageCache.createDefault());
             Stage progressDialog = ProgressCreator.showProgress(scraper, messages.getString("progress.pleaseWait"));
             Task<StudyPlan> studyPlanTask = new Task<StudyPlan>() {
                 @Override
@@ -138,7 +143,7 @@ public class RootLayoutController extends AbstractController {
     @FXML
     private void handleSaveAs() {
         FileChooser chooser = new FileChooser();
-        chooser.setSelectedExtensionFilter(new FileChooser.ExtensionFilter("JSON StudyPlan", ".json", ".JSON"));
+        addExtensionFilters(chooser);
         File chosen = chooser.showSaveDialog(studyGuideApplication.getPrimaryStage());
         if (chosen == null) {
             return;
@@ -148,11 +153,13 @@ public class RootLayoutController extends AbstractController {
 
     /**
      * Menu item: File->Quit.
-     * Exit the main app.
+     * Exit the main app, like closing the main window (which discards the autosave).
      * Doesn't save the currently opened model!
      */
     @FXML
     private void handleQuit() {
+        Stage primaryStage = studyGuideApplication.getPrimaryStage();
+        primaryStage.fireEvent(new WindowEvent(primaryStage, WindowEvent.WINDOW_CLOSE_REQUEST));
         System.exit(0);
     }
 
@@ -271,6 +278,7 @@ public class RootLayoutController extends AbstractController {
             return;
         }
         try {
+            DataWriter writer = createReaderWriter(file);
             writer.writeTo(studyGuideApplication.getStudyPlan(), file.getAbsolutePath());
         } catch (IOException e) {
             AlertCreator.showAlert(Alert.AlertType.ERROR, messages.getString("root.openFailed") + ": " + e);
@@ -298,7 +306,7 @@ public class RootLayoutController extends AbstractController {
         Task<StudyPlan> loadFromFileTask = new Task<StudyPlan>() {
             @Override
             protected StudyPlan call() throws Exception {
-                JsonDataReaderWriter reader = new JsonDataReaderWriter(messages, eventBus);
+                DataReader reader = createReaderWriter(file);
                 StudyPlan studyPlan = reader.readFrom(file.getAbsolutePath());
                 return studyPlan;
             }
@@ -311,12 +319,37 @@ public class RootLayoutController extends AbstractController {
         });
         loadFromFileTask.setOnSucceeded(event -> {
             StudyPlan newPlan = loadFromFileTask.getValue();
-            Platform.runLater(() -> {
-                studyGuideApplication.setStudyPlan(newPlan);
-                newPlan.getConstraints().recheckAll();
-            });
+            studyGuideApplication.setStudyPlan(newPlan);
+            // joins the recheck scheduled on the StudyPlanLoadedEvent, if it did not run before the plan was shown
+            newPlan.getConstraints().getRecheckScheduler().scheduleAll();
             openedFile = file;
         });
         new Thread(loadFromFileTask).start();
     }
+
+    /**
+     * Add the filters of the supported plan file formats to the chooser, JSON selected.
+     *
+     * @param chooser the file chooser
+     */
+    private void addExtensionFilters(FileChooser chooser) {
+        FileChooser.ExtensionFilter json = new FileChooser.ExtensionFilter("JSON StudyPlan", "*.json", "*.JSON");
+        FileChooser.ExtensionFilter binary = new FileChooser.ExtensionFilter("Binary StudyPlan",
+                "*" + SmileDataReaderWriter.fileExtension);
+        chooser.getExtensionFilters().addAll(json, binary);
+        chooser.setSelectedExtensionFilter(json);
+    }
+
+    /**
+     * Create the reader/writer of the format of the file, judging by its extension.
+     *
+     * @param file the plan file
+     * @return a binary reader/writer for binary plan files, a JSON one otherwise
+     */
+    private JsonDataReaderWriter createReaderWriter(File file) {
+        if (SmileDataReaderWriter.isBinaryPlanFile(file.getName())) {
+            return new SmileDataReaderWriter(messages, eventBus);
+        }
+        return new JsonDataReaderWriter(messages, eventBus);
+    }
 }
@@ -4,6 +4,7 @@ import com.google.common.eventbus.Subscribe;
 import com.oskopek.studyguide.constraint.event.StringMessageEvent;
 import com.oskopek.studyguide.model.CourseEnrollment;
 import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.SemesterPlan;
 import com.oskopek.studyguide.model.courses.Course;
 import com.oskopek.studyguide.view.AlertCreator;
 import javafx.beans.binding.ObjectBinding;
@@ -28,7 +29,6 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Controller for SemesterBoxPane.
@@ -192,7 +192,7 @@ public class SemesterBoxController extends AbstractController {
         if (semester.getName().equals(newName)) {
             return;
         }
-        if (studyGuideApplication.getStudyPlan().getSemesterPlan().getSemesterList().contains(new Semester(newName))) {
+        if (studyGuideApplication.getStudyPlan().getSemesterPlan().findSemester(newName).isPresent()) {
             AlertCreator.showAlert(Alert.AlertType.WARNING, messages.getString("semesterBox.nameNotUnique"));
             semesterNameArea.setText(semester.getName());
         } else {
@@ -255,13 +255,12 @@ public class SemesterBoxController extends AbstractController {
             semesterDifficultyProperty.setValue("(0.0)");
             return;
         }
-        int fulfilledSum = semester.getCourseEnrollmentList().stream().filter(CourseEnrollment::isFulfilled).collect(
-                Collectors.summingInt(value -> value.getCourse().getCredits().getCreditValue()));
-        int totalSum = semester.getCourseEnrollmentList().stream().collect(
-                Collectors.summingInt(value -> value.getCourse().getCredits().getCreditValue()));
+        SemesterPlan semesterPlan = studyGuideApplication.getStudyPlan().getSemesterPlan();
+        int fulfilledSum = semesterPlan.fulfilledCredits(semester);
+        int totalSum = semesterPlan.enrolledCredits(semester);
 
         fulfilledTotalCreditProperty.setValue(fulfilledSum + "/" + totalSum);
-        double workloadCoefficient = ECTSWorkloadCalculator.calculateWorkloadCoefficient(semester);
+        double workloadCoefficient = ECTSWorkloadCalculator.calculateWorkloadCoefficient(totalSum);
         semesterDifficultyProperty.setValue("(" + coefficientFormatter.format(workloadCoefficient) + ")");
         semesterDifficultyLabel.setTextFill(ECTSWorkloadCalculator.calculateWorkloadColor(workloadCoefficient));
     }
@@ -343,12 +342,10 @@ public class SemesterBoxController extends AbstractController {
          * Calculates the workload coefficient: {@code (credit_sum * hoursSpentPerCredit) / semesterWeekCount / 7
          * (weekdays) / 24 (hours a day) * 100}.
          *
-         * @param semester the semester whose coefficient to calculate
+         * @param creditSum the sum of credits of all course enrollments in the semester
          * @return the calculated coefficient
          */
-        public static double calculateWorkloadCoefficient(Semester semester) {
-            int creditSum = semester.getCourseEnrollmentList().stream()
-                    .collect(Collectors.summingInt(c -> c.getCourse().getCredits().getCreditValue()));
+        public static double calculateWorkloadCoefficient(int creditSum) {
             return (creditSum * HOURS_PER_CREDIT) / (double) SEMESTER_LENGTH / 7d / 24d * 100d;
         }
 
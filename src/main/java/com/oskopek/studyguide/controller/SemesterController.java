@@ -7,8 +7,11 @@ import com.oskopek.studyguide.model.*;
 import com.oskopek.studyguide.model.courses.Course;
 import com.oskopek.studyguide.model.courses.Credits;
 import com.oskopek.studyguide.model.courses.EnrollableIn;
+import com.oskopek.studyguide.persistence.HttpPageCache;
 import com.oskopek.studyguide.persistence.SISHtmlScraper;
+import com.oskopek.studyguide.persistence.StudyPlanLoadedEvent;
 import com.oskopek.studyguide.view.*;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
@@ -101,10 +104,11 @@ public class SemesterController extends AbstractController {
             return;
         }
         int id = 0;
-        while (!studyPlan.getSemesterPlan().addSemester(new Semester("Semester" + id++))) {
-            continue; // intentionally empty
+        Semester semester = new Semester("Semester" + id++);
+        while (!studyPlan.getSemesterPlan().addSemester(semester)) {
+            semester = new Semester("Semester" + id++);
         }
-        studyPlan.getConstraints().recheckAll();
+        studyPlan.getConstraints().getRecheckScheduler().schedule(semester);
     }
 
     /**
@@ -182,6 +186,7 @@ public class SemesterController extends AbstractController {
         if (result.isPresent() && result.get() == ButtonType.APPLY) {
             String submittedCourseId = enterStringController.getSubmittedString();
             SISHtmlScraper scraper = new SISHtmlScraper(studyGuideApplication.getSisUrl());
+            scraper.setPageCache(HttpPageCache.createDefault());
             Stage progressDialog = ProgressCreator.showProgress(scraper, messages.getString("progress.pleaseWait"));
             Task<Course> courseTask = new Task<Course>() {
                 @Override
@@ -251,7 +256,7 @@ public class SemesterController extends AbstractController {
         logger.trace("Course changed: {}", changed);
         StudyPlan studyPlan = studyGuideApplication.getStudyPlan();
         if (studyPlan != null) {
-            studyPlan.getConstraints().recheckAll(changed);
+            studyPlan.getConstraints().getRecheckScheduler().schedule(changed);
         }
     }
 
@@ -266,10 +271,23 @@ public class SemesterController extends AbstractController {
         logger.trace("CourseEnrollment changed: {}", changed);
         StudyPlan studyPlan = studyGuideApplication.getStudyPlan();
         if (studyPlan != null) {
-            studyPlan.getConstraints().recheckAll(changed);
+            studyPlan.getConstraints().getRecheckScheduler().schedule(changed);
         }
     }
 
+    /**
+     * An {@link com.google.common.eventbus.EventBus} subscriber, listening for loaded study plans.
+     * Schedules one full recheck of the plan. Readers post the event on their own (loading) thread, so the recheck
+     * is scheduled from the JavaFX Application Thread, after the tasks queued so far (f.e. showing the plan).
+     *
+     * @param event the loaded study plan event posted on the bus
+     */
+    @Subscribe
+    public void onStudyPlanLoaded(StudyPlanLoadedEvent event) {
+        logger.debug("Study plan loaded: {}", event.getStudyPlan());
+        Platform.runLater(() -> event.getStudyPlan().getConstraints().getRecheckScheduler().scheduleAll());
+    }
+
     /**
      * Handler for constraint broken events.
      *
@@ -294,7 +312,7 @@ public class SemesterController extends AbstractController {
             if (broken == null) {
                 return false;
             } else {
-                return broken.getBrokenConstraint().equals(event.getOriginallyBroken());
+                return broken.getBrokenConstraint() == event.getOriginallyBroken(); // equality is value based
             }
         }).collect(Collectors.toList());
         if (courseEnrollmentFixedList.size() > 1) {
@@ -0,0 +1,147 @@
+package com.oskopek.studyguide.controller;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the {@code k} smallest elements of a stream according to a comparator, in ascending order.
+ * <p>
+ * The result is the same as that of {@code sorted(comparator).limit(k)}, including the order of elements
+ * that compare as equal (they are kept in encounter order, as the stable sort does), but only {@code k} elements
+ * are retained at any time: a bounded heap replaces the sort of the whole stream. Works on parallel streams too,
+ * the partial results are merged respecting the encounter order.
+ */
+public final class TopKCollector {
+
+    /**
+     * Empty default constructor.
+     */
+    private TopKCollector() {
+        // intentionally empty
+    }
+
+    /**
+     * Create a collector of the {@code k} smallest elements.
+     *
+     * @param k the maximum number of collected elements
+     * @param comparator the order of the elements, the smallest are collected
+     * @param <T> the type of the elements
+     * @return a collector to a new list of at most {@code k} elements, sorted by the comparator
+     * @throws IllegalArgumentException if k is negative or the comparator is null
+     */
+    public static <T> Collector<T, ?, List<T>> of(int k, Comparator<? super T> comparator)
+            throws IllegalArgumentException {
+        if (k < 0) {
+            throw new IllegalArgumentException("Cannot collect a negative number of elements: " + k);
+        }
+        if (comparator == null) {
+            throw new IllegalArgumentException("The comparator cannot be null.");
+        }
+        return Collector.of(() -> new Accumulator<T>(k, comparator), Accumulator::add, Accumulator::combine,
+                Accumulator::finish);
+    }
+
+    /**
+     * The mutable result container: a heap of the best elements seen so far, the worst of them at the top.
+     *
+     * @param <T> the type of the elements
+     */
+    private static final class Accumulator<T> {
+
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private final Comparator<Ranked<T>> order;
+        private final PriorityQueue<Ranked<T>> heap;
+        private long seen;
+
+        /**
+         * Create an empty accumulator.
+         *
+         * @param k the maximum number of retained elements
+         * @param comparator the order of the elements
+         */
+        private Accumulator(int k, Comparator<? super T> comparator) {
+            this.k = k;
+            this.comparator = comparator;
+            Comparator<Ranked<T>> byValue = (a, b) -> comparator.compare(a.value, b.value);
+            this.order = byValue.thenComparingLong(ranked -> ranked.position);
+            this.heap = new PriorityQueue<>(k + 1, order.reversed());
+        }
+
+        /**
+         * Accumulate the next element of the stream.
+         *
+         * @param value the element
+         */
+        private void add(T value) {
+            offer(value, seen++);
+        }
+
+        /**
+         * Retain the element if it is one of the best {@code k} so far. Elements are offered in increasing
+         * encounter position, so an element equal to the worst retained one is never better than it.
+         *
+         * @param value the element
+         * @param position the encounter position of the element
+         */
+        private void offer(T value, long position) {
+            if (heap.size() < k) {
+                heap.add(new Ranked<>(value, position));
+            } else if (k > 0 && comparator.compare(value, heap.peek().value) < 0) {
+                heap.poll();
+                heap.add(new Ranked<>(value, position));
+            }
+        }
+
+        /**
+         * Merge the results of the following part of the stream into this accumulator.
+         *
+         * @param following the accumulator of the part of the stream encountered after this one
+         * @return this accumulator
+         */
+        private Accumulator<T> combine(Accumulator<T> following) {
+            List<Ranked<T>> retained = new ArrayList<>(following.heap);
+            retained.sort(order);
+            for (Ranked<T> ranked : retained) {
+                offer(ranked.value, seen + ranked.position);
+            }
+            seen += following.seen;
+            return this;
+        }
+
+        /**
+         * Get the retained elements, sorted.
+         *
+         * @return a new list of the retained elements
+         */
+        private List<T> finish() {
+            return heap.stream().sorted(order).map(ranked -> ranked.value).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * An element with its encounter position in the stream.
+     *
+     * @param <T> the type of the element
+     */
+    private static final class Ranked<T> {
+
+        private final T value;
+        private final long position;
+
+        /**
+         * Create a ranked element.
+         *
+         * @param value the element
+         * @param position the encounter position
+         */
+        private Ranked(T value, long position) {
+            this.value = value;
+            this.position = position;
+        }
+    }
+}
@@ -183,9 +183,20 @@ public class CourseEnrollment {
      * @param eventBus the event bus to set
      */
     public void registerEventBus(EventBus eventBus) {
+        attachEventBus(eventBus);
+        fireValueChangedEvent(); // fire on a new bus
+    }
+
+    /**
+     * Set the bus this enrollment will communicate its changes on, without posting an event. Used when attaching
+     * a whole loaded plan, whose subscribers are notified of the plan at once.
+     *
+     * @param eventBus the event bus to set
+     * @see #registerEventBus(EventBus)
+     */
+    public void attachEventBus(EventBus eventBus) {
         logger.trace("Registering event bus on course enrollment {}", this);
         this.eventBus = eventBus;
-        fireValueChangedEvent(); // fire on a new bus
     }
 
     /**
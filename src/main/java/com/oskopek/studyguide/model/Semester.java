@@ -66,6 +66,15 @@ public class Semester implements Iterable<CourseEnrollment> {
         this.name.setValue(name);
     }
 
+    /**
+     * The JavaFX property for {@link #getName()}.
+     *
+     * @return the property of {@link #getName()}
+     */
+    public StringProperty nameProperty() {
+        return name;
+    }
+
     /**
      * Generates and adds a {@link CourseEnrollment} to this semester.
      *
@@ -1,28 +1,47 @@
 package com.oskopek.studyguide.model;
 
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.property.ListProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
-import java.util.Iterator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Stream;
 
 /**
  * Represents the {@link com.oskopek.studyguide.model.courses.Course} distribution in the {@link StudyPlan}.
+ * <p>
+ * Keeps an index of semester positions and names, and prefix sums of fulfilled and enrolled credits per semester,
+ * so that {@link #indexOf(Semester)}, {@link #findSemester(String)} and "credits until semester N" queries are O(1).
+ * Both are recomputed lazily: the semester index after any change of the semester list or a semester name,
+ * the credit sums also after any change of the enrollments, or the credits of the enrolled courses.
  */
 public class SemesterPlan implements Iterable<Semester> {
 
     private final ListProperty<Semester> semesterList;
 
+    private final transient InvalidationListener semesterIndexInvalidator = observable -> invalidateSemesterIndex();
+    private final transient Set<Observable> semesterIndexObserved = Collections.newSetFromMap(new IdentityHashMap<>());
+    private transient Map<Semester, Integer> semesterOrdinals;
+    private transient Map<String, Semester> semesterNames;
+
+    private final transient InvalidationListener creditIndexInvalidator = observable -> invalidateCreditIndex();
+    private final transient Set<Observable> creditIndexObserved = Collections.newSetFromMap(new IdentityHashMap<>());
+    private transient int[] fulfilledCreditsPrefix;
+    private transient int[] enrolledCreditsPrefix;
+
     /**
      * Create a new empty instance.
      */
     public SemesterPlan() {
         this.semesterList = new SimpleListProperty<>(FXCollections.observableArrayList());
+        this.semesterList.addListener(semesterIndexInvalidator);
+        this.semesterList.addListener(creditIndexInvalidator);
     }
 
     /**
@@ -76,7 +95,70 @@ public class SemesterPlan implements Iterable<Semester> {
      * @return an optional semester (will be present if we found a semester with the given name in this plan)
      */
     public Optional<Semester> findSemester(String name) {
-        return semesterList.stream().filter(s -> s.getName().equals(name)).findAny();
+        buildSemesterIndexIfInvalid();
+        return Optional.ofNullable(semesterNames.get(name));
+    }
+
+    /**
+     * Find the position of the semester in this plan. Same as {@code getSemesterList().indexOf(semester)},
+     * i.e. a semester with an equal name is found too, but O(1).
+     *
+     * @param semester the semester to look for
+     * @return the position of the semester, counted from 0, or -1 if there is no such semester in this plan
+     */
+    public int indexOf(Semester semester) {
+        if (semester == null) {
+            return -1;
+        }
+        int ordinal = ordinalOf(semester);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        Semester named = semesterNames.get(semester.getName());
+        return named == null ? -1 : semesterOrdinals.get(named);
+    }
+
+    /**
+     * Find the position of this exact semester instance in this plan.
+     *
+     * @param semester the semester to look for
+     * @return the position of the semester, counted from 0, or -1 if the instance is not in this plan
+     */
+    private int ordinalOf(Semester semester) {
+        buildSemesterIndexIfInvalid();
+        return semesterOrdinals.getOrDefault(semester, -1);
+    }
+
+    /**
+     * Marks the semester index as outdated.
+     */
+    private void invalidateSemesterIndex() {
+        semesterOrdinals = null;
+        semesterNames = null;
+    }
+
+    /**
+     * Recompute the semester position and name index if it was invalidated and (re)attach the invalidation
+     * listener to the semester names.
+     */
+    private void buildSemesterIndexIfInvalid() {
+        if (semesterOrdinals != null) {
+            return;
+        }
+        semesterIndexObserved.forEach(observable -> observable.removeListener(semesterIndexInvalidator));
+        semesterIndexObserved.clear();
+        Map<Semester, Integer> semesterOrdinals = new IdentityHashMap<>(semesterList.size() * 2);
+        Map<String, Semester> semesterNames = new HashMap<>(semesterList.size() * 2);
+        for (int i = 0; i < semesterList.size(); i++) {
+            Semester semester = semesterList.get(i);
+            semesterOrdinals.putIfAbsent(semester, i);
+            semesterNames.putIfAbsent(semester.getName(), semester); // same as List#indexOf
+            if (semesterIndexObserved.add(semester.nameProperty())) {
+                semester.nameProperty().addListener(semesterIndexInvalidator);
+            }
+        }
+        this.semesterNames = semesterNames;
+        this.semesterOrdinals = semesterOrdinals;
     }
 
     /**
@@ -110,6 +192,126 @@ public class SemesterPlan implements Iterable<Semester> {
         return getSemesterList().stream().flatMap(ce -> ce.getCourseEnrollmentList().stream());
     }
 
+    /**
+     * Sum of credits of all fulfilled course enrollments in the first {@code semesterCount} semesters.
+     *
+     * @param semesterCount the number of semesters to sum, clamped to the interval [0, number of semesters]
+     * @return the credit sum
+     */
+    public int fulfilledCreditsUntil(int semesterCount) {
+        buildCreditIndexIfInvalid();
+        return fulfilledCreditsPrefix[clampSemesterCount(semesterCount)];
+    }
+
+    /**
+     * Sum of credits of all course enrollments (fulfilled or not) in the first {@code semesterCount} semesters.
+     *
+     * @param semesterCount the number of semesters to sum, clamped to the interval [0, number of semesters]
+     * @return the credit sum
+     */
+    public int enrolledCreditsUntil(int semesterCount) {
+        buildCreditIndexIfInvalid();
+        return enrolledCreditsPrefix[clampSemesterCount(semesterCount)];
+    }
+
+    /**
+     * Sum of credits of all fulfilled course enrollments in the given semester.
+     *
+     * @param semester the semester
+     * @return the credit sum, computed directly if the semester is not in this plan
+     */
+    public int fulfilledCredits(Semester semester) {
+        int ordinal = ordinalOf(semester);
+        if (ordinal < 0) {
+            return semester.getCourseEnrollmentList().stream().filter(CourseEnrollment::isFulfilled)
+                    .mapToInt(e -> e.getCourse().getCredits().getCreditValue()).sum();
+        }
+        buildCreditIndexIfInvalid();
+        return fulfilledCreditsPrefix[ordinal + 1] - fulfilledCreditsPrefix[ordinal];
+    }
+
+    /**
+     * Sum of credits of all course enrollments (fulfilled or not) in the given semester.
+     *
+     * @param semester the semester
+     * @return the credit sum, computed directly if the semester is not in this plan
+     */
+    public int enrolledCredits(Semester semester) {
+        int ordinal = ordinalOf(semester);
+        if (ordinal < 0) {
+            return semester.getCourseEnrollmentList().stream()
+                    .mapToInt(e -> e.getCourse().getCredits().getCreditValue()).sum();
+        }
+        buildCreditIndexIfInvalid();
+        return enrolledCreditsPrefix[ordinal + 1] - enrolledCreditsPrefix[ordinal];
+    }
+
+    /**
+     * Clamp the semester count to the interval [0, number of semesters].
+     *
+     * @param semesterCount the count to clamp
+     * @return the clamped count
+     */
+    private int clampSemesterCount(int semesterCount) {
+        return Math.max(0, Math.min(semesterCount, fulfilledCreditsPrefix.length - 1));
+    }
+
+    /**
+     * Marks the credit prefix sums as outdated.
+     */
+    private void invalidateCreditIndex() {
+        fulfilledCreditsPrefix = null;
+        enrolledCreditsPrefix = null;
+    }
+
+    /**
+     * Recompute the credit prefix sums if they were invalidated. While walking the plan, (re)attaches the
+     * invalidation listener to everything the sums were computed from. Invalidation listeners are notified
+     * before change listeners, so the sums are already invalidated when a model change event gets posted.
+     */
+    private void buildCreditIndexIfInvalid() {
+        if (fulfilledCreditsPrefix != null) {
+            return;
+        }
+        creditIndexObserved.forEach(observable -> observable.removeListener(creditIndexInvalidator));
+        creditIndexObserved.clear();
+        int[] fulfilledCreditsPrefix = new int[semesterList.size() + 1];
+        int[] enrolledCreditsPrefix = new int[semesterList.size() + 1];
+        for (int i = 0; i < semesterList.size(); i++) {
+            Semester semester = semesterList.get(i);
+            observeForCreditIndex(semester.courseEnrollmentListProperty());
+            int fulfilled = 0;
+            int enrolled = 0;
+            for (CourseEnrollment enrollment : semester.getCourseEnrollmentList()) {
+                observeForCreditIndex(enrollment.fulfilledProperty());
+                observeForCreditIndex(enrollment.courseProperty());
+                Course course = enrollment.getCourse();
+                observeForCreditIndex(course.creditsProperty());
+                Credits credits = course.getCredits();
+                observeForCreditIndex(credits.creditValueProperty());
+                enrolled += credits.getCreditValue();
+                if (enrollment.isFulfilled()) {
+                    fulfilled += credits.getCreditValue();
+                }
+            }
+            fulfilledCreditsPrefix[i + 1] = fulfilledCreditsPrefix[i] + fulfilled;
+            enrolledCreditsPrefix[i + 1] = enrolledCreditsPrefix[i] + enrolled;
+        }
+        this.enrolledCreditsPrefix = enrolledCreditsPrefix;
+        this.fulfilledCreditsPrefix = fulfilledCreditsPrefix;
+    }
+
+    /**
+     * Attach the credit index invalidation listener to the observable, if not attached already.
+     *
+     * @param observable the observable the credit index depends on
+     */
+    private void observeForCreditIndex(Observable observable) {
+        if (creditIndexObserved.add(observable)) {
+            observable.addListener(creditIndexInvalidator);
+        }
+    }
+
     @Override
     public Iterator<Semester> iterator() {
         return semesterList.iterator();
@@ -1,11 +1,17 @@
 package com.oskopek.studyguide.model.constraints;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.collect.MapMaker;
 import com.oskopek.studyguide.constraint.*;
 import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
 import com.oskopek.studyguide.model.SemesterPlan;
 import com.oskopek.studyguide.model.courses.Course;
 import com.oskopek.studyguide.weld.BeanManagerUtil;
+import javafx.beans.Observable;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ListProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,10 +21,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * A set of {@link CourseGroup}s and their {@link Constraint}s, along with global constraints.
+ * <p>
+ * In incremental mode (the default), the {@code recheck} methods only revalidate the constraints that read the
+ * changed part of the model. Which constraints those are is looked up in a dependency index, that is rebuilt lazily
+ * after the constraint lists or a course change.
+ * <p>
+ * In parallel mode, the constraints are evaluated on a {@link ForkJoinPool} and the resulting verdicts are
+ * published afterwards, in the same order as they would have been by a sequential validation.
+ * <p>
+ * The last verdict of every constraint is remembered. By default, a verdict is only published if it differs from
+ * the last one (the constraint got broken or fixed, or its messages changed). Constraints that were not validated
+ * yet are considered fixed.
  */
 public class Constraints {
 
@@ -26,6 +46,15 @@ public class Constraints {
     private final ListProperty<CourseGroupConstraint> courseGroupConstraintList;
     private final ListProperty<GlobalConstraint> globalConstraintList;
     private final ListProperty<CourseEnrollmentConstraint> courseEnrollmentConstraintList;
+    private final transient BooleanProperty incremental = new SimpleBooleanProperty(true);
+    private final transient BooleanProperty parallel = new SimpleBooleanProperty(false);
+    private final transient BooleanProperty transitionsOnly = new SimpleBooleanProperty(true);
+    private final transient Map<DefaultConstraint, List<String>> lastVerdicts = new MapMaker().weakKeys().makeMap();
+
+    private transient Map<String, Set<DefaultConstraint>> courseIdIndex;
+    private transient Map<CourseEnrollment, List<CourseEnrollmentConstraint>> enrollmentIndex;
+    private transient Map<DefaultConstraint, Integer> ordinalIndex;
+    private transient RecheckScheduler recheckScheduler;
 
     /**
      * Initialize an empty set of constraints.
@@ -34,6 +63,9 @@ public class Constraints {
         courseGroupConstraintList = new SimpleListProperty<>(FXCollections.observableArrayList());
         globalConstraintList = new SimpleListProperty<>(FXCollections.observableArrayList());
         courseEnrollmentConstraintList = new SimpleListProperty<>(FXCollections.observableArrayList());
+        courseGroupConstraintList.addListener(this::invalidateIndex);
+        globalConstraintList.addListener(this::invalidateIndex);
+        courseEnrollmentConstraintList.addListener(this::invalidateIndex);
     }
 
     /**
@@ -117,6 +149,125 @@ public class Constraints {
         return courseEnrollmentConstraintList;
     }
 
+    /**
+     * Is the incremental recheck mode turned on?
+     *
+     * @return true iff the {@code recheck} methods revalidate only the affected constraints
+     */
+    @JsonIgnore
+    public boolean isIncremental() {
+        return incremental.get();
+    }
+
+    /**
+     * Turn the incremental recheck mode on or off. If off, all {@code recheck} methods do a full recheck.
+     *
+     * @param incremental true iff the {@code recheck} methods should revalidate only the affected constraints
+     */
+    @JsonIgnore
+    public void setIncremental(boolean incremental) {
+        this.incremental.set(incremental);
+    }
+
+    /**
+     * The JavaFX property for {@link #isIncremental()}.
+     *
+     * @return the property of {@link #isIncremental()}
+     */
+    public BooleanProperty incrementalProperty() {
+        return incremental;
+    }
+
+    /**
+     * Is the parallel evaluation mode turned on?
+     *
+     * @return true iff the constraints are evaluated on the common {@link ForkJoinPool}
+     */
+    @JsonIgnore
+    public boolean isParallel() {
+        return parallel.get();
+    }
+
+    /**
+     * Turn the parallel evaluation mode on or off. The fired events and their order do not depend on the mode.
+     *
+     * @param parallel true iff the constraints should be evaluated on the common {@link ForkJoinPool}
+     */
+    @JsonIgnore
+    public void setParallel(boolean parallel) {
+        this.parallel.set(parallel);
+    }
+
+    /**
+     * The JavaFX property for {@link #isParallel()}.
+     *
+     * @return the property of {@link #isParallel()}
+     */
+    public BooleanProperty parallelProperty() {
+        return parallel;
+    }
+
+    /**
+     * Are only the verdicts that differ from the last verdict of their constraint published?
+     *
+     * @return true iff only state transitions of constraints fire events
+     */
+    @JsonIgnore
+    public boolean isTransitionsOnly() {
+        return transitionsOnly.get();
+    }
+
+    /**
+     * Turn publishing of only the changed verdicts on or off. If off, every validation fires its events.
+     *
+     * @param transitionsOnly true iff only state transitions of constraints should fire events
+     */
+    @JsonIgnore
+    public void setTransitionsOnly(boolean transitionsOnly) {
+        this.transitionsOnly.set(transitionsOnly);
+    }
+
+    /**
+     * The JavaFX property for {@link #isTransitionsOnly()}.
+     *
+     * @return the property of {@link #isTransitionsOnly()}
+     */
+    public BooleanProperty transitionsOnlyProperty() {
+        return transitionsOnly;
+    }
+
+    /**
+     * Forget the last verdicts of all constraints, so that they are all considered fixed. Should be called when
+     * the subscribers of the broken constraint events lose their state, for example when the plan is shown anew.
+     */
+    public void clearLastVerdicts() {
+        lastVerdicts.clear();
+    }
+
+    /**
+     * Get the scheduler that coalesces change notifications into batched rechecks of these constraints.
+     * If none was set, a scheduler dispatching to the JavaFX Application Thread is created.
+     *
+     * @return the recheck scheduler
+     */
+    @JsonIgnore
+    public synchronized RecheckScheduler getRecheckScheduler() {
+        if (recheckScheduler == null) {
+            recheckScheduler = new RecheckScheduler(this);
+        }
+        return recheckScheduler;
+    }
+
+    /**
+     * Set the scheduler that coalesces change notifications into batched rechecks of these constraints.
+     *
+     * @param recheckScheduler the recheck scheduler, null to use the default one
+     */
+    @JsonIgnore
+    public synchronized void setRecheckScheduler(RecheckScheduler recheckScheduler) {
+        this.recheckScheduler = recheckScheduler;
+    }
+
     /**
      * Removes all {@link CourseEnrollmentConstraint}s that restrict the given course enrollment.
      *
@@ -134,7 +285,7 @@ public class Constraints {
     public void removeAllCourseEnrollmentConstraints(Collection<CourseEnrollment> courseEnrollments) {
         Set<CourseEnrollment> courseEnrollmentSet = new HashSet<>(courseEnrollments);
         List<CourseEnrollmentConstraint> courseEnrollmentConstraintListCopy = new ArrayList<>(
-                courseEnrollmentConstraintList.size() - courseEnrollmentSet.size() * 2);
+                courseEnrollmentConstraintList.size());
         courseEnrollmentConstraintList.stream().filter(cec -> !courseEnrollmentSet.contains(cec.getCourseEnrollment()))
                 .forEach(courseEnrollmentConstraintListCopy::add);
         setCourseEnrollmentConstraintList(courseEnrollmentConstraintListCopy);
@@ -148,20 +299,56 @@ public class Constraints {
      * @param semesterPlan the semesterPlan to set into them
      */
     public void addAllCourseEnrollmentConstraints(CourseEnrollment courseEnrollment, SemesterPlan semesterPlan) {
-        CourseEnrollmentConstraint c1 = BeanManagerUtil.createBeanInstance(CourseEnrollmentCorequisiteConstraint.class);
-        c1.setCourseEnrollment(courseEnrollment);
-        c1.setSemesterPlan(semesterPlan);
-
-        CourseEnrollmentConstraint c2 = BeanManagerUtil
-                .createBeanInstance(CourseEnrollmentPrerequisiteConstraint.class);
-        c2.setCourseEnrollment(courseEnrollment);
-        c2.setSemesterPlan(semesterPlan);
+        CourseEnrollmentConstraint constraint = BeanManagerUtil
+                .createBeanInstance(CourseEnrollmentRequisiteConstraint.class);
+        constraint.setCourseEnrollment(courseEnrollment);
+        constraint.setSemesterPlan(semesterPlan);
+        courseEnrollmentConstraintList.add(constraint);
+    }
 
-        CourseEnrollmentConstraint c3 = BeanManagerUtil.createBeanInstance(CourseEnrollmentEnrolledInConstraint.class);
-        c3.setCourseEnrollment(courseEnrollment);
-        c3.setSemesterPlan(semesterPlan);
+    /**
+     * Replaces the separate {@link CourseEnrollmentCorequisiteConstraint},
+     * {@link CourseEnrollmentPrerequisiteConstraint} and {@link CourseEnrollmentEnrolledInConstraint} of older plans
+     * by one {@link CourseEnrollmentRequisiteConstraint} per course enrollment. Enrollments that do not have all
+     * three of them are left as they are.
+     */
+    public void upgradeCourseEnrollmentConstraints() {
+        Map<CourseEnrollment, Set<Class<?>>> legacyTypes = new IdentityHashMap<>();
+        for (CourseEnrollmentConstraint constraint : getCourseEnrollmentConstraintList()) {
+            if (isLegacyRequisiteConstraint(constraint)) {
+                legacyTypes.computeIfAbsent(constraint.getCourseEnrollment(), e -> new HashSet<>())
+                        .add(constraint.getClass());
+            }
+        }
+        legacyTypes.values().removeIf(types -> types.size() < 3);
+        if (legacyTypes.isEmpty()) {
+            return;
+        }
+        List<CourseEnrollmentConstraint> upgraded = new ArrayList<>(getCourseEnrollmentConstraintList().size());
+        Set<CourseEnrollment> upgradedEnrollments = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (CourseEnrollmentConstraint constraint : getCourseEnrollmentConstraintList()) {
+            CourseEnrollment enrollment = constraint.getCourseEnrollment();
+            if (!isLegacyRequisiteConstraint(constraint) || !legacyTypes.containsKey(enrollment)) {
+                upgraded.add(constraint);
+            } else if (upgradedEnrollments.add(enrollment)) { // first of the three
+                upgraded.add(CourseEnrollmentRequisiteConstraint.of(constraint));
+            }
+        }
+        logger.debug("Upgraded {} course enrollment constraints to {}.", getCourseEnrollmentConstraintList().size(),
+                upgraded.size());
+        setCourseEnrollmentConstraintList(upgraded);
+    }
 
-        courseEnrollmentConstraintList.addAll(c1, c2, c3);
+    /**
+     * Is the constraint one of the constraints replaced by {@link CourseEnrollmentRequisiteConstraint}?
+     *
+     * @param constraint the constraint
+     * @return true iff it is a corequisite, prerequisite or enrolled-in constraint
+     */
+    private static boolean isLegacyRequisiteConstraint(CourseEnrollmentConstraint constraint) {
+        return constraint instanceof CourseEnrollmentCorequisiteConstraint
+                || constraint instanceof CourseEnrollmentPrerequisiteConstraint
+                || constraint instanceof CourseEnrollmentEnrolledInConstraint;
     }
 
     /**
@@ -202,7 +389,318 @@ public class Constraints {
      */
     public void recheckAll() {
         logger.debug("Rechecking constraints...");
-        allConstraintStream().forEach(Constraint::validate);
+        invalidateIndex(null); // course groups might have changed without us noticing
+        validateAll(allConstraintStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * Recheck the constraints that read the given course enrollment (the constraints of the enrollment itself,
+     * the constraints of enrollments that require its course, course groups containing its course and all global
+     * constraints). Does a full recheck if not in incremental mode.
+     *
+     * @param enrollment the course enrollment that changed
+     * @see #recheckAll(CourseEnrollment)
+     */
+    public void recheck(CourseEnrollment enrollment) {
+        if (!isIncremental()) {
+            recheckAll(enrollment);
+            return;
+        }
+        buildIndexIfInvalid();
+        Set<DefaultConstraint> affected = newIdentitySet();
+        addAffectedBy(enrollment, affected);
+        logger.debug("Rechecking {} constraints because of an enrollment change: {}", affected.size(), enrollment);
+        validateInOrder(affected);
+    }
+
+    /**
+     * Recheck the constraints that read the given course (the constraints of its enrollments, the constraints of
+     * enrollments that require it, course groups containing it and all global constraints).
+     * Does a full recheck if not in incremental mode.
+     *
+     * @param course the course that changed
+     * @see #recheckAll(Course)
+     */
+    public void recheck(Course course) {
+        if (!isIncremental()) {
+            recheckAll(course);
+            return;
+        }
+        invalidateIndex(null); // the requisites or id of the course might have changed
+        buildIndexIfInvalid();
+        Set<DefaultConstraint> affected = newIdentitySet();
+        affected.addAll(courseIdIndex.getOrDefault(course.getId(), Collections.emptySet()));
+        affected.addAll(getGlobalConstraintList());
+        logger.debug("Rechecking {} constraints because of a course change: {}", affected.size(), course);
+        validateInOrder(affected);
+    }
+
+    /**
+     * Recheck the constraints that read the course enrollments of the given semester and all global constraints.
+     * Changes of the semester's position in the plan need a full recheck, use {@link #recheckAll()} for those.
+     * Does a full recheck if not in incremental mode.
+     *
+     * @param semester the semester that changed
+     */
+    public void recheck(Semester semester) {
+        if (!isIncremental()) {
+            logger.debug("Rechecking all because of a semester change: {}", semester);
+            recheckAll();
+            return;
+        }
+        buildIndexIfInvalid();
+        Set<DefaultConstraint> affected = newIdentitySet();
+        for (CourseEnrollment enrollment : semester.getCourseEnrollmentList()) {
+            addAffectedBy(enrollment, affected);
+        }
+        affected.addAll(getGlobalConstraintList());
+        logger.debug("Rechecking {} constraints because of a semester change: {}", affected.size(), semester);
+        validateInOrder(affected);
+    }
+
+    /**
+     * Recheck the constraints that read any of the given courses, course enrollments or semesters, in one pass.
+     * Every affected constraint is validated only once, even if it reads several of the changed objects.
+     * Does a full recheck if not in incremental mode.
+     *
+     * @param courses the courses that changed
+     * @param enrollments the course enrollments that changed
+     * @param semesters the semesters that changed
+     * @see RecheckScheduler
+     */
+    public void recheck(Collection<Course> courses, Collection<CourseEnrollment> enrollments,
+            Collection<Semester> semesters) {
+        if (!isIncremental()) {
+            logger.debug("Rechecking all because of a batch of changes.");
+            recheckAll();
+            return;
+        }
+        if (!courses.isEmpty()) {
+            invalidateIndex(null); // the requisites or id of the courses might have changed
+        }
+        buildIndexIfInvalid();
+        Set<DefaultConstraint> affected = newIdentitySet();
+        for (Course course : courses) {
+            affected.addAll(courseIdIndex.getOrDefault(course.getId(), Collections.emptySet()));
+        }
+        for (CourseEnrollment enrollment : enrollments) {
+            addAffectedBy(enrollment, affected);
+        }
+        for (Semester semester : semesters) {
+            semester.getCourseEnrollmentList().forEach(enrollment -> addAffectedBy(enrollment, affected));
+        }
+        affected.addAll(getGlobalConstraintList());
+        logger.debug("Rechecking {} constraints because of {} course, {} enrollment and {} semester changes.",
+                affected.size(), courses.size(), enrollments.size(), semesters.size());
+        validateInOrder(affected);
+    }
+
+    /**
+     * Adds all constraints that read the given course enrollment to the set, using the dependency index.
+     *
+     * @param enrollment the changed enrollment
+     * @param affected the set to add to
+     */
+    private void addAffectedBy(CourseEnrollment enrollment, Set<DefaultConstraint> affected) {
+        affected.addAll(enrollmentIndex.getOrDefault(enrollment, Collections.emptyList()));
+        affected.addAll(courseIdIndex.getOrDefault(enrollment.getCourse().getId(), Collections.emptySet()));
+        affected.addAll(getGlobalConstraintList());
+    }
+
+    /**
+     * Validates the given constraints in the same order as {@link #recheckAll()} would, so that the fired events
+     * come in the same order too.
+     *
+     * @param affected the constraints to validate
+     */
+    private void validateInOrder(Set<DefaultConstraint> affected) {
+        List<DefaultConstraint> ordered = new ArrayList<>(affected);
+        ordered.sort(Comparator.comparingInt(ordinalIndex::get));
+        validateAll(ordered);
+    }
+
+    /**
+     * Validates the given constraints in order. All constraints of a semester plan share one
+     * {@link EvaluationSnapshot} of it, taken before the first one is validated.
+     *
+     * @param constraints the constraints to validate
+     */
+    private void validateAll(List<DefaultConstraint> constraints) {
+        Map<SemesterPlan, EvaluationSnapshot> snapshots = takeSnapshots(constraints);
+        publish(isParallel() ? evaluateInParallel(constraints, snapshots) : evaluate(constraints, snapshots));
+    }
+
+    /**
+     * Publish the verdicts in order and remember them as the last verdicts of their constraints.
+     * In {@link #isTransitionsOnly()} mode, verdicts equal to the last ones are not published.
+     *
+     * @param verdicts the verdicts to publish
+     */
+    private void publish(List<ConstraintVerdict> verdicts) {
+        boolean transitionsOnly = isTransitionsOnly();
+        int published = 0;
+        for (ConstraintVerdict verdict : verdicts) {
+            List<String> brokenMessages = verdict.getBrokenMessages();
+            List<String> last = lastVerdicts.put(verdict.getConstraint(), brokenMessages);
+            if (!transitionsOnly || !brokenMessages.equals(last == null ? Collections.emptyList() : last)) {
+                verdict.publish();
+                published++;
+            }
+        }
+        logger.trace("Published {} of {} verdicts.", published, verdicts.size());
+    }
+
+    /**
+     * Evaluate the constraints sequentially, in the calling thread.
+     *
+     * @param constraints the constraints to evaluate
+     * @param snapshots the snapshots of the plans the constraints are in
+     * @return the verdicts, in the order of the constraints
+     */
+    private static List<ConstraintVerdict> evaluate(List<DefaultConstraint> constraints,
+            Map<SemesterPlan, EvaluationSnapshot> snapshots) {
+        List<ConstraintVerdict> verdicts = new ArrayList<>(constraints.size());
+        for (DefaultConstraint constraint : constraints) {
+            verdicts.add(constraint.evaluate(snapshots.get(constraint.getSemesterPlan())));
+        }
+        return verdicts;
+    }
+
+    /**
+     * Evaluate the constraints on the common {@link ForkJoinPool}.
+     *
+     * @param constraints the constraints to evaluate
+     * @param snapshots the snapshots of the plans the constraints are in
+     * @return the verdicts, in the order of the constraints
+     */
+    private static List<ConstraintVerdict> evaluateInParallel(List<DefaultConstraint> constraints,
+            Map<SemesterPlan, EvaluationSnapshot> snapshots) {
+        ConstraintVerdict[] verdicts = new ConstraintVerdict[constraints.size()];
+        ForkJoinPool.commonPool().invoke(new EvaluationAction(constraints, snapshots, verdicts, 0, verdicts.length));
+        return Arrays.asList(verdicts);
+    }
+
+    /**
+     * Take one {@link EvaluationSnapshot} of every semester plan the given constraints are in.
+     *
+     * @param constraints the constraints
+     * @return the snapshots of the plans
+     */
+    private static Map<SemesterPlan, EvaluationSnapshot> takeSnapshots(List<DefaultConstraint> constraints) {
+        Map<SemesterPlan, EvaluationSnapshot> snapshots = new IdentityHashMap<>(2);
+        constraints.forEach(c -> snapshots.computeIfAbsent(c.getSemesterPlan(), EvaluationSnapshot::of));
+        return snapshots;
+    }
+
+    /**
+     * Marks the dependency index as outdated. Used as an invalidation listener on the constraint lists.
+     *
+     * @param observable the list that changed, unused (can be null)
+     */
+    private void invalidateIndex(Observable observable) {
+        courseIdIndex = null;
+        enrollmentIndex = null;
+        ordinalIndex = null;
+    }
+
+    /**
+     * Rebuild the dependency index from the current constraints, if it was invalidated.
+     * A course enrollment constraint reads the course ids of its enrollment's course and of all its prerequisites
+     * and corequisites. A course group constraint reads the course ids of all courses in the group.
+     * Global constraints read everything and are therefore not indexed.
+     */
+    private void buildIndexIfInvalid() {
+        if (ordinalIndex != null) {
+            return;
+        }
+        logger.debug("Rebuilding the constraint dependency index.");
+        Map<String, Set<DefaultConstraint>> courseIdIndex = new HashMap<>();
+        Map<CourseEnrollment, List<CourseEnrollmentConstraint>> enrollmentIndex = new IdentityHashMap<>();
+        Map<DefaultConstraint, Integer> ordinalIndex = new IdentityHashMap<>();
+        for (CourseEnrollmentConstraint constraint : getCourseEnrollmentConstraintList()) {
+            CourseEnrollment enrollment = constraint.getCourseEnrollment();
+            enrollmentIndex.computeIfAbsent(enrollment, e -> new ArrayList<>(3)).add(constraint);
+            Course course = enrollment.getCourse();
+            indexCourseId(courseIdIndex, course, constraint);
+            course.getPrerequisites().forEach(c -> indexCourseId(courseIdIndex, c, constraint));
+            course.getCorequisites().forEach(c -> indexCourseId(courseIdIndex, c, constraint));
+        }
+        for (CourseGroupConstraint constraint : getCourseGroupConstraintList()) {
+            constraint.getCourseGroup().courseListProperty().forEach(c -> indexCourseId(courseIdIndex, c, constraint));
+        }
+        allConstraintStream().forEachOrdered(c -> ordinalIndex.put(c, ordinalIndex.size()));
+        this.courseIdIndex = courseIdIndex;
+        this.enrollmentIndex = enrollmentIndex;
+        this.ordinalIndex = ordinalIndex;
+    }
+
+    /**
+     * Register the constraint as a reader of the course's id in the index.
+     *
+     * @param courseIdIndex the index to register in
+     * @param course the course that is read by the constraint
+     * @param constraint the constraint
+     */
+    private static void indexCourseId(Map<String, Set<DefaultConstraint>> courseIdIndex, Course course,
+            DefaultConstraint constraint) {
+        courseIdIndex.computeIfAbsent(course.getId(), id -> newIdentitySet()).add(constraint);
+    }
+
+    /**
+     * Create a new set that compares constraints by identity. Constraints have value based equality, but we need
+     * to differentiate all instances.
+     *
+     * @return a new empty identity set
+     */
+    private static Set<DefaultConstraint> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Evaluates a range of constraints, splitting it in halves until it is small enough. Every verdict is stored
+     * at the index of its constraint, so the result does not depend on the scheduling.
+     */
+    private static final class EvaluationAction extends RecursiveAction {
+
+        private static final int threshold = 8;
+
+        private final List<DefaultConstraint> constraints;
+        private final Map<SemesterPlan, EvaluationSnapshot> snapshots;
+        private final ConstraintVerdict[] verdicts;
+        private final int from;
+        private final int to;
+
+        /**
+         * Create an action evaluating the constraints in the range [from, to).
+         *
+         * @param constraints all constraints
+         * @param snapshots the snapshots of the plans the constraints are in
+         * @param verdicts the array to store the verdicts in
+         * @param from the first index of the range, inclusive
+         * @param to the last index of the range, exclusive
+         */
+        private EvaluationAction(List<DefaultConstraint> constraints, Map<SemesterPlan, EvaluationSnapshot> snapshots,
+                ConstraintVerdict[] verdicts, int from, int to) {
+            this.constraints = constraints;
+            this.snapshots = snapshots;
+            this.verdicts = verdicts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    DefaultConstraint constraint = constraints.get(i);
+                    verdicts[i] = constraint.evaluate(snapshots.get(constraint.getSemesterPlan()));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EvaluationAction(constraints, snapshots, verdicts, from, middle),
+                        new EvaluationAction(constraints, snapshots, verdicts, middle, to));
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,225 @@
+package com.oskopek.studyguide.model.constraints;
+
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.courses.Course;
+import javafx.application.Platform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects change notifications of the model and rechecks the affected {@link Constraints} once per batch,
+ * instead of once per notification.
+ * <p>
+ * The first notification of a batch schedules a recheck pass, all following notifications only join the pending
+ * batch (they are coalesced). If the window is 0 (the default), the pass is dispatched directly, which with the
+ * default {@link Platform#runLater(Runnable)} dispatcher means it runs after the currently processed FX event
+ * and everything queued before it. Otherwise, it is dispatched after the window has elapsed.
+ */
+public class RecheckScheduler {
+
+    private static final ScheduledExecutorService windowTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "RecheckScheduler-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Constraints constraints;
+    private final Executor dispatcher;
+    private final long windowMillis;
+
+    private final Set<Course> pendingCourses = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<CourseEnrollment> pendingEnrollments = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Semester> pendingSemesters = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean pendingAll;
+    private boolean scheduled;
+
+    private final AtomicLong notificationCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong passCount = new AtomicLong();
+
+    /**
+     * Create a scheduler that dispatches the recheck passes to the JavaFX Application Thread at the end
+     * of the current pulse.
+     *
+     * @param constraints the constraints to recheck
+     * @throws IllegalArgumentException if the constraints are null
+     */
+    public RecheckScheduler(Constraints constraints) throws IllegalArgumentException {
+        this(constraints, Platform::runLater, 0L);
+    }
+
+    /**
+     * Create a scheduler.
+     *
+     * @param constraints the constraints to recheck
+     * @param dispatcher the executor on which the recheck passes run, usually the JavaFX Application Thread
+     * @param windowMillis how long to wait for more notifications after the first one of a batch, 0 for none
+     * @throws IllegalArgumentException if the constraints or dispatcher are null or the window is negative
+     */
+    public RecheckScheduler(Constraints constraints, Executor dispatcher, long windowMillis)
+            throws IllegalArgumentException {
+        if (constraints == null || dispatcher == null) {
+            throw new IllegalArgumentException("The constraints and dispatcher cannot be null.");
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("The window cannot be negative: " + windowMillis);
+        }
+        this.constraints = constraints;
+        this.dispatcher = dispatcher;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Schedule a recheck because the course changed.
+     *
+     * @param course the changed course
+     * @see Constraints#recheck(Course)
+     */
+    public void schedule(Course course) {
+        synchronized (this) {
+            pendingCourses.add(course);
+        }
+        notified();
+    }
+
+    /**
+     * Schedule a recheck because the course enrollment changed.
+     *
+     * @param enrollment the changed course enrollment
+     * @see Constraints#recheck(CourseEnrollment)
+     */
+    public void schedule(CourseEnrollment enrollment) {
+        synchronized (this) {
+            pendingEnrollments.add(enrollment);
+        }
+        notified();
+    }
+
+    /**
+     * Schedule a recheck because the semester changed.
+     *
+     * @param semester the changed semester
+     * @see Constraints#recheck(Semester)
+     */
+    public void schedule(Semester semester) {
+        synchronized (this) {
+            pendingSemesters.add(semester);
+        }
+        notified();
+    }
+
+    /**
+     * Schedule a full recheck.
+     *
+     * @see Constraints#recheckAll()
+     */
+    public void scheduleAll() {
+        synchronized (this) {
+            pendingAll = true;
+        }
+        notified();
+    }
+
+    /**
+     * Count the notification and schedule a pass, unless one is already pending.
+     */
+    private void notified() {
+        notificationCount.incrementAndGet();
+        synchronized (this) {
+            if (scheduled) {
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            scheduled = true;
+        }
+        if (windowMillis == 0L) {
+            dispatcher.execute(this::flush);
+        } else {
+            windowTimer.schedule(() -> dispatcher.execute(this::flush), windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Run the pending batch now, in the calling thread. Does nothing if no batch is pending.
+     * The already dispatched pass of the batch will then find nothing to do.
+     */
+    public void flush() {
+        List<Course> courses;
+        List<CourseEnrollment> enrollments;
+        List<Semester> semesters;
+        boolean all;
+        synchronized (this) {
+            if (!scheduled) {
+                return;
+            }
+            courses = new ArrayList<>(pendingCourses);
+            enrollments = new ArrayList<>(pendingEnrollments);
+            semesters = new ArrayList<>(pendingSemesters);
+            all = pendingAll;
+            pendingCourses.clear();
+            pendingEnrollments.clear();
+            pendingSemesters.clear();
+            pendingAll = false;
+            scheduled = false;
+        }
+        passCount.incrementAndGet();
+        if (all) {
+            constraints.recheckAll();
+        } else {
+            constraints.recheck(courses, enrollments, semesters);
+        }
+        logger.trace("Recheck pass {} done ({} notifications, {} coalesced).", passCount.get(),
+                notificationCount.get(), coalescedCount.get());
+    }
+
+    /**
+     * Is there a batch waiting for its recheck pass?
+     *
+     * @return true iff there are pending notifications
+     */
+    public synchronized boolean isPending() {
+        return scheduled;
+    }
+
+    /**
+     * Get the number of all notifications received.
+     *
+     * @return the notification count
+     */
+    public long getNotificationCount() {
+        return notificationCount.get();
+    }
+
+    /**
+     * Get the number of notifications that joined an already pending batch, instead of scheduling a new pass.
+     *
+     * @return the coalesced notification count
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Get the number of recheck passes run.
+     *
+     * @return the pass count
+     */
+    public long getPassCount() {
+        return passCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RecheckScheduler[" + notificationCount.get() + " notifications, " + coalescedCount.get()
+                + " coalesced, " + passCount.get() + " passes]";
+    }
+}
@@ -8,6 +8,7 @@ import javafx.beans.property.*;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import org.apache.commons.lang.builder.CompareToBuilder;
 import org.apache.commons.lang.builder.EqualsBuilder;
@@ -18,42 +19,62 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Background information about a course students can enroll in.
  * There should be only one instance of this per course.
+ * <p>
+ * The JavaFX properties are created lazily, on the first call of their {@code *Property()} method. Until then,
+ * the values are kept in plain fields and the setters fire the course changes themselves. Registries (f.e. of
+ * a loaded plan) hold thousands of courses, of which only the enrolled ones and the shown one are ever bound
+ * or observed. The getters never create a property, so they can be called from any thread that reads the model,
+ * while the properties are only created on the thread that changes it. The requisite lists are observed directly
+ * until their properties are created.
+ * <p>
+ * Searches do not observe the searched fields (id, name, localized name and locale) of every course, they compare
+ * the {@link #getSearchedFieldsVersion()} shared by all courses instead.
  */
 @JsonIdentityInfo(generator = ObjectIdGenerators.UUIDGenerator.class)
 public class Course implements Comparable<Course> {
 
-    private final StringProperty id;
-    private final StringProperty name;
-    private final StringProperty localizedName;
-    private final ObjectProperty<Locale> locale;
-    private final ObjectProperty<Credits> credits;
-    private final ObjectProperty<EnrollableIn> enrollableIn;
-    private final ListProperty<String> teacherNames;
-    private final ListProperty<Course> prerequisites;
-    private final ListProperty<Course> corequisites;
+    private static final AtomicLong searchedFieldsVersion = new AtomicLong();
+
+    private String idValue;
+    private String nameValue;
+    private String localizedNameValue;
+    private Locale localeValue;
+    private Credits creditsValue;
+    private EnrollableIn enrollableInValue;
+    private ObservableList<String> teacherNamesValue;
+    private ObservableList<Course> prerequisitesValue;
+    private ObservableList<Course> corequisitesValue;
+
+    private StringProperty id;
+    private StringProperty name;
+    private StringProperty localizedName;
+    private ObjectProperty<Locale> locale;
+    private ObjectProperty<Credits> credits;
+    private ObjectProperty<EnrollableIn> enrollableIn;
+    private ListProperty<String> teacherNames;
+    private ListProperty<Course> prerequisites;
+    private ListProperty<Course> corequisites;
 
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
     private transient EventBus eventBus;
     private final transient ChangeListener<Credits> creditsChangeListener = (x, y, z) -> fireValueChangedEvent();
+    private final transient ListChangeListener<Course> requisitesChangeListener = c -> requisitesChanged();
+    private transient List<RequisitesObserver> requisitesObservers;
 
     /**
      * Empty default constructor for JSON.
      */
     private Course() {
-        this.id = new SimpleStringProperty();
-        this.name = new SimpleStringProperty();
-        this.localizedName = new SimpleStringProperty();
-        this.locale = new SimpleObjectProperty<>(Locale.getDefault());
-        this.credits = new SimpleObjectProperty<>();
-        this.enrollableIn = new SimpleObjectProperty<>();
-        this.teacherNames = new SimpleListProperty<>(FXCollections.observableArrayList());
-        this.prerequisites = new SimpleListProperty<>(FXCollections.observableArrayList());
-        this.corequisites = new SimpleListProperty<>(FXCollections.observableArrayList());
-        registerChangeEventListeners();
+        this.localeValue = Locale.getDefault();
+        this.teacherNamesValue = FXCollections.observableArrayList();
+        this.prerequisitesValue = observedRequisites(new ArrayList<>());
+        this.corequisitesValue = observedRequisites(new ArrayList<>());
     }
 
     /**
@@ -77,31 +98,18 @@ public class Course implements Comparable<Course> {
         if (id == null || name == null || credits == null) {
             throw new IllegalArgumentException("Id, name and credits cannot be null.");
         }
-        this.id = new SimpleStringProperty(id);
-        this.name = new SimpleStringProperty(name);
-        this.localizedName = new SimpleStringProperty(localizedName);
-        this.locale = new SimpleObjectProperty<>(locale);
         if (locale == null && localizedName != null) {
             throw new IllegalArgumentException("Locale cannot be null when localized name isn't null.");
         }
-        this.credits = new SimpleObjectProperty<>(credits);
-        this.enrollableIn = new SimpleObjectProperty<>(enrollableIn);
-        if (teacherNames == null) {
-            this.teacherNames = new SimpleListProperty<>();
-        } else {
-            this.teacherNames = new SimpleListProperty<>(FXCollections.observableArrayList(teacherNames));
-        }
-        if (prerequisites == null) {
-            this.prerequisites = new SimpleListProperty<>();
-        } else {
-            this.prerequisites = new SimpleListProperty<>(FXCollections.observableArrayList(prerequisites));
-        }
-        if (corequisites == null) {
-            this.corequisites = new SimpleListProperty<>();
-        } else {
-            this.corequisites = new SimpleListProperty<>(FXCollections.observableArrayList(corequisites));
-        }
-        registerChangeEventListeners();
+        this.idValue = id;
+        this.nameValue = name;
+        this.localizedNameValue = localizedName;
+        this.localeValue = locale;
+        this.creditsValue = credits;
+        this.enrollableInValue = enrollableIn;
+        this.teacherNamesValue = teacherNames == null ? null : FXCollections.observableArrayList(teacherNames);
+        this.prerequisitesValue = prerequisites == null ? null : observedRequisites(prerequisites);
+        this.corequisitesValue = corequisites == null ? null : observedRequisites(corequisites);
     }
 
     /**
@@ -125,6 +133,101 @@ public class Course implements Comparable<Course> {
                 corequisites);
     }
 
+    /**
+     * Get the version of the searched fields (id, name, localized name and locale) of all courses. It is incremented
+     * whenever one of them changes on any course, so data derived from them (like a search index) can tell it is
+     * stale without observing every course.
+     *
+     * @return the current version of the searched fields
+     */
+    public static long getSearchedFieldsVersion() {
+        return searchedFieldsVersion.get();
+    }
+
+    /**
+     * Mark a change of a searched field of this course.
+     *
+     * @see #getSearchedFieldsVersion()
+     */
+    private static void searchedFieldChanged() {
+        searchedFieldsVersion.incrementAndGet();
+    }
+
+    /**
+     * Copy the requisites into a new observable list, observed by this course until the property of the list
+     * is created.
+     *
+     * @param requisites the requisites to copy
+     * @return a new observed list
+     */
+    private ObservableList<Course> observedRequisites(List<Course> requisites) {
+        ObservableList<Course> list = FXCollections.observableArrayList(requisites);
+        list.addListener(requisitesChangeListener);
+        return list;
+    }
+
+    /**
+     * Create the property of a requisite list, which observes the list from now on instead of this course.
+     *
+     * @param requisites the requisite list, can be null
+     * @return the new property, firing a course change on every change
+     */
+    private ListProperty<Course> createRequisitesProperty(ObservableList<Course> requisites) {
+        if (requisites != null) {
+            requisites.removeListener(requisitesChangeListener);
+        }
+        ListProperty<Course> property = new SimpleListProperty<>(requisites);
+        property.addListener((x, y, z) -> requisitesChanged());
+        return property;
+    }
+
+    /**
+     * Start notifying the observer of changes of the requisites and the id of this course. Unlike listening
+     * to their properties, this does not create them.
+     *
+     * @param observer the observer to add
+     * @see #removeRequisitesObserver(RequisitesObserver)
+     */
+    void addRequisitesObserver(RequisitesObserver observer) {
+        if (requisitesObservers == null) {
+            requisitesObservers = new ArrayList<>(1);
+        }
+        requisitesObservers.add(observer);
+    }
+
+    /**
+     * Stop notifying the observer of changes of the requisites and the id of this course.
+     *
+     * @param observer the observer to remove
+     * @see #addRequisitesObserver(RequisitesObserver)
+     */
+    void removeRequisitesObserver(RequisitesObserver observer) {
+        if (requisitesObservers != null) {
+            requisitesObservers.remove(observer);
+        }
+    }
+
+    /**
+     * Notify everyone of a change of the prerequisites or corequisites, whether or not their properties exist.
+     */
+    private void requisitesChanged() {
+        fireValueChangedEvent();
+        if (requisitesObservers != null) {
+            new ArrayList<>(requisitesObservers).forEach(RequisitesObserver::requisitesChanged);
+        }
+    }
+
+    /**
+     * Notify everyone of a change of the id, whether or not its property exists.
+     */
+    private void idChanged() {
+        searchedFieldChanged();
+        fireValueChangedEvent();
+        if (requisitesObservers != null) {
+            new ArrayList<>(requisitesObservers).forEach(RequisitesObserver::idChanged);
+        }
+    }
+
     /**
      * Post an event on the {@link EventBus}, notifying everyone listening of a change in this course.
      */
@@ -142,7 +245,8 @@ public class Course implements Comparable<Course> {
      * @return non-null
      */
     public Credits getCredits() {
-        return credits.get();
+        ObjectProperty<Credits> property = credits;
+        return property == null ? creditsValue : property.get();
     }
 
     /**
@@ -154,7 +258,13 @@ public class Course implements Comparable<Course> {
         if (credits == null) {
             throw new IllegalArgumentException("Credits cannot be null.");
         }
-        this.credits.set(credits);
+        if (this.credits != null) {
+            this.credits.set(credits);
+        } else if (!credits.equals(creditsValue)) {
+            Credits oldValue = creditsValue;
+            creditsValue = credits;
+            onCreditsChanged(null, oldValue, credits);
+        }
     }
 
     /**
@@ -163,7 +273,8 @@ public class Course implements Comparable<Course> {
      * @return the enrollable in type
      */
     public EnrollableIn getEnrollableIn() {
-        return enrollableIn.get();
+        ObjectProperty<EnrollableIn> property = enrollableIn;
+        return property == null ? enrollableInValue : property.get();
     }
 
     /**
@@ -172,7 +283,12 @@ public class Course implements Comparable<Course> {
      * @param enrollableIn the enrollable in semester type
      */
     public void setEnrollableIn(EnrollableIn enrollableIn) {
-        this.enrollableIn.set(enrollableIn);
+        if (this.enrollableIn != null) {
+            this.enrollableIn.set(enrollableIn);
+        } else if (!Objects.equals(enrollableIn, enrollableInValue)) {
+            enrollableInValue = enrollableIn;
+            fireValueChangedEvent();
+        }
     }
 
     /**
@@ -181,7 +297,8 @@ public class Course implements Comparable<Course> {
      * @return non-null
      */
     public String getId() {
-        return id.get();
+        StringProperty property = id;
+        return property == null ? idValue : property.get();
     }
 
     /**
@@ -193,7 +310,12 @@ public class Course implements Comparable<Course> {
         if (id == null) {
             throw new IllegalArgumentException("Id cannot be null.");
         }
-        this.id.set(id);
+        if (this.id != null) {
+            this.id.set(id);
+        } else if (!id.equals(idValue)) {
+            idValue = id;
+            idChanged();
+        }
     }
 
     /**
@@ -202,7 +324,8 @@ public class Course implements Comparable<Course> {
      * @return the locale
      */
     public Locale getLocale() {
-        return locale.get();
+        ObjectProperty<Locale> property = locale;
+        return property == null ? localeValue : property.get();
     }
 
     /**
@@ -211,7 +334,12 @@ public class Course implements Comparable<Course> {
      * @param locale can be null
      */
     public void setLocale(Locale locale) {
-        this.locale.set(locale);
+        if (this.locale != null) {
+            this.locale.set(locale);
+        } else if (!Objects.equals(locale, localeValue)) {
+            localeValue = locale;
+            searchedFieldChanged();
+        }
     }
 
     /**
@@ -221,7 +349,8 @@ public class Course implements Comparable<Course> {
      * @see #getLocale()
      */
     public String getLocalizedName() {
-        return localizedName.get();
+        StringProperty property = localizedName;
+        return property == null ? localizedNameValue : property.get();
     }
 
     /**
@@ -230,7 +359,12 @@ public class Course implements Comparable<Course> {
      * @param localizedName can be null
      */
     public void setLocalizedName(String localizedName) {
-        this.localizedName.set(localizedName);
+        if (this.localizedName != null) {
+            this.localizedName.set(localizedName);
+        } else if (!Objects.equals(localizedName, localizedNameValue)) {
+            localizedNameValue = localizedName;
+            searchedFieldChanged();
+        }
     }
 
     /**
@@ -239,7 +373,8 @@ public class Course implements Comparable<Course> {
      * @return non-null
      */
     public String getName() {
-        return name.get();
+        StringProperty property = name;
+        return property == null ? nameValue : property.get();
     }
 
     /**
@@ -251,16 +386,23 @@ public class Course implements Comparable<Course> {
         if (name == null) {
             throw new IllegalArgumentException("The name cannot be null.");
         }
-        this.name.set(name);
+        if (this.name != null) {
+            this.name.set(name);
+        } else if (!name.equals(nameValue)) {
+            nameValue = name;
+            searchedFieldChanged();
+        }
     }
 
     /**
      * Courses that need to be fulfilled in order to enroll in this course.
+     * Changes of the returned list are changes of this course.
      *
      * @return non-null, may be empty
      */
     public ObservableList<Course> getPrerequisites() {
-        return prerequisites.get();
+        ListProperty<Course> property = prerequisites;
+        return property == null ? prerequisitesValue : property.get();
     }
 
     /**
@@ -272,16 +414,26 @@ public class Course implements Comparable<Course> {
         if (prerequisites == null) {
             throw new IllegalArgumentException("The prerequisites list cannot be null.");
         }
-        this.prerequisites.set(FXCollections.observableArrayList(prerequisites));
+        if (this.prerequisites != null) {
+            this.prerequisites.set(FXCollections.observableArrayList(prerequisites));
+        } else if (!prerequisites.equals(prerequisitesValue)) {
+            if (prerequisitesValue != null) {
+                prerequisitesValue.removeListener(requisitesChangeListener);
+            }
+            prerequisitesValue = observedRequisites(prerequisites);
+            requisitesChanged();
+        }
     }
 
     /**
      * Courses required to be enrolled in before enrolling in this course.
+     * Changes of the returned list are changes of this course.
      *
      * @return non-null, may be empty
      */
     public ObservableList<Course> getCorequisites() {
-        return corequisites.get();
+        ListProperty<Course> property = corequisites;
+        return property == null ? corequisitesValue : property.get();
     }
 
     /**
@@ -293,7 +445,15 @@ public class Course implements Comparable<Course> {
         if (corequisites == null) {
             throw new IllegalArgumentException("The corequisites list cannot be null.");
         }
-        this.corequisites.set(FXCollections.observableArrayList(corequisites));
+        if (this.corequisites != null) {
+            this.corequisites.set(FXCollections.observableArrayList(corequisites));
+        } else if (!corequisites.equals(corequisitesValue)) {
+            if (corequisitesValue != null) {
+                corequisitesValue.removeListener(requisitesChangeListener);
+            }
+            corequisitesValue = observedRequisites(corequisites);
+            requisitesChanged();
+        }
     }
 
     /**
@@ -302,7 +462,8 @@ public class Course implements Comparable<Course> {
      * @return non-null
      */
     public ObservableList<String> getTeacherNames() {
-        return teacherNames.get();
+        ListProperty<String> property = teacherNames;
+        return property == null ? teacherNamesValue : property.get();
     }
 
     /**
@@ -314,7 +475,11 @@ public class Course implements Comparable<Course> {
         if (teacherNames == null) {
             throw new IllegalArgumentException("The teacher names list cannot be null.");
         }
-        this.teacherNames.set(FXCollections.observableArrayList(teacherNames));
+        if (this.teacherNames != null) {
+            this.teacherNames.set(FXCollections.observableArrayList(teacherNames));
+        } else {
+            teacherNamesValue = FXCollections.observableArrayList(teacherNames);
+        }
     }
 
     /**
@@ -333,11 +498,18 @@ public class Course implements Comparable<Course> {
     }
 
     /**
-     * The JavaFX property for {@link #getId()}.
+     * The JavaFX property for {@link #getId()}. Created on the first call, like all the other properties:
+     * most courses of a registry are never bound to or observed, they are only read by their getters.
+     * Has to be called on the thread that changes the model.
      *
      * @return the property of {@link #getId()}
      */
     public StringProperty idProperty() {
+        if (id == null) {
+            StringProperty property = new SimpleStringProperty(idValue);
+            property.addListener((x, y, z) -> idChanged());
+            id = property;
+        }
         return id;
     }
 
@@ -347,6 +519,11 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getName()}
      */
     public StringProperty nameProperty() {
+        if (name == null) {
+            StringProperty property = new SimpleStringProperty(nameValue);
+            property.addListener((x, y, z) -> searchedFieldChanged());
+            name = property;
+        }
         return name;
     }
 
@@ -356,6 +533,11 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getLocalizedName()}
      */
     public StringProperty localizedNameProperty() {
+        if (localizedName == null) {
+            StringProperty property = new SimpleStringProperty(localizedNameValue);
+            property.addListener((x, y, z) -> searchedFieldChanged());
+            localizedName = property;
+        }
         return localizedName;
     }
 
@@ -365,6 +547,11 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getLocale()}
      */
     public ObjectProperty<Locale> localeProperty() {
+        if (locale == null) {
+            ObjectProperty<Locale> property = new SimpleObjectProperty<>(localeValue);
+            property.addListener((x, y, z) -> searchedFieldChanged());
+            locale = property;
+        }
         return locale;
     }
 
@@ -374,6 +561,11 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getCredits()}
      */
     public ObjectProperty<Credits> creditsProperty() {
+        if (credits == null) {
+            ObjectProperty<Credits> property = new SimpleObjectProperty<>(creditsValue);
+            property.addListener(this::onCreditsChanged);
+            credits = property;
+        }
         return credits;
     }
 
@@ -383,6 +575,11 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getEnrollableIn()}
      */
     public ObjectProperty<EnrollableIn> enrollableInProperty() {
+        if (enrollableIn == null) {
+            ObjectProperty<EnrollableIn> property = new SimpleObjectProperty<>(enrollableInValue);
+            property.addListener((x, y, z) -> fireValueChangedEvent());
+            enrollableIn = property;
+        }
         return enrollableIn;
     }
 
@@ -392,6 +589,9 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getTeacherNames()}
      */
     public ListProperty<String> teacherNamesProperty() {
+        if (teacherNames == null) {
+            teacherNames = new SimpleListProperty<>(teacherNamesValue);
+        }
         return teacherNames;
     }
 
@@ -401,6 +601,9 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getPrerequisites()}
      */
     public ListProperty<Course> prerequisitesProperty() {
+        if (prerequisites == null) {
+            prerequisites = createRequisitesProperty(prerequisitesValue);
+        }
         return prerequisites;
     }
 
@@ -410,21 +613,12 @@ public class Course implements Comparable<Course> {
      * @return the property of {@link #getCorequisites()}
      */
     public ListProperty<Course> corequisitesProperty() {
+        if (corequisites == null) {
+            corequisites = createRequisitesProperty(corequisitesValue);
+        }
         return corequisites;
     }
 
-    /**
-     * Register {@link javafx.beans.value.ChangeListener}s to important attributes and notify of a course change
-     * using {@link #fireValueChangedEvent()}.
-     */
-    private void registerChangeEventListeners() {
-        id.addListener((x, y, z) -> fireValueChangedEvent());
-        credits.addListener(this::onCreditsChanged);
-        enrollableIn.addListener((x, y, z) -> fireValueChangedEvent());
-        prerequisites.addListener((x, y, z) -> fireValueChangedEvent());
-        corequisites.addListener((x, y, z) -> fireValueChangedEvent());
-    }
-
     /**
      * Register this course on the {@link EventBus}. Does not actually call {@link EventBus#register(Object)},
      * since this class doesn't subscribe to any events, just sets the bus that it will use to communicate it's
@@ -433,16 +627,27 @@ public class Course implements Comparable<Course> {
      * @param eventBus the event bus to set
      */
     public void registerEventBus(EventBus eventBus) {
+        attachEventBus(eventBus);
+        fireValueChangedEvent(); // fire on a new bus
+    }
+
+    /**
+     * Set the bus this course will communicate its changes on, without posting an event. Used when attaching
+     * a whole loaded plan, whose subscribers are notified of the plan at once.
+     *
+     * @param eventBus the event bus to set
+     * @see #registerEventBus(EventBus)
+     */
+    public void attachEventBus(EventBus eventBus) {
         logger.trace("Registering event bus on course {}", this);
         this.eventBus = eventBus;
-        fireValueChangedEvent(); // fire on a new bus
     }
 
     /**
      * A change listener method implementation, used for adding and removing a change listener on the credits
      * instance of this course. Translates a credits change into a course change (transitively).
      *
-     * @param observableValue the observable that changed, unused
+     * @param observableValue the observable that changed, unused (null if the property was not created yet)
      * @param oldValue the old credit value
      * @param newValue the new credit value
      */
@@ -466,15 +671,15 @@ public class Course implements Comparable<Course> {
         Locale systemLocale = Locale.getDefault();
         if (getLocalizedName() == null || systemLocale == null || !systemLocale.getLanguage()
                 .equals(getLocale().getLanguage())) {
-            return nameProperty().getValue();
+            return getName();
         } else {
-            return localizedNameProperty().getValue();
+            return getLocalizedName();
         }
     }
 
     @Override
     public int compareTo(Course o) {
-        return new CompareToBuilder().append(id, o.id).toComparison();
+        return new CompareToBuilder().append(getId(), o.getId()).toComparison();
     }
 
     /**
@@ -508,4 +713,21 @@ public class Course implements Comparable<Course> {
     public String toString() {
         return "Course[" + getId() + ": " + getName() + ']';
     }
+
+    /**
+     * Observes the requisites and the id of a course, for indices of the courses kept in sync with them
+     * (f.e. by a {@link CourseRegistry}). Called on the thread that changes the model.
+     */
+    interface RequisitesObserver {
+
+        /**
+         * Called after the prerequisites or the corequisites of the course changed.
+         */
+        void requisitesChanged();
+
+        /**
+         * Called after the id of the course changed.
+         */
+        void idChanged();
+    }
 }
@@ -1,22 +1,39 @@
 package com.oskopek.studyguide.model.courses;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Serves as a cache and/or database for/of {@link Course}s.
+ * <p>
+ * Besides the id to course map, keeps a reverse index from every course to the courses of the registry
+ * that require it (as a prerequisite or corequisite), see {@link #coursesRequiring(Course)}. It is kept in sync
+ * by observing the requisite lists of the registry's courses and dropped (to be rebuilt on the next query)
+ * whenever the id of one of them changes, because the index is keyed by the course ids.
  */
 @Singleton
 public class CourseRegistry {
 
     @JsonProperty("courses")
     private final Map<String, Course> courseIdMap;
+    private transient volatile long version;
+    private transient Map<Course, Set<Course>> dependentsIndex;
+    private transient Map<Course, RequisitesListener> requisitesListeners;
+    private transient int attachedRequisitesListeners;
 
     /**
      * Create a new empty registry.
@@ -36,7 +53,7 @@ public class CourseRegistry {
         if (course == null) {
             throw new IllegalArgumentException("Cannot add null Course to registry.");
         }
-        courseIdMap.put(course.getId(), course);
+        putIndexed(course);
         putAllCourses(course.getPrerequisites());
         putAllCourses(course.getCorequisites());
     }
@@ -52,7 +69,26 @@ public class CourseRegistry {
         if (course == null) {
             throw new IllegalArgumentException("Cannot add null Course to registry.");
         }
-        courseIdMap.put(course.getId(), course);
+        putIndexed(course);
+    }
+
+    /**
+     * Put a course without it's dependencies into the registry, unless there already is a course with the same id.
+     *
+     * @param course non-null
+     * @return the course already in the registry, or null if the course was put into it
+     * @throws IllegalArgumentException if course is null
+     */
+    public Course putCourseIfAbsent(Course course) throws IllegalArgumentException {
+        if (course == null) {
+            throw new IllegalArgumentException("Cannot add null Course to registry.");
+        }
+        Course existing = courseIdMap.get(course.getId());
+        if (existing != null) {
+            return existing;
+        }
+        putIndexed(course);
+        return null;
     }
 
     /**
@@ -75,6 +111,27 @@ public class CourseRegistry {
         }
     }
 
+    /**
+     * Change the id of a course of the registry and re-key it, so that it is found by the new id. Unlike removing
+     * the course and putting it again, this keeps the course in the requisites of the courses requiring it.
+     *
+     * @param course a course of the registry, non-null
+     * @param id the new id, non-null
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public void renameCourse(Course course, String id) throws IllegalArgumentException {
+        if (course == null || id == null) {
+            throw new IllegalArgumentException("Cannot rename a null Course or to a null id.");
+        }
+        dropDependentsIndex(); // keyed by the ids
+        String previousId = course.getId();
+        if (courseIdMap.get(previousId) == course) {
+            courseIdMap.remove(previousId);
+        }
+        course.setId(id);
+        putIndexed(course);
+    }
+
     /**
      * Remove a course from the registry and return it. If there is no such course, null is returned happens.
      *
@@ -82,11 +139,35 @@ public class CourseRegistry {
      * @return null if no course was removed
      */
     public Course removeCourse(Course toRemove) {
-        courseMapValues().forEach(c -> {
-            c.getCorequisites().remove(toRemove);
-            c.getPrerequisites().remove(toRemove);
-        });
-        return courseIdMap.remove(toRemove.getId());
+        Set<Course> dependents = getDependentsIndex().get(toRemove);
+        if (dependents != null) {
+            for (Course dependent : new ArrayList<>(dependents)) { // the removals update the index
+                dependent.getCorequisites().remove(toRemove);
+                dependent.getPrerequisites().remove(toRemove);
+            }
+        }
+        version++;
+        Course removed = courseIdMap.remove(toRemove.getId());
+        if (removed != null && dependentsIndex != null) {
+            stopTrackingRequisites(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Put the course into the map and the reverse dependency index, if it is built.
+     *
+     * @param course non-null
+     */
+    private void putIndexed(Course course) {
+        Course previous = courseIdMap.put(course.getId(), course);
+        if (dependentsIndex != null && previous != course) {
+            if (previous != null) {
+                stopTrackingRequisites(previous);
+            }
+            trackRequisites(course);
+        }
+        version++;
     }
 
     /**
@@ -103,6 +184,89 @@ public class CourseRegistry {
         return courseIdMap.get(id);
     }
 
+    /**
+     * Get the courses of the registry that require the course, as a prerequisite or as a corequisite.
+     *
+     * @param course non-null
+     * @return a new list of the requiring courses, sorted by id
+     * @throws IllegalArgumentException if course is null
+     */
+    public List<Course> coursesRequiring(Course course) throws IllegalArgumentException {
+        if (course == null) {
+            throw new IllegalArgumentException("Cannot search for courses requiring a null course.");
+        }
+        Set<Course> dependents = getDependentsIndex().get(course);
+        if (dependents == null) {
+            return new ArrayList<>();
+        }
+        List<Course> courses = new ArrayList<>(dependents);
+        courses.sort(Comparator.comparing(Course::getId));
+        return courses;
+    }
+
+    /**
+     * Get the reverse dependency index, building it if this is the first query since it was dropped.
+     *
+     * @return the map from a course to the courses of the registry that require it
+     */
+    private Map<Course, Set<Course>> getDependentsIndex() {
+        if (dependentsIndex == null) {
+            dependentsIndex = new HashMap<>();
+            requisitesListeners = new IdentityHashMap<>(); // the hash codes of the courses change with their ids
+            courseIdMap.values().forEach(this::trackRequisites);
+        }
+        return dependentsIndex;
+    }
+
+    /**
+     * Drop the reverse dependency index and stop listening to the courses' requisites, until the next query.
+     */
+    private void dropDependentsIndex() {
+        if (dependentsIndex == null) {
+            return;
+        }
+        new ArrayList<>(requisitesListeners.values()).forEach(listener -> stopTrackingRequisites(listener.dependent));
+        dependentsIndex = null;
+        requisitesListeners = null;
+    }
+
+    /**
+     * Add the course's requisites to the reverse dependency index and start listening to their changes.
+     *
+     * @param dependent a course of the registry
+     */
+    private void trackRequisites(Course dependent) {
+        RequisitesListener listener = new RequisitesListener(dependent);
+        requisitesListeners.put(dependent, listener);
+        attachedRequisitesListeners++;
+        dependent.addRequisitesObserver(listener);
+        listener.update();
+    }
+
+    /**
+     * Remove the course's requisites from the reverse dependency index and stop listening to their changes.
+     *
+     * @param dependent a course of the registry
+     */
+    private void stopTrackingRequisites(Course dependent) {
+        RequisitesListener listener = requisitesListeners.remove(dependent);
+        if (listener == null) {
+            return;
+        }
+        listener.dependent.removeRequisitesObserver(listener);
+        attachedRequisitesListeners--;
+        listener.clear();
+    }
+
+    /**
+     * Get the number of courses whose requisites the registry currently listens to.
+     *
+     * @return the number of attached requisites listeners
+     */
+    int getAttachedRequisitesListenerCount() {
+        return attachedRequisitesListeners;
+    }
+
     /**
      * Get all the {@link Course}s in the registry.
      *
@@ -112,6 +276,26 @@ public class CourseRegistry {
         return courseIdMap.values();
     }
 
+    /**
+     * Get a copy of all the {@link Course}s in the registry, unaffected by later changes of the registry.
+     *
+     * @return a new (may be empty) list of the courses
+     */
+    public List<Course> courseSnapshot() {
+        return new ArrayList<>(courseIdMap.values());
+    }
+
+    /**
+     * Get the version of the registry, incremented on every put or removal of a course. Can be used to tell
+     * whether data derived from the registry's courses is stale (changes of the courses themselves are not counted).
+     *
+     * @return the current version
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public int hashCode() {
         return new HashCodeBuilder(17, 37).append(courseIdMap).toHashCode();
@@ -133,4 +317,81 @@ public class CourseRegistry {
     public String toString() {
         return "CourseRegistry[" + courseIdMap.size() + ']';
     }
+
+    /**
+     * Keeps the reverse dependency index entries of one course in sync with its requisite lists.
+     */
+    private final class RequisitesListener implements Course.RequisitesObserver {
+
+        private final Course dependent;
+        private Set<Course> requisites = Collections.emptySet();
+
+        /**
+         * Create a listener.
+         *
+         * @param dependent the course whose requisites are indexed
+         */
+        private RequisitesListener(Course dependent) {
+            this.dependent = dependent;
+        }
+
+        @Override
+        public void requisitesChanged() {
+            if (dependentsIndex != null && requisitesListeners.get(dependent) == this) { // not stopped meanwhile
+                update();
+            }
+        }
+
+        @Override
+        public void idChanged() {
+            dropDependentsIndex();
+        }
+
+        /**
+         * Re-index the current requisites of the course, touching only the entries that changed.
+         */
+        private void update() {
+            Set<Course> current = new HashSet<>();
+            if (dependent.getPrerequisites() != null) {
+                current.addAll(dependent.getPrerequisites());
+            }
+            if (dependent.getCorequisites() != null) {
+                current.addAll(dependent.getCorequisites());
+            }
+            for (Course requisite : requisites) {
+                if (!current.contains(requisite)) {
+                    removeEntry(requisite);
+                }
+            }
+            for (Course requisite : current) {
+                if (!requisites.contains(requisite)) {
+                    dependentsIndex.computeIfAbsent(requisite, r -> new HashSet<>()).add(dependent);
+                }
+            }
+            requisites = current;
+        }
+
+        /**
+         * Remove all the index entries of the course.
+         */
+        private void clear() {
+            requisites.forEach(this::removeEntry);
+            requisites = Collections.emptySet();
+        }
+
+        /**
+         * Remove the course from the dependents of the requisite.
+         *
+         * @param requisite the requisite
+         */
+        private void removeEntry(Course requisite) {
+            Set<Course> dependents = dependentsIndex.get(requisite);
+            if (dependents != null) {
+                dependents.remove(dependent);
+                if (dependents.isEmpty()) {
+                    dependentsIndex.remove(requisite);
+                }
+            }
+        }
+    }
 }
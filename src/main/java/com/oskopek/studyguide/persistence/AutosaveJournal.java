@@ -0,0 +1,1143 @@
+package com.oskopek.studyguide.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.SemesterPlan;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.CourseRegistry;
+import com.oskopek.studyguide.model.courses.Credits;
+import com.oskopek.studyguide.model.courses.EnrollableIn;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Autosaves the current study plan in the background: the edits of the plan are appended as compact records
+ * to a journal, which is periodically compacted into a full snapshot of the plan.
+ * <p>
+ * The edits of the semesters are recorded as they happen, from the change events of the semester list, the
+ * semester names and the enrollment lists: a record adds, removes or reorders a range of semesters or enrollments,
+ * or renames a semester, addressing them by their position. The other changes are coalesced like in
+ * {@link com.oskopek.studyguide.model.constraints.RecheckScheduler}: the first change of a batch dispatches
+ * a flush, which records the final state of every changed course (one record per course), the recorded edits,
+ * the fulfilled flag of every changed enrollment and the courses removed from the registry, in this order, so that
+ * every record refers to courses and positions valid when it is replayed. A flush costs time proportional to the
+ * edits, not to the plan, and the records are written on a background thread.
+ * <p>
+ * The journal is compacted once it grows larger than the snapshot, so that the replay never reads more than
+ * twice the size of the plan. Compaction runs on the background thread too: it reads the snapshot, replays the
+ * journal on it and writes the result as a new snapshot. The live plan is only serialized when it is attached.
+ * <p>
+ * Snapshots are numbered by a generation, and the journal starts with a header naming the generation it
+ * continues. A crash during compaction therefore never replays an old journal over a newer snapshot.
+ * After a crash, {@link #recover()} reads the latest snapshot and replays the journal. On a clean exit, the
+ * autosave is {@link #discard() discarded}.
+ */
+public class AutosaveJournal {
+
+    private static final String journalFileName = "journal.log";
+    private static final String headerPrefix = "{\"type\":\"header\",\"generation\":";
+    private static final Pattern snapshotFileName = Pattern.compile("snapshot-(\\d+)\\.json");
+    private static final int minimumCompactionSize = 64 * 1024;
+
+    private static final ExecutorService defaultWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "AutosaveJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ObjectMapper recordMapper = new ObjectMapper();
+    private final Path directory;
+    private final JsonDataReaderWriter readerWriter;
+    private final EventBus eventBus;
+    private final Executor dispatcher;
+    private final Executor writer;
+
+    private final ListChangeListener<Semester> semesterListListener = this::semesterListChanged;
+    private final Map<Semester, SemesterObserver> observed = new IdentityHashMap<>();
+
+    private StudyPlan plan;
+    private long registryVersion;
+    private volatile long snapshotSize;
+    private long journalSize;
+    private Map<Course, String> journaledIds = new IdentityHashMap<>();
+
+    private final Set<Course> pendingCourses = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<CourseEnrollment> pendingEnrollments = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Supplier<ObjectNode>> pendingEdits = new ArrayList<>();
+    private boolean scheduled;
+
+    /**
+     * Create a journal that flushes the changes on the JavaFX Application Thread and writes them on a shared
+     * background thread.
+     *
+     * @param directory the directory to keep the autosave in, created if it does not exist
+     * @param readerWriter the reader and writer of the snapshots
+     * @param eventBus the bus the model posts its changes on, the journal registers itself on it
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public AutosaveJournal(Path directory, JsonDataReaderWriter readerWriter, EventBus eventBus)
+            throws IllegalArgumentException {
+        this(directory, readerWriter, eventBus, Platform::runLater, defaultWriter);
+    }
+
+    /**
+     * Create a journal.
+     *
+     * @param directory the directory to keep the autosave in, created if it does not exist
+     * @param readerWriter the reader and writer of the snapshots
+     * @param eventBus the bus the model posts its changes on, the journal registers itself on it
+     * @param dispatcher the executor on which the changes are flushed, the thread the model is changed on
+     * @param writer the executor on which the files are written, must run the writes in order (single threaded)
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public AutosaveJournal(Path directory, JsonDataReaderWriter readerWriter, EventBus eventBus, Executor dispatcher,
+            Executor writer) throws IllegalArgumentException {
+        if (directory == null || readerWriter == null || eventBus == null || dispatcher == null || writer == null) {
+            throw new IllegalArgumentException("The directory, reader/writer, event bus and executors cannot be null.");
+        }
+        this.directory = directory;
+        this.readerWriter = readerWriter;
+        this.eventBus = eventBus;
+        this.dispatcher = dispatcher;
+        this.writer = writer;
+        eventBus.register(this);
+    }
+
+    /**
+     * Create the journal in the user's configuration directory ({@code ~/.studyguide/autosave}). Snapshots are
+     * written as compact JSON.
+     *
+     * @param messages the message resource bundle to inject into recovered plans
+     * @param eventBus the bus the model posts its changes on
+     * @return the journal
+     */
+    public static AutosaveJournal createDefault(ResourceBundle messages, EventBus eventBus) {
+        return new AutosaveJournal(Paths.get(System.getProperty("user.home"), ".studyguide", "autosave"),
+                new JsonDataReaderWriter(messages, eventBus, false), eventBus);
+    }
+
+    /**
+     * Start autosaving the plan, instead of the previous one. Serializes the plan in the calling thread and
+     * writes it as a new snapshot in the background.
+     *
+     * @param plan the plan to autosave, or null to stop autosaving
+     */
+    public void attach(StudyPlan plan) {
+        if (this.plan != null) {
+            this.plan.getSemesterPlan().semesterListProperty().removeListener(semesterListListener);
+        }
+        observed.values().forEach(SemesterObserver::stop);
+        observed.clear();
+        synchronized (this) {
+            pendingCourses.clear();
+            pendingEnrollments.clear();
+            pendingEdits.clear();
+        }
+        this.plan = plan;
+        if (plan == null) {
+            return;
+        }
+        plan.getSemesterPlan().semesterListProperty().addListener(semesterListListener);
+        plan.getSemesterPlan().forEach(this::observe);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        try {
+            readerWriter.writeTo(plan, snapshot);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize the plan snapshot.", e);
+        }
+        journaledIds = new IdentityHashMap<>(plan.getCourseRegistry().courseMapValues().size());
+        plan.getCourseRegistry().courseMapValues().forEach(c -> journaledIds.put(c, c.getId()));
+        registryVersion = plan.getCourseRegistry().getVersion();
+        snapshotSize = snapshot.size();
+        journalSize = 0L;
+        byte[] snapshotBytes = snapshot.toByteArray();
+        writer.execute(() -> {
+            try {
+                writeSnapshot(Math.max(latestSnapshotGeneration(), 0L) + 1, snapshotBytes);
+            } catch (IOException e) {
+                logger.error("Failed to write the autosave snapshot to {}: {}", directory, e);
+            }
+        });
+    }
+
+    /**
+     * An {@link EventBus} subscriber, listening for changes in a {@link Course}.
+     *
+     * @param changed the changed course posted on the bus
+     */
+    @Subscribe
+    public void onCourseChange(Course changed) {
+        synchronized (this) {
+            pendingCourses.add(changed);
+        }
+        changed();
+    }
+
+    /**
+     * An {@link EventBus} subscriber, listening for changes in a {@link CourseEnrollment}.
+     *
+     * @param changed the changed course enrollment posted on the bus
+     */
+    @Subscribe
+    public void onCourseEnrollmentChange(CourseEnrollment changed) {
+        synchronized (this) {
+            pendingEnrollments.add(changed);
+        }
+        changed();
+    }
+
+    /**
+     * Queue the record of an edit, to be built and written by the next flush.
+     *
+     * @param record builds the record, called by the flush (so that it refers to the courses by their ids then)
+     */
+    private void edited(Supplier<ObjectNode> record) {
+        synchronized (this) {
+            pendingEdits.add(record);
+        }
+        changed();
+    }
+
+    /**
+     * Dispatch a flush, unless one is already pending.
+     */
+    private void changed() {
+        synchronized (this) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        dispatcher.execute(this::flush);
+    }
+
+    /**
+     * Record the pending changes now, in the calling thread (the one the model is changed on). The records
+     * are written in the background, where the journal is also compacted if it grew too large.
+     */
+    public void flush() {
+        List<Course> courses;
+        List<CourseEnrollment> enrollments;
+        List<Supplier<ObjectNode>> edits;
+        synchronized (this) {
+            if (!scheduled) {
+                return;
+            }
+            courses = new ArrayList<>(pendingCourses);
+            enrollments = new ArrayList<>(pendingEnrollments);
+            edits = new ArrayList<>(pendingEdits);
+            pendingCourses.clear();
+            pendingEnrollments.clear();
+            pendingEdits.clear();
+            scheduled = false;
+        }
+        if (plan == null) {
+            return;
+        }
+        List<Course> removedCourses = new ArrayList<>();
+        List<Course> changedCourses = new ArrayList<>();
+        for (Course course : courses) {
+            if (journaledIds.containsKey(course)) {
+                changedCourses.add(course); // new courses are found below
+            }
+        }
+        if (plan.getCourseRegistry().getVersion() != registryVersion) {
+            registryVersion = plan.getCourseRegistry().getVersion();
+            Set<Course> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+            registered.addAll(plan.getCourseRegistry().courseMapValues());
+            for (Course course : registered) {
+                if (!journaledIds.containsKey(course)) {
+                    changedCourses.add(course);
+                }
+            }
+            for (Course course : journaledIds.keySet()) {
+                if (!registered.contains(course)) {
+                    removedCourses.add(course);
+                }
+            }
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        try {
+            writeCourseRecords(records, changedCourses);
+            for (Supplier<ObjectNode> edit : edits) {
+                writeRecord(records, edit.get());
+            }
+            for (CourseEnrollment enrollment : enrollments) {
+                ObjectNode record = fulfilledRecord(enrollment);
+                if (record != null) {
+                    writeRecord(records, record);
+                }
+            }
+            for (Course course : removedCourses) {
+                String id = journaledIds.remove(course);
+                Course registered = plan.getCourseRegistry().getCourse(id);
+                if (registered == null || !journaledIds.containsKey(registered)) { // else replaced by a new course
+                    writeRecord(records, recordMapper.createObjectNode().put("type", "courseRemoved").put("id", id));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to build the journal records.", e);
+        }
+        if (records.size() == 0) {
+            return;
+        }
+        journalSize += records.size();
+        boolean compact = journalSize > Math.max(snapshotSize, minimumCompactionSize);
+        if (compact) {
+            logger.debug("Journal ({} B) larger than the snapshot ({} B), compacting it.", journalSize, snapshotSize);
+            journalSize = 0L;
+        }
+        byte[] bytes = records.toByteArray();
+        Path journal = directory.resolve(journalFileName);
+        writer.execute(() -> {
+            try {
+                Files.write(journal, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                logger.error("Failed to append to the autosave journal {}: {}", journal, e);
+            }
+            if (compact) {
+                compact();
+            }
+        });
+    }
+
+    /**
+     * Replace the journal by a snapshot: the latest snapshot with the journal replayed on it. Runs on the writer
+     * thread and does not touch the live plan. The replayed plan gets its own event bus.
+     */
+    private void compact() {
+        try {
+            long latest = latestSnapshotGeneration();
+            if (latest < 0) {
+                return;
+            }
+            EventBus compactionEventBus = new EventBus();
+            StudyPlan replayed = readerWriter.withEventBus(compactionEventBus)
+                    .readFrom(directory.resolve("snapshot-" + latest + ".json").toString());
+            replayJournal(replayed, latest, compactionEventBus);
+            ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+            readerWriter.writeTo(replayed, snapshot);
+            writeSnapshot(latest + 1, snapshot.toByteArray());
+        } catch (IOException e) {
+            logger.error("Failed to compact the autosave journal in {}: {}", directory, e);
+        }
+    }
+
+    /**
+     * Write the snapshot and start a new journal continuing it, then delete the older snapshots. Runs on the
+     * writer thread.
+     *
+     * @param snapshotGeneration the generation of the snapshot
+     * @param snapshotBytes the serialized plan
+     * @throws IOException if the files failed to write
+     */
+    private void writeSnapshot(long snapshotGeneration, byte[] snapshotBytes) throws IOException {
+        Files.createDirectories(directory);
+        writeAtomically(directory.resolve("snapshot-" + snapshotGeneration + ".json"), snapshotBytes);
+        writeAtomically(directory.resolve(journalFileName),
+                (headerPrefix + snapshotGeneration + "}\n").getBytes(StandardCharsets.UTF_8));
+        deleteSnapshotsBefore(snapshotGeneration);
+        snapshotSize = snapshotBytes.length;
+        logger.debug("Wrote autosave snapshot {} ({} B).", snapshotGeneration, snapshotBytes.length);
+    }
+
+    /**
+     * Wait until all the writes dispatched so far are done.
+     */
+    public void awaitWrites() {
+        CompletableFuture.runAsync(() -> { }, writer).join();
+    }
+
+    /**
+     * Stop autosaving and delete the autosave. Blocks until it is deleted. Used on a clean exit.
+     */
+    public void discard() {
+        attach(null);
+        CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(directory.resolve(journalFileName));
+                deleteSnapshotsBefore(Long.MAX_VALUE);
+            } catch (IOException e) {
+                logger.error("Failed to delete the autosave in {}: {}", directory, e);
+            }
+        }, writer).join();
+    }
+
+    /**
+     * Read the latest snapshot and replay the journal on it. Call before attaching a plan.
+     *
+     * @return the recovered plan, or null if there is no autosave
+     * @throws IOException if the snapshot failed to read
+     */
+    public StudyPlan recover() throws IOException {
+        long latest = latestSnapshotGeneration();
+        if (latest < 0) {
+            return null;
+        }
+        StudyPlan recovered = readerWriter.readFrom(directory.resolve("snapshot-" + latest + ".json").toString());
+        int replayed = replayJournal(recovered, latest, eventBus);
+        logger.info("Recovered the autosaved plan: snapshot {} and {} journal records.", latest, replayed);
+        return recovered;
+    }
+
+    /**
+     * Replay the journal on the plan read from the snapshot, if the journal continues the snapshot.
+     *
+     * @param plan the plan read from the snapshot
+     * @param snapshotGeneration the generation of the snapshot
+     * @param planEventBus the event bus to attach to the added courses and enrollments
+     * @return the number of replayed records
+     * @throws IOException if the journal failed to read
+     */
+    private int replayJournal(StudyPlan plan, long snapshotGeneration, EventBus planEventBus) throws IOException {
+        Path journal = directory.resolve(journalFileName);
+        if (!Files.isRegularFile(journal)) {
+            return 0;
+        }
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line == null || !line.equals(headerPrefix + snapshotGeneration + "}")) {
+                logger.info("Autosave journal does not continue snapshot {}, not replaying it.", snapshotGeneration);
+                return 0;
+            }
+            while ((line = reader.readLine()) != null) {
+                JsonNode record;
+                try {
+                    record = recordMapper.readTree(line);
+                } catch (JsonProcessingException e) { // the last record may be torn by the crash
+                    logger.warn("Stopped replaying the autosave journal at a broken record: {}", e.getMessage());
+                    break;
+                }
+                replay(plan, record, planEventBus);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Start recording the edits of the semester: renaming it and adding, removing or reordering its enrollments.
+     *
+     * @param semester a semester of the plan
+     */
+    private void observe(Semester semester) {
+        if (!observed.containsKey(semester)) {
+            observed.put(semester, new SemesterObserver(semester));
+        }
+    }
+
+    /**
+     * Stop recording the edits of the semester.
+     *
+     * @param semester a semester removed from the plan
+     */
+    private void unobserve(Semester semester) {
+        SemesterObserver observer = observed.remove(semester);
+        if (observer != null) {
+            observer.stop();
+        }
+    }
+
+    /**
+     * Record the changes of the semester list: one record per replaced range (or permutation) of semesters.
+     * The added semesters are recorded with their enrollments.
+     *
+     * @param change the change of the semester list
+     */
+    private void semesterListChanged(ListChangeListener.Change<? extends Semester> change) {
+        while (change.next()) {
+            int from = change.getFrom();
+            if (change.wasPermutated()) {
+                int[] order = permutation(change);
+                edited(() -> permutationRecord(null, from, order));
+                continue;
+            } else if (!change.wasAdded() && !change.wasRemoved()) {
+                continue;
+            }
+            change.getRemoved().forEach(this::unobserve);
+            int removed = change.getRemovedSize();
+            List<String> names = new ArrayList<>();
+            List<List<Map.Entry<Course, Boolean>>> enrollments = new ArrayList<>();
+            for (Semester semester : change.getAddedSubList()) {
+                names.add(semester.getName());
+                enrollments.add(enrollmentStates(semester.getCourseEnrollmentList()));
+                observe(semester);
+            }
+            edited(() -> {
+                ObjectNode record = rangeRecord("semesterList", from, removed);
+                ArrayNode added = record.putArray("added");
+                for (int i = 0; i < names.size(); i++) {
+                    ObjectNode semesterNode = added.addObject().put("name", names.get(i));
+                    putEnrollments(semesterNode.putArray("enrollments"), enrollments.get(i));
+                }
+                return record;
+            });
+        }
+    }
+
+    /**
+     * Record the changes of the enrollment list of a semester: one record per replaced range (or permutation).
+     *
+     * @param semester the semester
+     * @param change the change of its enrollment list
+     */
+    private void enrollmentListChanged(Semester semester,
+            ListChangeListener.Change<? extends CourseEnrollment> change) {
+        int semesterIndex = semesterIndex(semester);
+        if (semesterIndex < 0) {
+            return;
+        }
+        while (change.next()) {
+            int from = change.getFrom();
+            if (change.wasPermutated()) {
+                int[] order = permutation(change);
+                edited(() -> permutationRecord(semesterIndex, from, order));
+                continue;
+            } else if (!change.wasAdded() && !change.wasRemoved()) {
+                continue;
+            }
+            int removed = change.getRemovedSize();
+            List<Map.Entry<Course, Boolean>> added = enrollmentStates(change.getAddedSubList());
+            edited(() -> {
+                ObjectNode record = rangeRecord("enrollmentList", from, removed).put("semester", semesterIndex);
+                putEnrollments(record.putArray("added"), added);
+                return record;
+            });
+        }
+    }
+
+    /**
+     * Record the new name of the semester.
+     *
+     * @param semester the renamed semester
+     */
+    private void semesterRenamed(Semester semester) {
+        int semesterIndex = semesterIndex(semester);
+        String name = semester.getName(); // also validates the name property again
+        if (semesterIndex >= 0) {
+            edited(() -> recordMapper.createObjectNode().put("type", "semesterName").put("semester", semesterIndex)
+                    .put("name", name));
+        }
+    }
+
+    /**
+     * Find the position of this exact semester instance in the plan.
+     *
+     * @param semester the semester
+     * @return the position, or -1 if it is not in the plan
+     */
+    private int semesterIndex(Semester semester) {
+        SemesterPlan semesterPlan = plan.getSemesterPlan();
+        int index = semesterPlan.indexOf(semester);
+        return index >= 0 && semesterPlan.getSemesterList().get(index) == semester ? index : -1; // not just equal
+    }
+
+    /**
+     * Get the new positions of the permuted range.
+     *
+     * @param change the permutation change
+     * @return the new position of every element of the range, in the order of the old positions
+     */
+    private static int[] permutation(ListChangeListener.Change<?> change) {
+        int[] order = new int[change.getTo() - change.getFrom()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = change.getPermutation(change.getFrom() + i);
+        }
+        return order;
+    }
+
+    /**
+     * Capture the courses and fulfilled flags of the enrollments.
+     *
+     * @param enrollments the enrollments
+     * @return the course and fulfilled flag of every enrollment, in order
+     */
+    private static List<Map.Entry<Course, Boolean>> enrollmentStates(List<? extends CourseEnrollment> enrollments) {
+        List<Map.Entry<Course, Boolean>> states = new ArrayList<>(enrollments.size());
+        for (CourseEnrollment enrollment : enrollments) {
+            states.add(new AbstractMap.SimpleImmutableEntry<>(enrollment.getCourse(), enrollment.isFulfilled()));
+        }
+        return states;
+    }
+
+    /**
+     * Build a record replacing a range of a list.
+     *
+     * @param type the type of the record
+     * @param from the start of the range
+     * @param removed the number of removed elements at the start, the added ones are inserted there
+     * @return the record
+     */
+    private ObjectNode rangeRecord(String type, int from, int removed) {
+        return recordMapper.createObjectNode().put("type", type).put("from", from).put("removed", removed);
+    }
+
+    /**
+     * Build a record of a permutation of a range of the semester list or of an enrollment list.
+     *
+     * @param semesterIndex the position of the semester whose enrollments were permuted, or null for the semesters
+     * @param from the start of the range
+     * @param order the new positions of the range
+     * @return the record
+     */
+    private ObjectNode permutationRecord(Integer semesterIndex, int from, int[] order) {
+        ObjectNode record = recordMapper.createObjectNode().put("type", "permutation");
+        if (semesterIndex != null) {
+            record.put("semester", semesterIndex);
+        }
+        record.put("from", from);
+        ArrayNode orderNode = record.putArray("order");
+        for (int position : order) {
+            orderNode.add(position);
+        }
+        return record;
+    }
+
+    /**
+     * Add the enrollments to the array, referring to their courses by the current ids.
+     *
+     * @param array the array to add to
+     * @param enrollments the courses and fulfilled flags of the enrollments
+     */
+    private static void putEnrollments(ArrayNode array, List<Map.Entry<Course, Boolean>> enrollments) {
+        for (Map.Entry<Course, Boolean> enrollment : enrollments) {
+            array.addObject().put("course", enrollment.getKey().getId()).put("fulfilled", enrollment.getValue());
+        }
+    }
+
+    /**
+     * Build the record of the fulfilled flag of the enrollment, addressed by its current position.
+     *
+     * @param enrollment the enrollment
+     * @return the record, or null if the enrollment is not in the plan
+     */
+    private ObjectNode fulfilledRecord(CourseEnrollment enrollment) {
+        int semesterIndex = semesterIndex(enrollment.getSemester());
+        if (semesterIndex < 0) {
+            return null;
+        }
+        List<CourseEnrollment> enrollments = enrollment.getSemester().getCourseEnrollmentList();
+        for (int i = 0; i < enrollments.size(); i++) {
+            if (enrollments.get(i) == enrollment) {
+                return recordMapper.createObjectNode().put("type", "fulfilled").put("semester", semesterIndex)
+                        .put("index", i).put("fulfilled", enrollment.isFulfilled());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the records of the courses, requisites first. A course requiring a course recorded after it (in a cycle
+     * of requisites) is recorded once more at the end, so that the replay resolves all its requisites.
+     *
+     * @param outputStream the stream to write to
+     * @param courses the changed and the new courses
+     * @throws IOException if the records failed to write
+     */
+    private void writeCourseRecords(OutputStream outputStream, List<Course> courses) throws IOException {
+        Set<Course> unwritten = Collections.newSetFromMap(new IdentityHashMap<>());
+        unwritten.addAll(courses);
+        List<Course> ordered = new ArrayList<>(courses.size());
+        Set<Course> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        courses.forEach(course -> requisitesFirst(course, unwritten, visited, ordered));
+        List<Course> again = new ArrayList<>();
+        for (Course course : ordered) {
+            boolean added = !journaledIds.containsKey(course);
+            unwritten.remove(course);
+            writeRecord(outputStream, courseRecord(course, added));
+            journaledIds.put(course, course.getId());
+            if (course.getPrerequisites().stream().anyMatch(unwritten::contains)
+                    || course.getCorequisites().stream().anyMatch(unwritten::contains)) {
+                again.add(course);
+            }
+        }
+        for (Course course : again) {
+            writeRecord(outputStream, courseRecord(course, false));
+        }
+    }
+
+    /**
+     * Add the course to the order after its requisites, if it is one of the courses to order.
+     *
+     * @param course the course
+     * @param courses the courses to order
+     * @param visited the courses visited so far
+     * @param ordered the order to add to
+     */
+    private static void requisitesFirst(Course course, Set<Course> courses, Set<Course> visited,
+            List<Course> ordered) {
+        if (!courses.contains(course) || !visited.add(course)) {
+            return;
+        }
+        course.getPrerequisites().forEach(c -> requisitesFirst(c, courses, visited, ordered));
+        course.getCorequisites().forEach(c -> requisitesFirst(c, courses, visited, ordered));
+        ordered.add(course);
+    }
+
+    /**
+     * Build the record of the current state of the course.
+     *
+     * @param course the course
+     * @param added whether the course was added to the registry (replacing any course with the same id)
+     * @return the record
+     */
+    private ObjectNode courseRecord(Course course, boolean added) {
+        ObjectNode record = recordMapper.createObjectNode();
+        record.put("type", "course");
+        String previousId = journaledIds.get(course);
+        if (previousId != null && !previousId.equals(course.getId())) {
+            record.put("previousId", previousId);
+        }
+        if (added) {
+            record.put("added", true);
+        }
+        record.put("id", course.getId());
+        record.put("name", course.getName());
+        record.put("localizedName", course.getLocalizedName());
+        record.put("locale", course.getLocale() == null ? null : course.getLocale().toLanguageTag());
+        record.put("credits", course.getCredits().getCreditValue());
+        record.put("enrollableIn", course.getEnrollableIn() == null ? null : course.getEnrollableIn().name());
+        ArrayNode teacherNames = record.putArray("teacherNames");
+        course.getTeacherNames().forEach(teacherNames::add);
+        ArrayNode prerequisites = record.putArray("prerequisites");
+        course.getPrerequisites().forEach(c -> prerequisites.add(c.getId()));
+        ArrayNode corequisites = record.putArray("corequisites");
+        course.getCorequisites().forEach(c -> corequisites.add(c.getId()));
+        return record;
+    }
+
+    /**
+     * Write the record as a line.
+     *
+     * @param outputStream the stream to write to
+     * @param record the record
+     * @throws IOException if the record failed to write
+     */
+    private void writeRecord(OutputStream outputStream, JsonNode record) throws IOException {
+        outputStream.write(recordMapper.writeValueAsBytes(record));
+        outputStream.write('\n');
+    }
+
+    /**
+     * Apply the journal record to the plan.
+     *
+     * @param plan the recovered plan
+     * @param record the record
+     * @param planEventBus the event bus to attach to the added courses and enrollments
+     */
+    private void replay(StudyPlan plan, JsonNode record, EventBus planEventBus) {
+        switch (record.path("type").asText()) {
+            case "course":
+                replayCourse(plan.getCourseRegistry(), record, planEventBus);
+                break;
+            case "courseRemoved":
+                replayCourseRemoved(plan, record);
+                break;
+            case "semesterList":
+                replaySemesterList(plan, record, planEventBus);
+                break;
+            case "semesterName":
+                Semester renamed = semesterAt(plan, record);
+                if (renamed != null) {
+                    renamed.setName(record.get("name").asText());
+                }
+                break;
+            case "enrollmentList":
+                replayEnrollmentList(plan, record, planEventBus);
+                break;
+            case "permutation":
+                replayPermutation(plan, record);
+                break;
+            case "fulfilled":
+                Semester semester = semesterAt(plan, record);
+                int index = record.get("index").asInt();
+                if (semester != null && index < semester.getCourseEnrollmentList().size()) {
+                    semester.getCourseEnrollmentList().get(index).setFulfilled(record.get("fulfilled").asBoolean());
+                } else {
+                    logger.warn("Skipping an autosave journal record of a missing enrollment: {}", record);
+                }
+                break;
+            default:
+                logger.warn("Skipping an unknown autosave journal record: {}", record);
+        }
+    }
+
+    /**
+     * Set the recorded state of the course, or add the course if it is not in the registry or was recorded as
+     * added. A renamed course is re-keyed in the registry, so that the following records find it by the new id.
+     *
+     * @param registry the registry of the recovered plan
+     * @param record the course record
+     * @param planEventBus the event bus to attach to an added course
+     */
+    private void replayCourse(CourseRegistry registry, JsonNode record, EventBus planEventBus) {
+        String id = record.get("id").asText();
+        Course course = record.hasNonNull("previousId") ? registry.getCourse(record.get("previousId").asText()) : null;
+        if (course == null && !record.path("added").asBoolean()) {
+            course = registry.getCourse(id);
+        }
+        String localizedName = textOrNull(record.get("localizedName"));
+        String localeTag = textOrNull(record.get("locale"));
+        Locale locale = localeTag == null ? null : Locale.forLanguageTag(localeTag);
+        int credits = record.get("credits").asInt();
+        String enrollableIn = textOrNull(record.get("enrollableIn"));
+        List<String> teacherNames = new ArrayList<>();
+        record.get("teacherNames").forEach(n -> teacherNames.add(n.asText()));
+        List<Course> prerequisites = resolveCourses(registry, record.get("prerequisites"));
+        List<Course> corequisites = resolveCourses(registry, record.get("corequisites"));
+        if (course == null) {
+            course = new Course(id, record.get("name").asText(), localizedName, locale, Credits.valueOf(credits),
+                    enrollableIn == null ? null : EnrollableIn.valueOf(enrollableIn), teacherNames, prerequisites,
+                    corequisites);
+            course.attachEventBus(planEventBus);
+            registry.putCourseSimple(course);
+            return;
+        }
+        if (!course.getId().equals(id)) {
+            registry.renameCourse(course, id);
+        }
+        course.setName(record.get("name").asText());
+        course.setLocale(locale);
+        course.setLocalizedName(localizedName);
+        if (course.getCredits().getCreditValue() != credits) {
+            course.getCredits().setCreditValue(credits);
+        }
+        course.setEnrollableIn(enrollableIn == null ? null : EnrollableIn.valueOf(enrollableIn));
+        course.setTeacherNames(teacherNames);
+        course.setPrerequisites(prerequisites);
+        course.setCorequisites(corequisites);
+    }
+
+    /**
+     * Remove the course from the registry (and so from the requisites of other courses) and from the course
+     * groups, like {@link com.oskopek.studyguide.model.DefaultStudyPlan#removeCourse(Course)}. Its enrollments
+     * were removed by the preceding records.
+     *
+     * @param plan the recovered plan
+     * @param record the course removal record
+     */
+    private void replayCourseRemoved(StudyPlan plan, JsonNode record) {
+        Course course = plan.getCourseRegistry().getCourse(record.get("id").asText());
+        if (course == null) {
+            logger.warn("Skipping the removal of an unknown course: {}", record);
+            return;
+        }
+        plan.getCourseRegistry().removeCourse(course);
+        plan.getConstraints().getCourseGroupConstraintList()
+                .forEach(constraint -> constraint.getCourseGroup().courseListProperty().remove(course));
+    }
+
+    /**
+     * Replace the recorded range of semesters. The constraints of the enrollments of the removed semesters are
+     * removed, like in {@link com.oskopek.studyguide.controller.SemesterController}.
+     *
+     * @param plan the recovered plan
+     * @param record the semester list record
+     * @param planEventBus the event bus to attach to the added enrollments
+     */
+    private void replaySemesterList(StudyPlan plan, JsonNode record, EventBus planEventBus) {
+        List<Semester> semesters = plan.getSemesterPlan().semesterListProperty();
+        int from = record.get("from").asInt();
+        int removed = record.get("removed").asInt();
+        if (from + removed > semesters.size()) {
+            logger.warn("Skipping an autosave journal record of missing semesters: {}", record);
+            return;
+        }
+        List<CourseEnrollment> droppedEnrollments = new ArrayList<>();
+        semesters.subList(from, from + removed).forEach(s -> droppedEnrollments.addAll(s.getCourseEnrollmentList()));
+        List<Semester> added = new ArrayList<>();
+        for (JsonNode semesterNode : record.get("added")) {
+            Semester semester = new Semester(semesterNode.get("name").asText());
+            semester.getCourseEnrollmentList().setAll(
+                    replayEnrollments(plan, semester, semesterNode.get("enrollments"), planEventBus));
+            added.add(semester);
+        }
+        semesters.subList(from, from + removed).clear();
+        semesters.addAll(from, added);
+        removeEnrollmentConstraints(plan, droppedEnrollments);
+    }
+
+    /**
+     * Replace the recorded range of enrollments of a semester. Added enrollments get new constraints,
+     * constraints of removed ones are removed (a moved enrollment is replayed as a removal and an addition).
+     *
+     * @param plan the recovered plan
+     * @param record the enrollment list record
+     * @param planEventBus the event bus to attach to the added enrollments
+     */
+    private void replayEnrollmentList(StudyPlan plan, JsonNode record, EventBus planEventBus) {
+        Semester semester = semesterAt(plan, record);
+        int from = record.get("from").asInt();
+        int removed = record.get("removed").asInt();
+        if (semester == null || from + removed > semester.getCourseEnrollmentList().size()) {
+            logger.warn("Skipping an autosave journal record of missing enrollments: {}", record);
+            return;
+        }
+        List<CourseEnrollment> range = semester.getCourseEnrollmentList().subList(from, from + removed);
+        List<CourseEnrollment> dropped = new ArrayList<>(range);
+        range.clear();
+        semester.getCourseEnrollmentList().addAll(from,
+                replayEnrollments(plan, semester, record.get("added"), planEventBus));
+        removeEnrollmentConstraints(plan, dropped);
+    }
+
+    /**
+     * Create the recorded enrollments, with their constraints. Enrollments of unknown courses are skipped.
+     *
+     * @param plan the recovered plan
+     * @param semester the semester of the enrollments
+     * @param enrollmentNodes the array of recorded enrollments
+     * @param planEventBus the event bus to attach to the enrollments
+     * @return the enrollments
+     */
+    private List<CourseEnrollment> replayEnrollments(StudyPlan plan, Semester semester, JsonNode enrollmentNodes,
+            EventBus planEventBus) {
+        List<CourseEnrollment> enrollments = new ArrayList<>();
+        for (JsonNode enrollmentNode : enrollmentNodes) {
+            String courseId = enrollmentNode.get("course").asText();
+            Course course = plan.getCourseRegistry().getCourse(courseId);
+            if (course == null) {
+                logger.warn("Skipping an enrollment of an unknown course {} in semester {}.", courseId,
+                        semester.getName());
+                continue;
+            }
+            CourseEnrollment enrollment = new CourseEnrollment(course, semester,
+                    enrollmentNode.get("fulfilled").asBoolean());
+            plan.getConstraints().addAllCourseEnrollmentConstraints(enrollment, plan.getSemesterPlan());
+            enrollment.attachEventBus(planEventBus);
+            enrollments.add(enrollment);
+        }
+        return enrollments;
+    }
+
+    /**
+     * Reorder the recorded range of the semester list or of an enrollment list.
+     *
+     * @param plan the recovered plan
+     * @param record the permutation record
+     */
+    private void replayPermutation(StudyPlan plan, JsonNode record) {
+        ObservableList<?> list;
+        if (record.has("semester")) {
+            Semester semester = semesterAt(plan, record);
+            list = semester == null ? null : semester.getCourseEnrollmentList();
+        } else {
+            list = plan.getSemesterPlan().semesterListProperty();
+        }
+        int from = record.get("from").asInt();
+        JsonNode order = record.get("order");
+        if (list == null || from + order.size() > list.size()) {
+            logger.warn("Skipping an autosave journal record of a permutation of missing elements: {}", record);
+            return;
+        }
+        permute(list, from, order);
+    }
+
+    /**
+     * Move every element of the range to its new position, in one change of the list.
+     *
+     * @param list the list
+     * @param from the start of the range
+     * @param order the new position of every element of the range
+     * @param <T> the type of the elements
+     */
+    private static <T> void permute(ObservableList<T> list, int from, JsonNode order) {
+        List<T> permuted = new ArrayList<>(list);
+        for (int i = 0; i < order.size(); i++) {
+            permuted.set(order.get(i).asInt(), list.get(from + i));
+        }
+        list.setAll(permuted);
+    }
+
+    /**
+     * Remove the constraints of the enrollments. Does not recheck the constraints, unlike
+     * {@link com.oskopek.studyguide.model.constraints.Constraints#removeAllCourseEnrollmentConstraints(Collection)}.
+     *
+     * @param plan the recovered plan
+     * @param enrollments the removed enrollments
+     */
+    private static void removeEnrollmentConstraints(StudyPlan plan, List<CourseEnrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        Set<CourseEnrollment> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+        dropped.addAll(enrollments);
+        plan.getConstraints().getCourseEnrollmentConstraintList()
+                .removeIf(constraint -> dropped.contains(constraint.getCourseEnrollment()));
+    }
+
+    /**
+     * Get the semester at the recorded position.
+     *
+     * @param plan the recovered plan
+     * @param record the record with the position of the semester
+     * @return the semester, or null if there is no semester at the position
+     */
+    private static Semester semesterAt(StudyPlan plan, JsonNode record) {
+        int index = record.get("semester").asInt();
+        List<Semester> semesters = plan.getSemesterPlan().getSemesterList();
+        return index < semesters.size() ? semesters.get(index) : null;
+    }
+
+    /**
+     * Look up the courses of the ids in the registry. Unknown ids are skipped.
+     *
+     * @param registry the registry
+     * @param ids the array of course ids
+     * @return the courses
+     */
+    private List<Course> resolveCourses(CourseRegistry registry, JsonNode ids) {
+        List<Course> courses = new ArrayList<>();
+        for (JsonNode id : ids) {
+            Course course = registry.getCourse(id.asText());
+            if (course == null) {
+                logger.warn("Skipping an unknown course {} referenced in the autosave journal.", id.asText());
+            } else {
+                courses.add(course);
+            }
+        }
+        return courses;
+    }
+
+    /**
+     * Get the text of the node.
+     *
+     * @param node the node, may be null
+     * @return the text, or null if the node is null or a null node
+     */
+    private static String textOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    /**
+     * Find the latest snapshot in the directory.
+     *
+     * @return the generation of the latest snapshot, or -1 if there is none
+     * @throws IOException if the directory failed to list
+     */
+    private long latestSnapshotGeneration() throws IOException {
+        long latest = -1L;
+        if (!Files.isDirectory(directory)) {
+            return latest;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.json")) {
+            for (Path file : files) {
+                Matcher matcher = snapshotFileName.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    latest = Math.max(latest, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Delete the snapshots older than the given generation.
+     *
+     * @param snapshotGeneration the generation of the snapshot to keep
+     * @throws IOException if the directory failed to list or a snapshot failed to delete
+     */
+    private void deleteSnapshotsBefore(long snapshotGeneration) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.json")) {
+            for (Path file : files) {
+                Matcher matcher = snapshotFileName.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) < snapshotGeneration) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the file atomically: readers see either the old or the new contents.
+     *
+     * @param file the file to write to
+     * @param contents the contents
+     * @throws IOException if the file failed to write
+     */
+    private static void writeAtomically(Path file, byte[] contents) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), "autosave", ".tmp");
+        try (OutputStream os = Files.newOutputStream(temporary)) {
+            os.write(contents);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Records the edits of one semester of the plan, from the time it is added to the plan until it is removed.
+     */
+    private final class SemesterObserver {
+
+        private final Semester semester;
+        private final ListChangeListener<CourseEnrollment> enrollmentListener;
+        private final InvalidationListener nameListener;
+
+        /**
+         * Start observing the semester.
+         *
+         * @param semester the semester
+         */
+        private SemesterObserver(Semester semester) {
+            this.semester = semester;
+            enrollmentListener = change -> enrollmentListChanged(semester, change);
+            nameListener = observable -> semesterRenamed(semester);
+            semester.courseEnrollmentListProperty().addListener(enrollmentListener);
+            semester.nameProperty().addListener(nameListener);
+        }
+
+        /**
+         * Stop observing the semester.
+         */
+        private void stop() {
+            semester.courseEnrollmentListProperty().removeListener(enrollmentListener);
+            semester.nameProperty().removeListener(nameListener);
+        }
+    }
+}
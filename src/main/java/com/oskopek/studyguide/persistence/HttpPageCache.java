@@ -0,0 +1,292 @@
+package com.oskopek.studyguide.persistence;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * A persistent cache of web pages (f.e. SIS course pages) fetched over HTTP.
+ * <p>
+ * Pages are cached on disk, keyed by their url, together with their {@code ETag} and {@code Last-Modified}
+ * headers. A cached page younger than the time to live is served without any request. An older one is revalidated
+ * with a conditional GET: if the server answers {@code 304 Not Modified}, the cached page is served (and is fresh
+ * again). In the offline mode, pages are only served from the cache, regardless of their age.
+ * <p>
+ * The cache can be shared by several threads, as long as they do not fetch the same url at the same time.
+ */
+public class HttpPageCache {
+
+    /**
+     * The default time for which a cached page is served without revalidating it.
+     */
+    public static final Duration defaultTimeToLive = Duration.ofDays(1);
+
+    /**
+     * The system property switching the default cache into the offline mode.
+     */
+    public static final String offlineProperty = "studyguide.offline";
+
+    private static final int timeoutMillis = 15000;
+    private static final int maxRedirects = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Path directory;
+    private final Duration timeToLive;
+    private final boolean offline;
+
+    /**
+     * Create a cache.
+     *
+     * @param directory the directory to store the pages in, created if it does not exist
+     * @param timeToLive the time for which a cached page is served without revalidating it
+     * @param offline if true, only serve cached pages and never connect
+     * @throws IllegalArgumentException if the directory or time to live is null or the time to live is negative
+     */
+    public HttpPageCache(Path directory, Duration timeToLive, boolean offline) throws IllegalArgumentException {
+        if (directory == null || timeToLive == null || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("Invalid cache directory (" + directory + ") or time to live ("
+                    + timeToLive + ").");
+        }
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.offline = offline;
+    }
+
+    /**
+     * Create the cache in the user's configuration directory ({@code ~/.studyguide/cache}), with the default time
+     * to live. It is offline if the {@value #offlineProperty} system property is {@code true}.
+     *
+     * @return the cache
+     */
+    public static HttpPageCache createDefault() {
+        return new HttpPageCache(Paths.get(System.getProperty("user.home"), ".studyguide", "cache"),
+                defaultTimeToLive, Boolean.getBoolean(offlineProperty));
+    }
+
+    /**
+     * Is the cache in the offline mode?
+     *
+     * @return true iff pages are only served from the cache
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Get the page at the url, from the cache if it is fresh or not modified, otherwise from the network.
+     * Follows redirects.
+     *
+     * @param url the url of the page
+     * @return the page
+     * @throws IOException if the page failed to download, or is not cached in the offline mode
+     */
+    public Page fetch(String url) throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("Url to fetch cannot be null.");
+        }
+        String key = Hashing.sha256().hashString(url, StandardCharsets.UTF_8).toString();
+        Path metadataFile = directory.resolve(key + ".properties");
+        Path bodyFile = directory.resolve(key + ".html");
+        Properties metadata = readMetadata(metadataFile);
+        if (metadata != null && !Files.isRegularFile(bodyFile)) {
+            metadata = null;
+        }
+        if (offline) {
+            if (metadata == null) {
+                throw new IOException("Page not cached, cannot fetch it in the offline mode: " + url);
+            }
+            logger.debug("Offline, serving cached page: {}", url);
+            return new Page(Files.readAllBytes(bodyFile), metadata.getProperty("contentEncoding"));
+        }
+        long now = System.currentTimeMillis();
+        if (metadata != null && now - Long.parseLong(metadata.getProperty("fetchedAt")) < timeToLive.toMillis()) {
+            logger.debug("Serving fresh cached page: {}", url);
+            return new Page(Files.readAllBytes(bodyFile), metadata.getProperty("contentEncoding"));
+        }
+
+        HttpURLConnection connection = connect(url, metadata);
+        try {
+            if (metadata != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                logger.debug("Cached page not modified: {}", url);
+                metadata.setProperty("fetchedAt", Long.toString(now));
+                writeMetadata(metadataFile, metadata);
+                return new Page(Files.readAllBytes(bodyFile), metadata.getProperty("contentEncoding"));
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Failed to fetch " + url + ": " + connection.getResponseCode() + " "
+                        + connection.getResponseMessage());
+            }
+            byte[] body;
+            try (InputStream is = connection.getInputStream()) {
+                body = ByteStreams.toByteArray(is);
+            }
+            Properties fetched = new Properties();
+            fetched.setProperty("url", url);
+            fetched.setProperty("fetchedAt", Long.toString(now));
+            setIfPresent(fetched, "etag", connection.getHeaderField("ETag"));
+            setIfPresent(fetched, "lastModified", connection.getHeaderField("Last-Modified"));
+            setIfPresent(fetched, "contentEncoding", connection.getContentEncoding());
+            Files.createDirectories(directory);
+            writeAtomically(bodyFile, body);
+            writeMetadata(metadataFile, fetched);
+            logger.debug("Downloaded and cached page: {}", url);
+            return new Page(body, connection.getContentEncoding());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Open a connection to the url, following redirects (also across protocols). Conditional if the page is cached.
+     *
+     * @param url the url
+     * @param metadata the metadata of the cached page, or null
+     * @return the connection, after receiving the response headers of the final url
+     * @throws IOException if the connection failed
+     */
+    private HttpURLConnection connect(String url, Properties metadata) throws IOException {
+        String location = url;
+        for (int redirects = 0; redirects <= maxRedirects; redirects++) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(location).openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setInstanceFollowRedirects(false);
+            if (metadata != null) {
+                if (metadata.getProperty("etag") != null) {
+                    connection.setRequestProperty("If-None-Match", metadata.getProperty("etag"));
+                }
+                if (metadata.getProperty("lastModified") != null) {
+                    connection.setRequestProperty("If-Modified-Since", metadata.getProperty("lastModified"));
+                }
+            }
+            switch (connection.getResponseCode()) {
+                case HttpURLConnection.HTTP_MOVED_PERM:
+                case HttpURLConnection.HTTP_MOVED_TEMP:
+                case HttpURLConnection.HTTP_SEE_OTHER:
+                    String next = connection.getHeaderField("Location");
+                    connection.disconnect();
+                    location = new URL(new URL(location), next).toExternalForm(); // deal with relative URLs
+                    continue;
+                default:
+                    return connection;
+            }
+        }
+        throw new IOException("Too many redirects when fetching: " + url);
+    }
+
+    /**
+     * Read the metadata of a cached page.
+     *
+     * @param metadataFile the file with the metadata
+     * @return the metadata, or null if the page is not cached
+     * @throws IOException if the metadata failed to read
+     */
+    private static Properties readMetadata(Path metadataFile) throws IOException {
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return metadata.getProperty("fetchedAt") == null ? null : metadata;
+    }
+
+    /**
+     * Write the metadata of a cached page, atomically.
+     *
+     * @param metadataFile the file to write to
+     * @param metadata the metadata
+     * @throws IOException if the metadata failed to write
+     */
+    private static void writeMetadata(Path metadataFile, Properties metadata) throws IOException {
+        Path temporary = Files.createTempFile(metadataFile.getParent(), "page", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            metadata.store(writer, null);
+        }
+        Files.move(temporary, metadataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the file atomically: readers see either the old or the new contents.
+     *
+     * @param file the file to write to
+     * @param contents the contents
+     * @throws IOException if the file failed to write
+     */
+    private static void writeAtomically(Path file, byte[] contents) throws IOException {
+        Path temporary = Files.createTempFile(file.getParent(), "page", ".tmp");
+        try (OutputStream os = Files.newOutputStream(temporary)) {
+            os.write(contents);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Set the property, unless the value is null.
+     *
+     * @param properties the properties to set
+     * @param key the key of the property
+     * @param value the value, or null
+     */
+    private static void setIfPresent(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    /**
+     * A fetched page.
+     */
+    public static final class Page {
+
+        private final byte[] body;
+        private final String encoding;
+
+        /**
+         * Create a page.
+         *
+         * @param body the contents of the page
+         * @param encoding the encoding the server reported, or null
+         */
+        private Page(byte[] body, String encoding) {
+            this.body = body;
+            this.encoding = encoding;
+        }
+
+        /**
+         * Open a stream of the contents of the page.
+         *
+         * @return a new stream
+         */
+        public InputStream openStream() {
+            return new ByteArrayInputStream(body);
+        }
+
+        /**
+         * Get the encoding reported by the server when the page was downloaded.
+         *
+         * @return the encoding, or null if it was not reported
+         */
+        public String getEncoding() {
+            return encoding;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.oskopek.studyguide.persistence;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -9,22 +11,33 @@ import com.oskopek.studyguide.model.DefaultStudyPlan;
 import com.oskopek.studyguide.model.StudyPlan;
 
 import java.io.*;
-import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.ResourceBundle;
+import java.util.UUID;
 
 /**
  * Reads and writes the {@link com.oskopek.studyguide.model.StudyPlan} to a JSON formatted file.
  * <p>
  * Specifics of the format can be found in the README(.adoc)
+ * <p>
+ * Plans are serialized straight to the stream (no intermediate string), optionally pretty-printed. Files are written
+ * atomically: into a temporary file first, which then replaces the target file.
  */
 public class JsonDataReaderWriter implements DataReader, DataWriter {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper;
+
+    private final ResourceBundle injectableMessages;
 
     private final EventBus injectableEventBus;
 
+    private final boolean prettyPrint;
+
     /**
      * Create an instance of the reader/writer, with all injectable values set to null.
      */
@@ -34,6 +47,7 @@ public class JsonDataReaderWriter implements DataReader, DataWriter {
 
     /**
      * Create an instance of the reader/writer, with the given parameters passed as injectable values to Jackson.
+     * Writes pretty-printed JSON.
      *
      * @param messages the message resource bundle to inject
      * @param eventBus the event bus to inject
@@ -41,23 +55,71 @@ public class JsonDataReaderWriter implements DataReader, DataWriter {
      * @see com.fasterxml.jackson.annotation.JacksonInject
      */
     public JsonDataReaderWriter(ResourceBundle messages, EventBus eventBus) {
+        this(messages, eventBus, true);
+    }
+
+    /**
+     * Create an instance of the reader/writer, with the given parameters passed as injectable values to Jackson.
+     *
+     * @param messages the message resource bundle to inject
+     * @param eventBus the event bus to inject
+     * @param prettyPrint whether to write indented JSON (or compact JSON)
+     * @see InjectableValues
+     * @see com.fasterxml.jackson.annotation.JacksonInject
+     */
+    public JsonDataReaderWriter(ResourceBundle messages, EventBus eventBus, boolean prettyPrint) {
+        this(new ObjectMapper(), messages, eventBus, prettyPrint);
+    }
+
+    /**
+     * Create an instance of the reader/writer of the format of the object mapper, with the given parameters passed
+     * as injectable values to Jackson.
+     *
+     * @param objectMapper the mapper to read and write plans with
+     * @param messages the message resource bundle to inject
+     * @param eventBus the event bus to inject
+     * @param prettyPrint whether to write indented output (only supported by text formats)
+     * @see InjectableValues
+     * @see com.fasterxml.jackson.annotation.JacksonInject
+     */
+    protected JsonDataReaderWriter(ObjectMapper objectMapper, ResourceBundle messages, EventBus eventBus,
+            boolean prettyPrint) {
+        this.objectMapper = objectMapper;
+        this.injectableMessages = messages;
         this.injectableEventBus = eventBus;
+        this.prettyPrint = prettyPrint;
         InjectableValues injectableValues = new InjectableValues.Std().addValue(ResourceBundle.class, messages)
                 .addValue(EventBus.class, eventBus);
         objectMapper.setInjectableValues(injectableValues);
     }
 
+    /**
+     * Create a reader/writer of the same format and with the same messages, which injects another event bus.
+     * Used to read plans that must not post their events (or the {@link StudyPlanLoadedEvent}) on this one's bus.
+     *
+     * @param eventBus the event bus to inject
+     * @return the new reader/writer
+     */
+    public JsonDataReaderWriter withEventBus(EventBus eventBus) {
+        return new JsonDataReaderWriter(objectMapper.copy(), injectableMessages, eventBus, prettyPrint);
+    }
+
     /**
      * Manually finish "injection" of the study plan itself into some of its objects (a final manual deserialization
-     * step).
+     * step). The event bus is attached to all courses and enrollments silently, followed by a single
+     * {@link StudyPlanLoadedEvent}.
      *
      * @param studyPlan the study plan to set
      * @return the updated study plan
      */
     private StudyPlan finalizeInjection(StudyPlan studyPlan) {
         studyPlan.getConstraints().allConstraintStream().forEach(c -> c.setSemesterPlan(studyPlan.getSemesterPlan()));
-        studyPlan.getCourseRegistry().courseMapValues().stream().forEach(c -> c.registerEventBus(injectableEventBus));
-        studyPlan.getSemesterPlan().allCourseEnrollments().forEach(c -> c.registerEventBus(injectableEventBus));
+        studyPlan.getConstraints().upgradeCourseEnrollmentConstraints();
+        studyPlan.getCourseRegistry().courseMapValues().stream().forEach(c -> c.attachEventBus(injectableEventBus));
+        studyPlan.getSemesterPlan().allCourseEnrollments().forEach(c -> c.attachEventBus(injectableEventBus));
+        if (injectableEventBus != null) {
+            injectableEventBus.post(new StudyPlanLoadedEvent(studyPlan));
+        }
         return studyPlan;
     }
 
@@ -92,13 +154,50 @@ public class JsonDataReaderWriter implements DataReader, DataWriter {
         } else if (plan == null) {
             throw new IllegalArgumentException("Plan is null.");
         }
+        Path file = Paths.get(fileName).toAbsolutePath();
+        Path temporaryFile = null;
         try {
-            writeTo(plan, Files.newOutputStream(Paths.get(fileName)));
+            if (Files.exists(file)) {
+                file = file.toRealPath(); // replace the target of a symbolic link, not the link
+            }
+            temporaryFile = createTemporaryFile(file);
+            writeTo(plan, Files.newOutputStream(temporaryFile));
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException e) {
             throw new IOException("Failed to write StudyPlan to file (" + fileName + ").", e);
+        } finally {
+            if (temporaryFile != null) {
+                Files.deleteIfExists(temporaryFile); // if the plan failed to write or move
+            }
         }
     }
 
+    /**
+     * Create an empty temporary file next to the file, with the permissions of the file, or the default
+     * permissions if it does not exist yet ({@link Files#createTempFile(Path, String, String,
+     * java.nio.file.attribute.FileAttribute[])} would make it readable by the owner only).
+     *
+     * @param file the file to be replaced by the temporary file
+     * @return the temporary file
+     * @throws IOException if the file failed to create
+     */
+    private static Path createTemporaryFile(Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.createFile(temporaryFile); // with the default permissions
+        if (Files.exists(file) && Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temporaryFile, Files.getPosixFilePermissions(file));
+        }
+        return temporaryFile;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The stream is closed afterwards.
+     */
     @Override
     public void writeTo(StudyPlan plan, OutputStream outputStream) throws IOException, IllegalArgumentException {
         if (outputStream == null) {
@@ -106,10 +205,14 @@ public class JsonDataReaderWriter implements DataReader, DataWriter {
         } else if (plan == null) {
             throw new IllegalArgumentException("Plan is null.");
         }
-        try (BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(outputStream, Charset.forName("utf-8")))) {
-            writer.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(plan));
-            writer.write('\n');
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            if (prettyPrint) {
+                generator.useDefaultPrettyPrinter();
+            }
+            objectMapper.writeValue(generator, plan);
+            if (!objectMapper.getFactory().canHandleBinaryNatively()) { // text files end with a newline
+                generator.writeRaw('\n');
+            }
         } catch (IOException e) {
             throw new IOException("Failed to write StudyPlan to stream.", e);
         }
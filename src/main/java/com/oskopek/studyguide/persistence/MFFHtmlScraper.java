@@ -29,8 +29,10 @@ import java.nio.file.Paths;
 import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Currency;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -43,17 +45,40 @@ public class MFFHtmlScraper implements DataReader, ProgressObservable {
 
     private final DoubleProperty progressProperty = new SimpleDoubleProperty();
     private SISHtmlScraper sisHtmlScraper;
+    private HttpPageCache pageCache;
 
     /**
-     * Default constructor.
+     * Default constructor. Scrapes one course at a time.
      *
      * @param sisUrl the url of a SIS instance
      */
     public MFFHtmlScraper(String sisUrl) {
+        this(sisUrl, 1, 1);
+    }
+
+    /**
+     * Create a scraper fetching the course pages from SIS in parallel.
+     *
+     * @param sisUrl the url of a SIS instance
+     * @param parallelism the number of workers fetching course pages, 1 to scrape serially
+     * @param perHostLimit the maximum number of course pages fetched from one host at a time
+     * @see SISHtmlScraper#scrapeCourses(CourseRegistry, java.util.Collection)
+     */
+    public MFFHtmlScraper(String sisUrl, int parallelism, int perHostLimit) {
         if (sisUrl == null) {
             throw new IllegalArgumentException("SIS Url cannot be null.");
         }
-        sisHtmlScraper = new SISHtmlScraper(sisUrl);
+        sisHtmlScraper = new SISHtmlScraper(sisUrl, parallelism, perHostLimit);
+    }
+
+    /**
+     * Fetch the study plan page and the SIS course pages through the cache.
+     *
+     * @param pageCache the cache, or null to always download the pages
+     */
+    public void setPageCache(HttpPageCache pageCache) {
+        this.pageCache = pageCache;
+        sisHtmlScraper.setPageCache(pageCache);
     }
 
     /**
@@ -230,7 +255,7 @@ public class MFFHtmlScraper implements DataReader, ProgressObservable {
 
     /**
      * Scrapes course IDs from a table element and fills the registry with the correctly parse courses.
-     * Uses a {@link SISHtmlScraper}.
+     * Uses a {@link SISHtmlScraper}, the courses of the table are scraped together (in parallel, if it is parallel).
      *
      * @param table the table from which to scrape course IDs
      * @param registry the registry to fill with courses from the table
@@ -239,6 +264,7 @@ public class MFFHtmlScraper implements DataReader, ProgressObservable {
      */
     private List<String> scrapeCoursesFromTable(Element table, CourseRegistry registry) throws IOException {
         List<String> ids = new ArrayList<>();
+        Set<String> toScrape = new LinkedHashSet<>();
         Elements rows = table.select("tr");
         int rowIndex = 0;
         for (Element row : rows) {
@@ -254,10 +280,11 @@ public class MFFHtmlScraper implements DataReader, ProgressObservable {
             }
             ids.add(id);
             if (registry.getCourse(id) == null) { // skip existing courses
-                sisHtmlScraper.scrapeCourse(registry, id);
+                toScrape.add(id);
             }
             rowIndex++;
         }
+        sisHtmlScraper.scrapeCourses(registry, toScrape);
         return ids;
     }
 
@@ -289,6 +316,16 @@ public class MFFHtmlScraper implements DataReader, ProgressObservable {
         if (url == null) {
             throw new IllegalArgumentException("Url to scrape cannot be null.");
         }
+        if (pageCache != null) {
+            try {
+                HttpPageCache.Page page = pageCache.fetch(url);
+                try (InputStream is = page.openStream()) {
+                    return scrapeStudyPlan(is, page.getEncoding());
+                }
+            } catch (IOException e) {
+                throw new IOException("Failed to scrape study plan from: " + url, e);
+            }
+        }
         try {
             URL urlObj, base, next;
             HttpURLConnection connection;
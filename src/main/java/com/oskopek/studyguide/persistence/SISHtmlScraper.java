@@ -15,36 +15,132 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Scrapes a SIS instance (f.e. <a href="https://is.cuni.cz/studium">https://is.cuni.cz/studium</a>).
  * <strong>Works only in Czech locale!</strong>
+ * <p>
+ * Several courses can be scraped in parallel, see {@link #scrapeCourses(CourseRegistry, Collection)}: the course
+ * pages are fetched by a bounded pool of workers, at most {@link #getPerHostLimit()} of them from one host at a
+ * time. Each course page is fetched at most once, the dependency graph is assembled after all fetches finish.
  */
 public class SISHtmlScraper implements ProgressObservable {
 
+    /**
+     * The default number of workers fetching course pages in parallel.
+     */
+    public static final int defaultParallelism = 4;
+
+    /**
+     * The default maximum number of course pages fetched from one host at a time.
+     */
+    public static final int defaultPerHostLimit = 4;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final DoubleProperty progressProperty = new SimpleDoubleProperty(-1d);
+    private final AtomicLong fetchedPageCount = new AtomicLong();
+    private final int parallelism;
+    private final int perHostLimit;
     private String sisUrl;
+    private HttpPageCache pageCache;
 
     /**
-     * Default constructor.
+     * Default constructor. Scrapes one course page at a time.
      *
      * @param sisUrl the base url of the SIS instance (without a trailing slash)
      */
     public SISHtmlScraper(String sisUrl) {
+        this(sisUrl, 1, 1);
+    }
+
+    /**
+     * Create a scraper fetching course pages in parallel.
+     *
+     * @param sisUrl the base url of the SIS instance (without a trailing slash)
+     * @param parallelism the number of workers fetching course pages, 1 to scrape serially
+     * @param perHostLimit the maximum number of course pages fetched from one host at a time
+     * @throws IllegalArgumentException if the url is null or any limit is not positive
+     */
+    public SISHtmlScraper(String sisUrl, int parallelism, int perHostLimit) throws IllegalArgumentException {
         if (sisUrl == null) {
             throw new IllegalArgumentException("SIS url cannot be null.");
         }
+        if (parallelism < 1 || perHostLimit < 1) {
+            throw new IllegalArgumentException("Parallelism (" + parallelism + ") and per host limit ("
+                    + perHostLimit + ") have to be positive.");
+        }
         this.sisUrl = sisUrl;
+        this.parallelism = parallelism;
+        this.perHostLimit = perHostLimit;
+    }
+
+    /**
+     * Get the number of workers fetching course pages.
+     *
+     * @return the parallelism, 1 if the scraper is serial
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Get the maximum number of course pages fetched from one host at a time.
+     *
+     * @return the per host limit
+     */
+    public int getPerHostLimit() {
+        return perHostLimit;
+    }
+
+    /**
+     * Get the cache the course pages are fetched through.
+     *
+     * @return the cache, or null if the pages are always downloaded
+     */
+    public HttpPageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Fetch the course pages through the cache. Does not apply to local ({@code file://}) SIS copies.
+     *
+     * @param pageCache the cache, or null to always download the pages
+     */
+    public void setPageCache(HttpPageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * Get the number of course pages fetched by this scraper so far.
+     *
+     * @return the number of fetched pages, including the ones served by the cache
+     */
+    public long getFetchedPageCount() {
+        return fetchedPageCount.get();
     }
 
     /**
@@ -64,6 +160,92 @@ public class SISHtmlScraper implements ProgressObservable {
             return course;
         }
         logger.debug("Scraping from SIS: {}", courseId);
+        return scrapeCourse(registry, parseCoursePage(fetchCoursePage(courseId), courseId));
+    }
+
+    /**
+     * Scrapes the given SIS instance for the courses, adding them and all their required courses to the registry.
+     * If the scraper is parallel, the course pages are fetched by its workers, the registry is only changed
+     * by the calling thread, after all pages are fetched.
+     *
+     * @param registry the registry to add the courses to, courses already in it are not scraped
+     * @param courseIds the subject ids to search in SIS
+     * @return the courses of the given ids, in the order of the ids
+     * @throws IOException if an error occurs while downloading the pages to scrape, no course is added then
+     * @throws IllegalArgumentException if any argument or course id is null
+     */
+    public List<Course> scrapeCourses(CourseRegistry registry, Collection<String> courseIds)
+            throws IOException, IllegalArgumentException {
+        if (registry == null || courseIds == null || courseIds.contains(null)) {
+            throw new IllegalArgumentException("The registry and course ids cannot be null.");
+        }
+        if (parallelism == 1) {
+            List<Course> courses = new ArrayList<>(courseIds.size());
+            for (String courseId : courseIds) {
+                courses.add(scrapeCourse(registry, courseId));
+            }
+            return courses;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "SISScraper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ParallelScrape scrape = new ParallelScrape(registry, executor);
+        try {
+            Map<String, CoursePage> pages = scrape.fetchAll(courseIds);
+            assembleCourses(registry, pages);
+        } finally {
+            executor.shutdownNow();
+        }
+        return courseIds.stream().map(registry::getCourse).collect(Collectors.toList());
+    }
+
+    /**
+     * Create the courses of the fetched pages, add the ones not in the registry yet to it and link them
+     * to their prerequisites and corequisites.
+     *
+     * @param registry the registry to add the courses to, contains the dependencies that were not fetched
+     * @param pages the fetched pages by their course ids
+     */
+    private void assembleCourses(CourseRegistry registry, Map<String, CoursePage> pages) {
+        List<Course> added = new ArrayList<>(pages.size());
+        for (CoursePage page : pages.values()) {
+            Course course = page.toCourse(new ArrayList<>(), new ArrayList<>());
+            if (registry.putCourseIfAbsent(course) == null) {
+                added.add(course);
+            }
+        }
+        for (Course course : added) {
+            CoursePage page = pages.get(course.getId());
+            course.setPrerequisites(collectCourses(registry, page.prerequisiteIds));
+            course.setCorequisites(collectCourses(registry, page.corequisiteIds));
+        }
+        logger.debug("Scraped {} courses from SIS in parallel, {} were new.", pages.size(), added.size());
+    }
+
+    /**
+     * Get the courses of the ids from the registry, in the order in which the serial scraper links them.
+     *
+     * @param registry the registry containing the courses
+     * @param ids the ids of the courses
+     * @return a new list of the courses
+     */
+    private static List<Course> collectCourses(CourseRegistry registry, List<String> ids) {
+        CourseRegistry courses = new CourseRegistry();
+        ids.forEach(id -> courses.putCourseSimple(registry.getCourse(id)));
+        return new ArrayList<>(courses.courseMapValues());
+    }
+
+    /**
+     * Download (or get from the cache) and parse the SIS page of the course. The number of concurrent downloads
+     * is not limited.
+     *
+     * @param courseId the id of the course
+     * @return the parsed html of the page
+     * @throws IOException if an error occurs while downloading the page
+     */
+    private Document fetchCoursePage(String courseId) throws IOException {
         String urlString = sisUrl + "/predmety/index.php?do=predmet&kod=" + courseId;
 
         InputStream is;
@@ -72,30 +254,54 @@ public class SISHtmlScraper implements ProgressObservable {
             urlString = urlString.substring(7);
             is = Files.newInputStream(Paths.get(urlString));
             encoding = "utf-8";
+        } else if (pageCache != null) {
+            HttpPageCache.Page page = pageCache.fetch(urlString);
+            is = page.openStream();
+            encoding = page.getEncoding();
         } else {
             URL url = new URL(urlString); // http://www.dmurph.com/2011/01/java-uri-encoder/
             URLConnection urlConnection = url.openConnection();
             is = urlConnection.getInputStream();
             encoding = urlConnection.getContentEncoding();
         }
-        return scrapeCourse(registry, is, encoding, courseId);
+        try (InputStream pageStream = is) {
+            fetchedPageCount.incrementAndGet();
+            return Jsoup.parse(pageStream, encoding, ""); // we do not need a base url
+        }
     }
 
     /**
-     * The actual implementation of the scraper. Adds the course and all courses required for this course to the
-     * registry.
+     * Adds the course of the parsed page and all courses required for it to the registry, scraping the required
+     * courses first.
      *
      * @param registry a {@link CourseRegistry} not containing this course
-     * @param is the stream from which to parse the SIS course html
-     * @param encoding the encoding of html in the stream
-     * @param courseId the id of the course being parsed
-     * @return the course of the given id we scraped, non-null
-     * @throws IOException if an error occurs during reading the input stream
+     * @param page the parsed page of the course
+     * @return the course of the given id we scraped (or the one put into the registry meanwhile), non-null
+     * @throws IOException if an error occurs while downloading the pages of the required courses
      */
-    private Course scrapeCourse(CourseRegistry registry, InputStream is, String encoding, String courseId)
-            throws IOException {
-        Document document = Jsoup.parse(is, encoding, ""); // we do not need a base url
+    private Course scrapeCourse(CourseRegistry registry, CoursePage page) throws IOException {
+        CourseRegistry prereqs = new CourseRegistry();
+        CourseRegistry coreqs = new CourseRegistry();
+        for (String id : page.prerequisiteIds) { // TODO check for and fail on circular dependencies
+            prereqs.putCourseSimple(scrapeCourse(registry, id));
+        }
+        for (String id : page.corequisiteIds) {
+            coreqs.putCourseSimple(scrapeCourse(registry, id));
+        }
+        Course course = page.toCourse(new ArrayList<>(prereqs.courseMapValues()),
+                new ArrayList<>(coreqs.courseMapValues()));
+        Course existing = registry.putCourseIfAbsent(course); // its dependencies were put while scraping them
+        return existing == null ? course : existing;
+    }
 
+    /**
+     * The actual implementation of the scraper. Parses the course page, without its required courses.
+     *
+     * @param document the parsed SIS course html
+     * @param courseId the id of the course being parsed
+     * @return the course information on the page
+     */
+    private CoursePage parseCoursePage(Document document, String courseId) {
         String localizedName = document.select("div.form_div_title").text();
         localizedName = localizedName.substring(0, localizedName.lastIndexOf("-")).trim();
 
@@ -139,46 +345,31 @@ public class SISHtmlScraper implements ProgressObservable {
             }
         }
 
-        CourseRegistry prereqs = new CourseRegistry();
-        CourseRegistry coreqs = new CourseRegistry();
-        for (Element tableRow : table2) { // TODO check for and fail on circular dependencies
+        CoursePage page = new CoursePage(courseId, name, localizedName, credits, enrollableIn, teacherList);
+        for (Element tableRow : table2) {
             String headerText = tableRow.select("th").first().text().toLowerCase();
-            CourseRegistry addTo;
+            List<String> addTo;
             if (headerText.contains("korekvizity")) {
-                addTo = coreqs;
+                addTo = page.corequisiteIds;
             } else if (headerText.contains("prerekvizity")) {
-                addTo = prereqs;
+                addTo = page.prerequisiteIds;
             } else {
                 continue;
             }
-            parseAllCoursesFromLinks(tableRow, addTo, registry, courseId);
+            parseAllCourseIdsFromLinks(tableRow, addTo);
         }
-        Course course = new Course(courseId, name, localizedName, Locale.forLanguageTag("cs"), credits, enrollableIn,
-                teacherList, new ArrayList<>(prereqs.courseMapValues()), new ArrayList<>(coreqs.courseMapValues()));
-        registry.putCourse(course);
-        return course;
+        return page;
     }
 
     /**
-     * Parse all courses from links in the given element and add the new courses into {@code addTo},
-     * checking {@code registry} for duplicates.
+     * Parse all course ids from links in the given element and add them into {@code addTo}.
      *
-     * @param tableRow the element whose links to parse into courses
-     * @param addTo add all new courses into this course registry
-     * @param registry check for duplicates against this course registry
-     * @param courseId used for error reporting
+     * @param tableRow the element whose links to parse into course ids
+     * @param addTo add all course ids into this list
      */
-    private void parseAllCoursesFromLinks(Element tableRow, CourseRegistry addTo, CourseRegistry registry,
-            String courseId) {
+    private void parseAllCourseIdsFromLinks(Element tableRow, List<String> addTo) {
         for (Element link : tableRow.select("td").first().select("a.link3")) {
-            String id = link.text();
-            Course dependency;
-            try {
-                dependency = scrapeCourse(registry, id);
-            } catch (IOException e) {
-                throw new IllegalStateException("Failed to parse required course: " + id + " of course " + courseId, e);
-            }
-            addTo.putCourseSimple(dependency);
+            addTo.add(link.text());
         }
     }
 
@@ -186,4 +377,186 @@ public class SISHtmlScraper implements ProgressObservable {
     public DoubleProperty progressProperty() {
         return progressProperty;
     }
+
+    /**
+     * The information on the SIS page of a course: the course without its dependencies and the ids of them.
+     */
+    private static final class CoursePage {
+
+        private final String courseId;
+        private final String name;
+        private final String localizedName;
+        private final Credits credits;
+        private final EnrollableIn enrollableIn;
+        private final List<String> teacherNames;
+        private final List<String> prerequisiteIds = new ArrayList<>();
+        private final List<String> corequisiteIds = new ArrayList<>();
+
+        /**
+         * Create a course page, without any dependencies.
+         *
+         * @param courseId the id of the course
+         * @param name the name of the course
+         * @param localizedName the name of the course in Czech
+         * @param credits the credits of the course
+         * @param enrollableIn the semesters the course is enrollable in
+         * @param teacherNames the names of the guarantors
+         */
+        private CoursePage(String courseId, String name, String localizedName, Credits credits,
+                EnrollableIn enrollableIn, List<String> teacherNames) {
+            this.courseId = courseId;
+            this.name = name;
+            this.localizedName = localizedName;
+            this.credits = credits;
+            this.enrollableIn = enrollableIn;
+            this.teacherNames = teacherNames;
+        }
+
+        /**
+         * Create the course of the page.
+         *
+         * @param prerequisites the prerequisites of the course
+         * @param corequisites the corequisites of the course
+         * @return a new course
+         */
+        private Course toCourse(List<Course> prerequisites, List<Course> corequisites) {
+            return new Course(courseId, name, localizedName, Locale.forLanguageTag("cs"), credits, enrollableIn,
+                    teacherNames, prerequisites, corequisites);
+        }
+    }
+
+    /**
+     * A parallel fetch of course pages and (transitively) the pages of all their dependencies.
+     */
+    private final class ParallelScrape {
+
+        private final CourseRegistry registry;
+        private final Executor executor;
+        private final Map<String, CompletableFuture<CoursePage>> pages = new ConcurrentHashMap<>();
+        private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        /**
+         * Create a fetch.
+         *
+         * @param registry the registry, the pages of courses in it are not fetched
+         * @param executor the workers to fetch on
+         */
+        private ParallelScrape(CourseRegistry registry, Executor executor) {
+            this.registry = registry;
+            this.executor = executor;
+        }
+
+        /**
+         * Fetch the pages of the courses and all their dependencies not in the registry and wait for them.
+         *
+         * @param courseIds the ids of the courses
+         * @return the parsed pages by course id
+         * @throws IOException if any of the pages failed to download
+         */
+        private Map<String, CoursePage> fetchAll(Collection<String> courseIds) throws IOException {
+            pending.incrementAndGet(); // do not finish before all the ids are submitted
+            courseIds.forEach(this::fetch);
+            finishOne();
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while scraping courses from SIS.");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException("Failed to scrape courses from SIS.", cause);
+            }
+            Map<String, CoursePage> fetched = new LinkedHashMap<>();
+            pages.forEach((id, page) -> fetched.put(id, page.join()));
+            return fetched;
+        }
+
+        /**
+         * Fetch the page of the course in the background, unless it is in the registry or already fetched.
+         *
+         * @param courseId the id of the course
+         */
+        private void fetch(String courseId) {
+            if (registry.getCourse(courseId) != null || pages.containsKey(courseId)) {
+                return;
+            }
+            CompletableFuture<CoursePage> page = new CompletableFuture<>();
+            if (pages.putIfAbsent(courseId, page) != null) {
+                return; // fetched by another worker
+            }
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        CoursePage parsed = fetchLimited(courseId);
+                        parsed.prerequisiteIds.forEach(this::fetch);
+                        parsed.corequisiteIds.forEach(this::fetch);
+                        page.complete(parsed);
+                    } catch (IOException | RuntimeException e) {
+                        page.completeExceptionally(e);
+                        done.completeExceptionally(e);
+                    } finally {
+                        finishOne();
+                    }
+                });
+            } catch (RejectedExecutionException e) { // shut down after a failure
+                page.completeExceptionally(e);
+                finishOne();
+            }
+        }
+
+        /**
+         * Fetch and parse the page of the course, respecting the per host limit.
+         *
+         * @param courseId the id of the course
+         * @return the parsed page
+         * @throws IOException if the page failed to download
+         */
+        private CoursePage fetchLimited(String courseId) throws IOException {
+            Semaphore permits = hostPermits.computeIfAbsent(hostOf(sisUrl), host -> new Semaphore(perHostLimit));
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to scrape " + courseId + " from SIS.");
+            }
+            try {
+                logger.debug("Scraping from SIS: {}", courseId);
+                return parseCoursePage(fetchCoursePage(courseId), courseId);
+            } finally {
+                permits.release();
+            }
+        }
+
+        /**
+         * Count a finished fetch and complete the whole fetch if it was the last one.
+         */
+        private void finishOne() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        /**
+         * Get the host of the url.
+         *
+         * @param url the url
+         * @return the host, empty for local files or malformed urls
+         */
+        private String hostOf(String url) {
+            try {
+                String host = new URL(url).getHost();
+                return host == null ? "" : host;
+            } catch (MalformedURLException e) {
+                return "";
+            }
+        }
+    }
 }
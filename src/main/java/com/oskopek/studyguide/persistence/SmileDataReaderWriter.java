@@ -0,0 +1,80 @@
+package com.oskopek.studyguide.persistence;
+
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.google.common.eventbus.EventBus;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+
+import java.util.ResourceBundle;
+
+/**
+ * Reads and writes the {@link com.oskopek.studyguide.model.StudyPlan} to a compact binary file
+ * (<a href="https://github.com/FasterXML/smile-format-specification">Smile</a>, a binary JSON).
+ * <p>
+ * The structure is the same as that of the JSON files (see {@link JsonDataReaderWriter}), but the object ids of
+ * courses, enrollments and credits are sequential integers instead of UUIDs and repeated short strings
+ * (f.e. course ids, property names) are written once and then referenced from a string table.
+ */
+public class SmileDataReaderWriter extends JsonDataReaderWriter {
+
+    /**
+     * The extension of binary plan files.
+     */
+    public static final String fileExtension = ".sgb";
+
+    /**
+     * Create an instance of the reader/writer, with all injectable values set to null.
+     */
+    public SmileDataReaderWriter() {
+        this(null, null);
+    }
+
+    /**
+     * Create an instance of the reader/writer, with the given parameters passed as injectable values to Jackson.
+     *
+     * @param messages the message resource bundle to inject
+     * @param eventBus the event bus to inject
+     * @see com.fasterxml.jackson.databind.InjectableValues
+     * @see com.fasterxml.jackson.annotation.JacksonInject
+     */
+    public SmileDataReaderWriter(ResourceBundle messages, EventBus eventBus) {
+        super(createObjectMapper(), messages, eventBus, false);
+    }
+
+    /**
+     * Is the file a binary plan file, judging by its name?
+     *
+     * @param fileName the name of the file
+     * @return true iff the name has the binary plan extension
+     */
+    public static boolean isBinaryPlanFile(String fileName) {
+        return fileName != null && fileName.toLowerCase().endsWith(fileExtension);
+    }
+
+    /**
+     * Create a Smile mapper with integer object ids and shared string values.
+     *
+     * @return a new mapper
+     */
+    private static ObjectMapper createObjectMapper() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapper.addMixIn(Course.class, IntegerObjectId.class);
+        objectMapper.addMixIn(CourseEnrollment.class, IntegerObjectId.class);
+        objectMapper.addMixIn(Credits.class, IntegerObjectId.class);
+        return objectMapper;
+    }
+
+    /**
+     * Replaces the UUID object ids of the mixed in class by integer ones (shared by all the mixed in classes).
+     */
+    @JsonIdentityInfo(generator = ObjectIdGenerators.IntSequenceGenerator.class)
+    private abstract static class IntegerObjectId {
+    }
+}
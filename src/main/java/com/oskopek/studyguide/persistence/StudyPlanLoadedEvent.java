@@ -0,0 +1,36 @@
+package com.oskopek.studyguide.persistence;
+
+import com.oskopek.studyguide.model.StudyPlan;
+
+/**
+ * The event posted once a {@link DataReader} finished reading a study plan and attached the event bus to it.
+ * Replaces the change events of the individual courses and enrollments of the plan: subscribers recheck and
+ * refresh the whole plan once.
+ */
+public class StudyPlanLoadedEvent {
+
+    private final StudyPlan studyPlan;
+
+    /**
+     * Default constructor.
+     *
+     * @param studyPlan the loaded study plan
+     */
+    public StudyPlanLoadedEvent(StudyPlan studyPlan) {
+        this.studyPlan = studyPlan;
+    }
+
+    /**
+     * Get the loaded study plan.
+     *
+     * @return the study plan
+     */
+    public StudyPlan getStudyPlan() {
+        return studyPlan;
+    }
+
+    @Override
+    public String toString() {
+        return "StudyPlanLoadedEvent[" + studyPlan + "]";
+    }
+}
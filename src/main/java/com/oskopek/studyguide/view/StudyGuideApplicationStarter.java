@@ -2,6 +2,8 @@ package com.oskopek.studyguide.view;
 
 import com.google.common.eventbus.EventBus;
 import com.oskopek.studyguide.model.DefaultStudyPlan;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.persistence.AutosaveJournal;
 import com.oskopek.studyguide.weld.DeadEventListener;
 import com.oskopek.studyguide.weld.StartupStage;
 import javafx.application.Platform;
@@ -9,6 +11,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import org.slf4j.Logger;
 
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Instance;
@@ -16,6 +20,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ResourceBundle;
 
 /**
  * A CDI-enabled version of {@link StudyGuideApplication} that initializes the root layout.
@@ -35,6 +40,12 @@ class StudyGuideApplicationStarter {
     @Inject
     private DeadEventListener deadEventListener;
 
+    @Inject
+    private transient ResourceBundle messages;
+
+    @Inject
+    private transient Logger logger;
+
     /**
      * Initializes the root layout.
      *
@@ -56,13 +67,41 @@ class StudyGuideApplicationStarter {
             primaryStage.setScene(scene);
             primaryStage.show();
         });
-        studyGuideApplication.studyPlanProperty().addListener((observable, oldValue, newValue) -> {
+        AutosaveJournal autosaveJournal = AutosaveJournal.createDefault(messages, eventBus);
+        studyGuideApplication.studyPlanProperty().addListener(observable -> { // also fires for an equal plan
+            StudyPlan newValue = studyGuideApplication.getStudyPlan();
+            autosaveJournal.attach(newValue);
             if (newValue != null) {
+                newValue.getConstraints().clearLastVerdicts(); // the views are empty now
                 ((DefaultStudyPlan) newValue).constraintsProperty()
                         .addListener((observable1, oldValue1, newValue1) -> newValue1.recheckAll()); // TODO HACK
             }
         });
         eventBus.register(deadEventListener);
+        primaryStage.addEventHandler(WindowEvent.WINDOW_CLOSE_REQUEST, event -> autosaveJournal.discard());
         studyGuideApplication.setPrimaryStage(primaryStage);
+        recoverAutosave(autosaveJournal);
+    }
+
+    /**
+     * Show the plan autosaved before the last crash, if there is one.
+     *
+     * @param autosaveJournal the journal to recover the plan from
+     */
+    private void recoverAutosave(AutosaveJournal autosaveJournal) {
+        StudyPlan recovered;
+        try {
+            recovered = autosaveJournal.recover();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to recover the autosaved plan, discarding it.", e);
+            autosaveJournal.discard();
+            return;
+        }
+        if (recovered != null) {
+            Platform.runLater(() -> {
+                studyGuideApplication.setStudyPlan(recovered);
+                recovered.getConstraints().getRecheckScheduler().scheduleAll();
+            });
+        }
     }
 }
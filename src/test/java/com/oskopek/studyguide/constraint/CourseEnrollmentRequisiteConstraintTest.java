@@ -0,0 +1,85 @@
+package com.oskopek.studyguide.constraint;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.oskopek.studyguide.constraint.event.BrokenCourseEnrollmentConstraintEvent;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class CourseEnrollmentRequisiteConstraintTest {
+
+    private final List<String> brokenMessages = new ArrayList<>();
+    private StudyPlan plan;
+
+    @Before
+    public void setUp() throws IOException {
+        EventBus eventBus = new EventBus();
+        eventBus.register(this);
+        plan = new JsonDataReaderWriter(ResourceBundle.getBundle("com.oskopek.studyguide.view.messages"), eventBus)
+                .readFrom("src/test/resources/com/oskopek/studyguide/persistence/my_study.json");
+    }
+
+    @Subscribe
+    public void onBroken(BrokenCourseEnrollmentConstraintEvent event) {
+        brokenMessages.add(event.getMessage());
+    }
+
+    @Test
+    public void upgradedOnLoad() {
+        List<CourseEnrollmentConstraint> constraints = plan.getConstraints().getCourseEnrollmentConstraintList();
+        assertEquals(plan.getSemesterPlan().allCourseEnrollments().count(), constraints.size());
+        for (CourseEnrollmentConstraint constraint : constraints) {
+            assertTrue(constraint instanceof CourseEnrollmentRequisiteConstraint);
+            assertNotNull(constraint.messages);
+            assertNotNull(constraint.eventBus);
+            assertSame(plan.getSemesterPlan(), constraint.getSemesterPlan());
+        }
+    }
+
+    @Test
+    public void sameMessagesAsSeparateConstraints() {
+        Random random = new Random(1L);
+        List<Semester> semesters = plan.getSemesterPlan().getSemesterList();
+        for (int i = 0; i < 20; i++) {
+            List<CourseEnrollment> enrollments = plan.getSemesterPlan().allCourseEnrollments()
+                    .collect(Collectors.toList());
+            CourseEnrollment enrollment = enrollments.get(random.nextInt(enrollments.size()));
+            Semester to = semesters.get(random.nextInt(semesters.size()));
+            if (random.nextBoolean()) {
+                enrollment.setFulfilled(!enrollment.isFulfilled());
+            } else if (enrollment.getSemester() != to && to.getCourseEnrollmentList().stream()
+                    .noneMatch(e -> e.getCourse().equals(enrollment.getCourse()))) {
+                to.addCourseEnrollment(enrollment);
+                enrollment.getSemester().removeCourseEnrollment(enrollment);
+                enrollment.semesterProperty().set(to);
+            }
+            EvaluationSnapshot snapshot = EvaluationSnapshot.of(plan.getSemesterPlan());
+            for (CourseEnrollmentConstraint constraint : plan.getConstraints().getCourseEnrollmentConstraintList()) {
+                brokenMessages.clear();
+                CourseEnrollment checked = constraint.getCourseEnrollment();
+                for (CourseEnrollmentConstraint separate : Arrays.asList(
+                        new CourseEnrollmentCorequisiteConstraint(checked),
+                        new CourseEnrollmentPrerequisiteConstraint(checked),
+                        new CourseEnrollmentEnrolledInConstraint(checked))) {
+                    separate.messages = constraint.messages;
+                    separate.eventBus = constraint.eventBus;
+                    separate.validate(snapshot);
+                }
+                List<String> expected = new ArrayList<>(brokenMessages);
+                brokenMessages.clear();
+                constraint.validate(snapshot);
+                assertEquals(expected, brokenMessages);
+            }
+        }
+    }
+}
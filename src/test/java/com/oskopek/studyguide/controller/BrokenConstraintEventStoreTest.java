@@ -0,0 +1,66 @@
+package com.oskopek.studyguide.controller;
+
+import com.oskopek.studyguide.constraint.GlobalCreditsSumUntilSemesterConstraint;
+import com.oskopek.studyguide.constraint.event.BrokenGlobalConstraintEvent;
+import com.oskopek.studyguide.constraint.event.StringMessageEvent;
+import com.oskopek.studyguide.model.courses.Credits;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BrokenConstraintEventStoreTest {
+
+    private final Deque<Runnable> dispatched = new ArrayDeque<>();
+    private BrokenConstraintEventStore store;
+    private GlobalCreditsSumUntilSemesterConstraint first;
+    private GlobalCreditsSumUntilSemesterConstraint second;
+
+    @Before
+    public void setUp() {
+        store = new BrokenConstraintEventStore(dispatched::add);
+        first = new GlobalCreditsSumUntilSemesterConstraint(Credits.valueOf(30), 1);
+        second = new GlobalCreditsSumUntilSemesterConstraint(Credits.valueOf(30), 1);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void equalConstraintsAreKeptApart() {
+        StringMessageEvent firstEvent = broken(first, "a");
+        StringMessageEvent secondEvent = broken(second, "b");
+        store.putBroken(firstEvent);
+        store.putBroken(secondEvent);
+        assertEquals(1, dispatched.size());
+        assertTrue(store.getEventList().isEmpty());
+        dispatched.poll().run();
+        assertEquals(Arrays.asList(firstEvent, secondEvent), store.getEventList());
+
+        store.removeFixed(first);
+        dispatched.poll().run();
+        assertFalse(store.isBroken(first));
+        assertTrue(store.isBroken(second));
+        assertEquals(Collections.singletonList(secondEvent), store.getEventList());
+    }
+
+    @Test
+    public void newerEventReplacesInPlace() {
+        store.putBroken(broken(first, "a"));
+        store.putBroken(broken(second, "b"));
+        StringMessageEvent replacement = broken(first, "c");
+        store.putBroken(replacement);
+        dispatched.poll().run();
+        assertEquals(2, store.getEventList().size());
+        assertSame(replacement, store.getEventList().get(0));
+
+        store.removeFixed(new GlobalCreditsSumUntilSemesterConstraint(Credits.valueOf(30), 1));
+        assertTrue(dispatched.isEmpty());
+        store.clear();
+        assertTrue(store.getEventList().isEmpty());
+    }
+
+    private static StringMessageEvent broken(GlobalCreditsSumUntilSemesterConstraint constraint, String message) {
+        return new BrokenGlobalConstraintEvent(null, message, constraint);
+    }
+}
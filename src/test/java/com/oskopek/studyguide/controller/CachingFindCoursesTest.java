@@ -0,0 +1,68 @@
+package com.oskopek.studyguide.controller;
+
+import com.oskopek.studyguide.model.CourseGenerator;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.CourseRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CachingFindCourses}.
+ */
+public class CachingFindCoursesTest {
+
+    private CourseRegistry registry;
+    private FindRegistryCoursesController findRegistryCourses;
+    private CachingFindCourses cachingFindCourses;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new CourseRegistry();
+        for (int i = 0; i < 100; i++) {
+            registry.putCourse(CourseGenerator.generateRandomCourse());
+        }
+        findRegistryCourses = new FindRegistryCoursesController(registry);
+        cachingFindCourses = new CachingFindCourses(findRegistryCourses);
+    }
+
+    @Test
+    public void repeatedSearchesHit() throws Exception {
+        List<Course> found = cachingFindCourses.findCourses("NPRG").collect(Collectors.toList());
+        assertEquals(findRegistryCourses.findCourses("NPRG").collect(Collectors.toList()), found);
+        assertEquals(found, cachingFindCourses.findCourses("nprg").collect(Collectors.toList()));
+        assertEquals(found, cachingFindCourses.findCourses("NPŘG").collect(Collectors.toList()));
+        cachingFindCourses.findCoursesById("NPRG").count();
+        cachingFindCourses.findCoursesByName("NPRG", Locale.ENGLISH).count();
+        cachingFindCourses.findCoursesByName("NPRG", Locale.GERMAN).count();
+        cachingFindCourses.findCoursesByName("nprg", Locale.GERMAN).count();
+        assertEquals(3, cachingFindCourses.getStats().hitCount());
+        assertEquals(4, cachingFindCourses.getStats().missCount());
+    }
+
+    @Test
+    public void registryChangesInvalidate() throws Exception {
+        String key = "qwertyuiop";
+        cachingFindCourses.findCourses(key).count();
+        Course added = CourseGenerator.generateRandomCourse();
+        added.setName(key);
+        registry.putCourse(added);
+        assertEquals(added, cachingFindCourses.findCourses(key).findFirst().get());
+        assertEquals(1, cachingFindCourses.getInvalidationCount());
+
+        Course renamed = registry.courseMapValues().stream().filter(c -> c != added).findFirst().get();
+        renamed.setName(key + key);
+        assertTrue(cachingFindCourses.findCourses(key).anyMatch(renamed::equals));
+        assertEquals(2, cachingFindCourses.getInvalidationCount());
+
+        registry.removeCourse(added);
+        assertFalse(cachingFindCourses.findCourses(key).anyMatch(added::equals));
+        assertEquals(3, cachingFindCourses.getInvalidationCount());
+        assertEquals(0, cachingFindCourses.getStats().hitCount());
+    }
+}
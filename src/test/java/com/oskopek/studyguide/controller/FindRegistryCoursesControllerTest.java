@@ -8,10 +8,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.simmetrics.StringMetric;
 
+import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Unit test for {@link FindRegistryCoursesController}.
@@ -95,4 +101,107 @@ public class FindRegistryCoursesControllerTest {
             lastVal = newVal;
         }
     }
+
+    @Test
+    public void findCoursesMatchesFullScan() throws Exception {
+        registry.courseMapValues().stream().limit(20).forEach(c -> c.setName("Čř" + c.getName() + "É"));
+        registry.courseMapValues().stream().skip(20).limit(3).forEach(c -> c.setName(""));
+        Random random = new Random(7);
+        String[] keys = {"", "x", "AAAAAAA", "čR", "ÉÉ", "zzzz", "abc d", "ß"};
+        for (String key : keys) {
+            assertEquals(key, fullScan(key), findRegistryCoursesController.findCourses(key)
+                    .collect(Collectors.toList()));
+        }
+        for (int i = 0; i < 50; i++) {
+            char[] key = new char[1 + random.nextInt(10)];
+            for (int j = 0; j < key.length; j++) {
+                key[j] = (char) ('a' + random.nextInt(26));
+            }
+            assertEquals(fullScan(String.valueOf(key)),
+                    findRegistryCoursesController.findCourses(String.valueOf(key)).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void findCoursesSeesChanges() throws Exception {
+        String key = "qwertyuiop";
+        assertEquals(fullScan(key), findRegistryCoursesController.findCourses(key).collect(Collectors.toList()));
+        Course renamed = registry.courseMapValues().iterator().next();
+        renamed.setName(key);
+        assertEquals(renamed, findRegistryCoursesController.findCourses(key).findFirst().get());
+        Course added = CourseGenerator.generateRandomCourse();
+        added.setId(key);
+        registry.putCourse(added);
+        assertEquals(fullScan(key), findRegistryCoursesController.findCourses(key).collect(Collectors.toList()));
+        assertTrue(findRegistryCoursesController.findCourses(key).anyMatch(added::equals));
+        registry.removeCourse(renamed);
+        assertFalse(findRegistryCoursesController.findCourses(key).anyMatch(renamed::equals));
+    }
+
+    @Test
+    public void snapshotIgnoresLaterChanges() throws Exception {
+        String key = "qwertyuiop";
+        List<Course> before = fullScan(key);
+        FindCourses snapshot = findRegistryCoursesController.snapshot();
+        assertEquals(findRegistryCoursesController.findCoursesById(key).collect(Collectors.toList()),
+                snapshot.findCoursesById(key).collect(Collectors.toList()));
+        assertEquals(findRegistryCoursesController.findCoursesByName(key, Locale.getDefault())
+                .collect(Collectors.toList()), snapshot.findCoursesByName(key, null).collect(Collectors.toList()));
+        Course added = CourseGenerator.generateRandomCourse();
+        added.setId(key);
+        registry.putCourse(added);
+        assertEquals(before, snapshot.findCourses(key).collect(Collectors.toList()));
+        assertTrue(findRegistryCoursesController.snapshot().findCourses(key).anyMatch(added::equals));
+    }
+
+    @Test
+    public void typingReusesMatches() throws Exception {
+        String typed = "Qwertyuiopasdfgh";
+        for (int i = 0; i <= typed.length(); i++) {
+            String key = typed.substring(0, i);
+            assertEquals(key, fullScan(key), findRegistryCoursesController.findCourses(key)
+                    .collect(Collectors.toList()));
+        }
+        for (String key : new String[] {"Qwertyuiopasdfg", "Qwerty", "Qwertz", "xyz", "xyzz", "čř", ""}) {
+            assertEquals(key, fullScan(key), findRegistryCoursesController.findCourses(key)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void idPrefixesFirst() throws Exception {
+        Course[] courses = new Course[3];
+        String[] ids = {"NPRG031", "NPRG030", "NMAI054"};
+        for (int i = 0; i < ids.length; i++) {
+            courses[i] = CourseGenerator.generateRandomCourse();
+            courses[i].setId(ids[i]);
+            registry.putCourse(courses[i]);
+        }
+        List<Course> found = findRegistryCoursesController.findCourses("nprg0").collect(Collectors.toList());
+        assertEquals(Arrays.asList(courses[1], courses[0]), found.subList(0, 2));
+        assertEquals(fullScan("nprg0"), found);
+        found = findRegistryCoursesController.findCourses("NMAI054").collect(Collectors.toList());
+        assertEquals(courses[2], found.get(0));
+        assertEquals(10, found.size());
+    }
+
+    private List<Course> fullScan(String key) {
+        String normalized = FindRegistryCoursesController.normalize(key);
+        Comparator<Course> byId = Comparator.comparing(Course::getId);
+        List<Course> idMatches = Stream.of(normalized.toUpperCase(Locale.ROOT), normalized).distinct()
+                .flatMap(lookup -> registry.courseMapValues().stream().filter(lookup.length() < 3
+                        ? c -> c.getId().equals(lookup) : c -> c.getId().startsWith(lookup)).sorted(byId).limit(10))
+                .limit(10).collect(Collectors.toList());
+        Comparator<Map.Entry<Float, Course>> order = Comparator.comparing((Map.Entry<Float, Course> e) -> -e.getKey())
+                .thenComparing(e -> e.getValue().getName());
+        Function<Function<Course, String>, Stream<Map.Entry<Float, Course>>> sorted = field -> registry
+                .courseMapValues().stream()
+                .map(c -> (Map.Entry<Float, Course>) new AbstractMap.SimpleEntry<>(
+                        metric.compare(key, field.apply(c)), c))
+                .sorted(order);
+        Stream<Course> similar = Stream.concat(sorted.apply(Course::getId).limit(3),
+                sorted.apply(Course::nameOrLocalizedName).limit(10)).sorted(order).distinct()
+                .filter(e -> !idMatches.contains(e.getValue())).limit(10).map(Map.Entry::getValue);
+        return Stream.concat(idMatches.stream(), similar).limit(10).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,101 @@
+package com.oskopek.studyguide.controller;
+
+import com.oskopek.studyguide.model.CourseGenerator;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.CourseRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link IncrementalCourseSearch}.
+ */
+public class IncrementalCourseSearchTest {
+
+    private final Deque<Runnable> searches = new ArrayDeque<>();
+    private final Deque<Runnable> deliveries = new ArrayDeque<>();
+    private final List<List<Course>> delivered = new ArrayList<>();
+    private CourseRegistry registry;
+    private FindRegistryCoursesController findCourses;
+    private IncrementalCourseSearch search;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new CourseRegistry();
+        for (int i = 0; i < 100; i++) {
+            registry.putCourse(CourseGenerator.generateRandomCourse());
+        }
+        findCourses = new FindRegistryCoursesController(registry);
+        search = new IncrementalCourseSearch(findCourses, searches::add, deliveries::add, delivered::add);
+    }
+
+    @Test
+    public void onlyLatestKeyDelivered() throws Exception {
+        search.search("a");
+        search.search("ab");
+        searches.poll().run(); // "a" is outdated before it starts
+        search.search("abc");
+        searches.poll().run(); // "ab" is outdated before it starts
+        searches.poll().run();
+        assertEquals(2, search.getCancelledCount());
+        assertEquals(1, deliveries.size());
+        deliveries.poll().run();
+        assertEquals(1, delivered.size());
+        assertEquals(findCourses.findCourses("abc").collect(Collectors.toList()), delivered.get(0));
+    }
+
+    @Test
+    public void outdatedResultsDiscarded() throws Exception {
+        search.search("abc");
+        searches.poll().run();
+        search.search("abcd"); // the results of "abc" are waiting for delivery
+        deliveries.poll().run();
+        assertTrue(delivered.isEmpty());
+
+        searches.poll().run();
+        search.cancel();
+        deliveries.poll().run();
+        assertTrue(delivered.isEmpty());
+        assertEquals(2, search.getCancelledCount());
+    }
+
+    @Test
+    public void searchesStateAtTyping() throws Exception {
+        List<Course> expected = findCourses.findCourses("abc").collect(Collectors.toList());
+        search.search("abc");
+        Course added = CourseGenerator.generateRandomCourse();
+        added.setId("abc");
+        registry.putCourse(added); // changed on the FX thread before the search runs
+        searches.poll().run();
+        deliveries.poll().run();
+        assertEquals(expected, delivered.get(0));
+    }
+
+    @Test
+    public void failedSearchDropped() throws Exception {
+        FindCourses failing = new FindCourses() {
+            @Override
+            public Stream<Course> findCoursesById(String id) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Stream<Course> findCoursesByName(String name, Locale locale) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        search = new IncrementalCourseSearch(failing, searches::add, deliveries::add, delivered::add);
+        search.search("abc");
+        searches.poll().run();
+        assertTrue(deliveries.isEmpty());
+    }
+}
@@ -0,0 +1,45 @@
+package com.oskopek.studyguide.controller;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link TopKCollector}.
+ */
+public class TopKCollectorTest {
+
+    private final Comparator<int[]> byScore = Comparator.comparingInt(pair -> pair[0]);
+
+    @Test
+    public void sameAsStableSort() throws Exception {
+        Random random = new Random(11);
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pairs.add(new int[] {random.nextInt(50), i}); // many ties, told apart by the second element
+        }
+        for (int k : new int[] {0, 1, 7, 100, 4999, 5000, 6000}) {
+            List<int[]> expected = pairs.stream().sorted(byScore).limit(k).collect(Collectors.toList());
+            assertSame(expected, pairs.stream().collect(TopKCollector.of(k, byScore)));
+            assertSame(expected, pairs.parallelStream().collect(TopKCollector.of(k, byScore)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeK() throws Exception {
+        TopKCollector.of(-1, byScore);
+    }
+
+    private static void assertSame(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("at " + i, expected.get(i), actual.get(i));
+        }
+    }
+}
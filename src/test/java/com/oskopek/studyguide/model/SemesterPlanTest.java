@@ -0,0 +1,97 @@
+package com.oskopek.studyguide.model;
+
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SemesterPlanTest {
+
+    private SemesterPlan plan;
+    private Semester s0;
+    private Semester s1;
+    private Semester s2;
+
+    @Before
+    public void setUp() throws Exception {
+        plan = new SemesterPlan();
+        s0 = new Semester("0");
+        s1 = new Semester("1");
+        s2 = new Semester("2");
+        plan.addSemester(s0);
+        plan.addSemester(s1);
+        plan.addSemester(s2);
+        s0.addCourseEnrollment(courseWithCredits(3)).setFulfilled(true);
+        s0.addCourseEnrollment(courseWithCredits(5));
+        s1.addCourseEnrollment(courseWithCredits(4)).setFulfilled(true);
+        s2.addCourseEnrollment(courseWithCredits(6)).setFulfilled(true);
+    }
+
+    private static Course courseWithCredits(int credits) {
+        Course course = CourseGenerator.generateRandomCourse();
+        course.setCredits(Credits.valueOf(credits));
+        return course;
+    }
+
+    @Test
+    public void creditsUntil() throws Exception {
+        assertEquals(0, plan.fulfilledCreditsUntil(0));
+        assertEquals(3, plan.fulfilledCreditsUntil(1));
+        assertEquals(7, plan.fulfilledCreditsUntil(2));
+        assertEquals(13, plan.fulfilledCreditsUntil(3));
+        assertEquals(13, plan.fulfilledCreditsUntil(10));
+        assertEquals(0, plan.enrolledCreditsUntil(-1));
+        assertEquals(18, plan.enrolledCreditsUntil(3));
+        assertEquals(3, plan.fulfilledCredits(s0));
+        assertEquals(8, plan.enrolledCredits(s0));
+    }
+
+    @Test
+    public void creditsFollowChanges() throws Exception {
+        assertEquals(13, plan.fulfilledCreditsUntil(3));
+        CourseEnrollment enrollment = s0.getCourseEnrollmentList().get(1);
+        enrollment.setFulfilled(true);
+        assertEquals(18, plan.fulfilledCreditsUntil(3));
+        enrollment.getCourse().getCredits().setCreditValue(1);
+        assertEquals(14, plan.fulfilledCreditsUntil(3));
+        enrollment.getCourse().setCredits(Credits.valueOf(2));
+        assertEquals(15, plan.fulfilledCreditsUntil(3));
+        s0.removeCourseEnrollment(enrollment);
+        assertEquals(13, plan.fulfilledCreditsUntil(3));
+        plan.removeSemester(s1);
+        assertEquals(9, plan.fulfilledCreditsUntil(2));
+        assertEquals(6, plan.fulfilledCredits(s2));
+        assertEquals(4, plan.fulfilledCredits(s1));
+    }
+
+    @Test
+    public void indexOfFollowsChanges() throws Exception {
+        assertEquals(1, plan.indexOf(s1));
+        assertEquals(1, plan.indexOf(new Semester("1")));
+        assertEquals(-1, plan.indexOf(new Semester("3")));
+        Collections.swap(plan.getSemesterList(), 0, 2);
+        assertEquals(0, plan.indexOf(s2));
+        assertEquals(2, plan.indexOf(s0));
+        plan.removeSemester(s2);
+        assertEquals(-1, plan.indexOf(s2));
+        assertEquals(1, plan.indexOf(s0));
+        Semester s3 = new Semester("3");
+        assertTrue(plan.addSemester(s3));
+        assertFalse(plan.addSemester(new Semester("3")));
+        assertEquals(2, plan.indexOf(s3));
+    }
+
+    @Test
+    public void findSemesterFollowsRenames() throws Exception {
+        assertSame(s1, plan.findSemester("1").get());
+        s1.setName("renamed");
+        assertFalse(plan.findSemester("1").isPresent());
+        assertSame(s1, plan.findSemester("renamed").get());
+        assertTrue(plan.addSemester(new Semester("1")));
+        assertEquals(3, plan.indexOf(new Semester("1")));
+    }
+}
@@ -0,0 +1,181 @@
+package com.oskopek.studyguide.model.constraints;
+
+import com.google.common.base.Equivalence;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.oskopek.studyguide.constraint.Constraint;
+import com.oskopek.studyguide.constraint.event.FixedConstraintEvent;
+import com.oskopek.studyguide.constraint.event.StringMessageEvent;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Differential test of the incremental recheck: after every random change, the state of all constraints
+ * (as seen through the fired events) has to be identical to the one after a full recheck.
+ */
+public class ConstraintsTest {
+
+    private final Map<Equivalence.Wrapper<Constraint>, String> state = new HashMap<>();
+    private final List<String> log = new ArrayList<>();
+    private StudyPlan plan;
+    private Constraints constraints;
+    private List<Course> courses;
+
+    @Before
+    public void setUp() throws IOException {
+        ResourceBundle messages = ResourceBundle.getBundle("com.oskopek.studyguide.view.messages");
+        EventBus eventBus = new EventBus();
+        eventBus.register(this);
+        plan = new JsonDataReaderWriter(messages, eventBus)
+                .readFrom("src/test/resources/com/oskopek/studyguide/persistence/my_study.json");
+        constraints = plan.getConstraints();
+        courses = plan.getSemesterPlan().allCourseEnrollments().map(CourseEnrollment::getCourse).distinct()
+                .collect(Collectors.toList());
+        constraints.recheckAll();
+    }
+
+    @Subscribe
+    public void onBroken(StringMessageEvent event) {
+        state.put(Equivalence.identity().wrap(event.getBrokenConstraint()), event.getMessage());
+        log.add(System.identityHashCode(event.getBrokenConstraint()) + ": " + event.getMessage());
+    }
+
+    @Subscribe
+    public void onFixed(FixedConstraintEvent event) {
+        state.put(Equivalence.identity().wrap(event.getOriginallyBroken()), null);
+        log.add(System.identityHashCode(event.getOriginallyBroken()) + ": fixed");
+    }
+
+    @Test
+    public void incrementalIsDefault() {
+        assertTrue(constraints.isIncremental());
+    }
+
+    @Test
+    public void recheckEqualsRecheckAll() {
+        assertFalse(state.isEmpty());
+        Random random = new Random(42L);
+        for (int i = 0; i < 300; i++) {
+            mutate(random);
+            Map<Equivalence.Wrapper<Constraint>, String> incremental = new HashMap<>(state);
+            constraints.recheckAll();
+            assertEquals("Differs after step " + i, state, incremental);
+        }
+    }
+
+    @Test
+    public void recheckWithoutIncrementalMode() {
+        constraints.setIncremental(false);
+        constraints.setTransitionsOnly(false);
+        CourseEnrollment enrollment = plan.getSemesterPlan().allCourseEnrollments().findFirst().get();
+        state.clear();
+        constraints.recheckAll();
+        int allFiring = state.size();
+        state.clear();
+        enrollment.setFulfilled(!enrollment.isFulfilled());
+        constraints.recheck(enrollment);
+        assertEquals(allFiring, state.size());
+    }
+
+    @Test
+    public void onlyTransitionsPosted() {
+        log.clear();
+        constraints.recheckAll();
+        assertTrue(log.isEmpty());
+        Random random = new Random(3L);
+        for (int i = 0; i < 50; i++) {
+            mutate(random);
+            log.clear();
+            constraints.recheckAll(); // nothing changed since the last recheck
+            assertEquals("Posted after step " + i, Collections.emptyList(), log);
+        }
+    }
+
+    @Test
+    public void parallelEqualsSequential() {
+        constraints.setTransitionsOnly(false);
+        Random random = new Random(11L);
+        for (int i = 0; i < 20; i++) {
+            mutate(random);
+            constraints.setParallel(false);
+            log.clear();
+            constraints.recheckAll();
+            List<String> sequential = new ArrayList<>(log);
+            constraints.setParallel(true);
+            for (int j = 0; j < 3; j++) {
+                log.clear();
+                constraints.recheckAll();
+                assertEquals("Differs after step " + i, sequential, log);
+            }
+        }
+    }
+
+    @Test
+    public void removeConstraintsOfAllEnrollments() {
+        List<CourseEnrollment> enrollments = plan.getSemesterPlan().allCourseEnrollments()
+                .collect(Collectors.toList());
+        constraints.removeAllCourseEnrollmentConstraints(enrollments.get(0));
+        assertEquals(enrollments.size() - 1, constraints.getCourseEnrollmentConstraintList().size());
+        constraints.removeAllCourseEnrollmentConstraints(enrollments);
+        assertTrue(constraints.getCourseEnrollmentConstraintList().isEmpty());
+    }
+
+    private void mutate(Random random) {
+        List<Semester> semesters = plan.getSemesterPlan().getSemesterList();
+        List<CourseEnrollment> enrollments = plan.getSemesterPlan().allCourseEnrollments()
+                .collect(Collectors.toList());
+        CourseEnrollment enrollment = enrollments.get(random.nextInt(enrollments.size()));
+        Course course = courses.get(random.nextInt(courses.size()));
+        switch (random.nextInt(5)) {
+            case 0:
+                enrollment.setFulfilled(!enrollment.isFulfilled());
+                constraints.recheck(enrollment);
+                break;
+            case 1:
+                Semester from = enrollment.getSemester();
+                Semester to = semesters.get(random.nextInt(semesters.size()));
+                if (from != to && !to.getCourseEnrollmentList().stream().anyMatch(e -> e.getCourse()
+                        .equals(enrollment.getCourse()))) {
+                    to.addCourseEnrollment(enrollment);
+                    from.removeCourseEnrollment(enrollment);
+                    enrollment.semesterProperty().set(to);
+                }
+                constraints.recheck(enrollment);
+                break;
+            case 2:
+                course.setCredits(Credits.valueOf(random.nextInt(10)));
+                constraints.recheck(course);
+                break;
+            case 3:
+                Course requisite = courses.get(random.nextInt(courses.size()));
+                if (requisite != course && !course.getPrerequisites().contains(requisite)) {
+                    if (random.nextBoolean()) {
+                        course.getPrerequisites().add(requisite);
+                    } else {
+                        course.getCorequisites().add(requisite);
+                    }
+                } else {
+                    course.getPrerequisites().clear();
+                }
+                constraints.recheck(course);
+                break;
+            default:
+                Semester semester = new Semester("Added" + semesters.size());
+                plan.getSemesterPlan().addSemester(semester);
+                constraints.recheck(semester);
+                break;
+        }
+    }
+}
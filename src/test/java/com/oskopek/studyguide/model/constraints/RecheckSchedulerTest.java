@@ -0,0 +1,94 @@
+package com.oskopek.studyguide.model.constraints;
+
+import com.google.common.base.Equivalence;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.oskopek.studyguide.constraint.Constraint;
+import com.oskopek.studyguide.constraint.event.FixedConstraintEvent;
+import com.oskopek.studyguide.constraint.event.StringMessageEvent;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import com.oskopek.studyguide.persistence.JsonDataReaderWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RecheckSchedulerTest {
+
+    private final Map<Equivalence.Wrapper<Constraint>, String> state = new HashMap<>();
+    private final Deque<Runnable> dispatched = new ArrayDeque<>();
+    private StudyPlan plan;
+    private Constraints constraints;
+    private RecheckScheduler scheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        ResourceBundle messages = ResourceBundle.getBundle("com.oskopek.studyguide.view.messages");
+        EventBus eventBus = new EventBus();
+        eventBus.register(this);
+        plan = new JsonDataReaderWriter(messages, eventBus)
+                .readFrom("src/test/resources/com/oskopek/studyguide/persistence/my_study.json");
+        constraints = plan.getConstraints();
+        scheduler = new RecheckScheduler(constraints, dispatched::add, 0L);
+        constraints.setRecheckScheduler(scheduler);
+        constraints.recheckAll();
+    }
+
+    @Subscribe
+    public void onBroken(StringMessageEvent event) {
+        state.put(Equivalence.identity().wrap(event.getBrokenConstraint()), event.getMessage());
+    }
+
+    @Subscribe
+    public void onFixed(FixedConstraintEvent event) {
+        state.put(Equivalence.identity().wrap(event.getOriginallyBroken()), null);
+    }
+
+    @Test
+    public void coalescesIntoOnePass() {
+        List<CourseEnrollment> enrollments = plan.getSemesterPlan().allCourseEnrollments()
+                .collect(Collectors.toList());
+        for (CourseEnrollment enrollment : enrollments) {
+            enrollment.setFulfilled(!enrollment.isFulfilled());
+            scheduler.schedule(enrollment);
+            scheduler.schedule(enrollment.getCourse());
+        }
+        assertSame(constraints.getRecheckScheduler(), scheduler);
+        assertTrue(scheduler.isPending());
+        assertEquals(0, scheduler.getPassCount());
+        assertEquals(1, dispatched.size());
+        assertEquals(enrollments.size() * 2L, scheduler.getNotificationCount());
+        assertEquals(enrollments.size() * 2L - 1, scheduler.getCoalescedCount());
+
+        dispatched.poll().run();
+        assertFalse(scheduler.isPending());
+        assertEquals(1, scheduler.getPassCount());
+        Map<Equivalence.Wrapper<Constraint>, String> batched = new HashMap<>(state);
+        constraints.recheckAll();
+        assertEquals(state, batched);
+    }
+
+    @Test
+    public void flushRunsPendingBatchOnce() {
+        Course course = plan.getSemesterPlan().allCourseEnrollments().findFirst().get().getCourse();
+        course.setCredits(Credits.valueOf(course.getCredits().getCreditValue() + 1));
+        scheduler.schedule(course);
+        scheduler.flush();
+        assertEquals(1, scheduler.getPassCount());
+        dispatched.poll().run(); // the dispatched pass finds nothing to do
+        assertEquals(1, scheduler.getPassCount());
+
+        scheduler.scheduleAll();
+        assertEquals(1, dispatched.size());
+        dispatched.poll().run();
+        assertEquals(2, scheduler.getPassCount());
+        assertEquals(0, scheduler.getCoalescedCount());
+    }
+}
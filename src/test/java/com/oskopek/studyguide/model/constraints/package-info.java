@@ -0,0 +1,4 @@
+/**
+ * Tests of {@link com.oskopek.studyguide.model.constraints}.
+ */
+package com.oskopek.studyguide.model.constraints;
@@ -0,0 +1,122 @@
+package com.oskopek.studyguide.model.courses;
+
+import com.oskopek.studyguide.model.CourseGenerator;
+import javafx.collections.FXCollections;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CourseRegistry}.
+ */
+public class CourseRegistryTest {
+
+    private CourseRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new CourseRegistry();
+        for (String id : new String[] {"NPRG031", "NMAI054", "NPRG030", "NPRG041", "NPRH001", "NPR"}) {
+            Course course = CourseGenerator.generateRandomCourse();
+            course.setId(id);
+            registry.putCourseSimple(course);
+        }
+    }
+
+    @Test
+    public void requiringFollowsRequisites() throws Exception {
+        Course nprg030 = registry.getCourse("NPRG030");
+        Course nprg031 = registry.getCourse("NPRG031");
+        Course nmai054 = registry.getCourse("NMAI054");
+        nprg031.getPrerequisites().add(nprg030);
+        assertEquals(Collections.singletonList(nprg031), registry.coursesRequiring(nprg030));
+        nmai054.getCorequisites().add(nprg030);
+        registry.getCourse("NPRG041").setPrerequisites(Arrays.asList(nprg030, nprg031));
+        assertEquals(Arrays.asList("NMAI054", "NPRG031", "NPRG041"), ids(registry.coursesRequiring(nprg030)));
+        nmai054.getCorequisites().clear();
+        assertEquals(Arrays.asList("NPRG031", "NPRG041"), ids(registry.coursesRequiring(nprg030)));
+
+        nprg031.setId("NPRG036"); // the index is keyed by id, it has to be rebuilt
+        assertEquals(Arrays.asList("NPRG036", "NPRG041"), ids(registry.coursesRequiring(nprg030)));
+        assertEquals(Collections.singletonList("NPRG041"), ids(registry.coursesRequiring(nprg031)));
+    }
+
+    @Test
+    public void removeCourseRemovesRequisites() throws Exception {
+        Course nprg030 = registry.getCourse("NPRG030");
+        Course nprg031 = registry.getCourse("NPRG031");
+        nprg031.getPrerequisites().add(nprg030);
+        registry.getCourse("NMAI054").getCorequisites().add(nprg030);
+        assertEquals(2, registry.coursesRequiring(nprg030).size());
+
+        Course replacement = CourseGenerator.generateRandomCourse();
+        replacement.setId("NPRG031");
+        registry.putCourseSimple(replacement);
+        assertEquals(Collections.singletonList("NMAI054"), ids(registry.coursesRequiring(nprg030)));
+        nprg031.getCorequisites().add(registry.getCourse("NPRH001"));
+        assertTrue(registry.coursesRequiring(registry.getCourse("NPRH001")).isEmpty());
+
+        assertSame(nprg030, registry.removeCourse(nprg030));
+        assertTrue(registry.getCourse("NMAI054").getCorequisites().isEmpty());
+        assertEquals(Collections.singletonList(nprg030), nprg031.getPrerequisites()); // no longer in the registry
+        assertTrue(registry.coursesRequiring(nprg030).isEmpty());
+    }
+
+    @Test
+    public void renameCourseRekeys() throws Exception {
+        Course nprg030 = registry.getCourse("NPRG030");
+        Course nprg031 = registry.getCourse("NPRG031");
+        nprg031.getPrerequisites().add(nprg030);
+        assertEquals(Collections.singletonList(nprg031), registry.coursesRequiring(nprg030));
+
+        registry.renameCourse(nprg030, "NPRG036");
+        assertNull(registry.getCourse("NPRG030"));
+        assertSame(nprg030, registry.getCourse("NPRG036"));
+        assertEquals(Collections.singletonList(nprg031), registry.coursesRequiring(nprg030));
+        assertEquals(Collections.singletonList(nprg030), nprg031.getPrerequisites());
+    }
+
+    @Test
+    public void renameStopsListeningToRequisites() throws Exception {
+        Course nprg030 = registry.getCourse("NPRG030");
+        Course nprg031 = registry.getCourse("NPRG031");
+        nprg031.getPrerequisites().add(nprg030);
+        assertEquals(Collections.singletonList(nprg031), registry.coursesRequiring(nprg030));
+        assertEquals(6, registry.getAttachedRequisitesListenerCount());
+
+        nprg031.setId("NPRG036"); // drops the index
+        assertEquals(0, registry.getAttachedRequisitesListenerCount());
+        assertEquals(Collections.singletonList(nprg031), registry.coursesRequiring(nprg030));
+        assertEquals(6, registry.getAttachedRequisitesListenerCount());
+        registry.removeCourse(registry.getCourse("NMAI054"));
+        assertEquals(5, registry.getAttachedRequisitesListenerCount());
+    }
+
+    @Test
+    public void requisitesFollowedWithAndWithoutProperties() throws Exception {
+        Course nprg030 = registry.getCourse("NPRG030");
+        Course nprg031 = registry.getCourse("NPRG031");
+        Course nprg041 = registry.getCourse("NPRG041");
+        assertEquals(Collections.emptyList(), registry.coursesRequiring(nprg030));
+        nprg031.setPrerequisites(Collections.singletonList(nprg030));
+        nprg041.getCorequisites().add(nprg030);
+        assertEquals(Arrays.asList(nprg031, nprg041), registry.coursesRequiring(nprg030));
+
+        nprg031.prerequisitesProperty().set(FXCollections.observableArrayList());
+        nprg041.corequisitesProperty();
+        nprg041.getCorequisites().clear();
+        assertEquals(Collections.emptyList(), registry.coursesRequiring(nprg030));
+        nprg041.idProperty().set("NPRG042"); // drops the index
+        assertEquals(0, registry.getAttachedRequisitesListenerCount());
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        return courses.stream().map(Course::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,97 @@
+package com.oskopek.studyguide.model.courses;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.oskopek.studyguide.model.CourseGenerator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link Course}.
+ */
+public class CourseTest {
+
+    private final List<Course> changes = new ArrayList<>();
+    private Course course;
+
+    @Before
+    public void setUp() throws Exception {
+        course = CourseGenerator.generateRandomCourse();
+        EventBus eventBus = new EventBus();
+        eventBus.register(this);
+        course.registerEventBus(eventBus);
+        changes.clear();
+    }
+
+    @Subscribe
+    public void handleCourseChange(Course changed) {
+        changes.add(changed);
+    }
+
+    @Test
+    public void settersFireBeforePropertiesExist() throws Exception {
+        String id = course.getId();
+        course.setId(id);
+        course.setName("Other name");
+        assertEquals(0, changes.size());
+        course.setId(id + "X");
+        course.setEnrollableIn(EnrollableIn.WINTER);
+        Credits credits = Credits.valueOf(course.getCredits().getCreditValue() + 1);
+        course.setCredits(credits);
+        assertEquals(3, changes.size());
+        credits.setCreditValue(credits.getCreditValue() + 1); // credits set later are observed
+        assertEquals(4, changes.size());
+
+        assertEquals(id + "X", course.idProperty().get());
+        assertEquals("Other name", course.nameProperty().get());
+        assertSame(credits, course.creditsProperty().get());
+    }
+
+    @Test
+    public void propertiesFireOnceCreated() throws Exception {
+        course.idProperty().set(course.getId() + "X");
+        assertEquals(1, changes.size());
+        course.setId(course.getId() + "Y");
+        assertEquals(course.getId(), course.idProperty().get());
+        assertEquals(2, changes.size());
+        course.getPrerequisites().add(CourseGenerator.generateRandomCourse());
+        assertEquals(3, changes.size());
+        course.setCorequisites(Collections.singletonList(CourseGenerator.generateRandomCourse()));
+        assertEquals(4, changes.size());
+        course.getCorequisites().clear();
+        assertEquals(5, changes.size());
+    }
+
+    @Test
+    public void requisitesObservedOnceBeforeAndAfterProperty() throws Exception {
+        course.getPrerequisites().add(CourseGenerator.generateRandomCourse());
+        assertEquals(1, changes.size());
+        course.setPrerequisites(Collections.singletonList(CourseGenerator.generateRandomCourse()));
+        assertEquals(2, changes.size());
+        course.getPrerequisites().clear();
+        assertEquals(3, changes.size());
+        course.prerequisitesProperty();
+        course.getPrerequisites().add(CourseGenerator.generateRandomCourse());
+        assertEquals(4, changes.size());
+    }
+
+    @Test
+    public void searchedFieldChangesCounted() throws Exception {
+        long version = Course.getSearchedFieldsVersion();
+        course.setName(course.getName());
+        course.setCredits(Credits.valueOf(course.getCredits().getCreditValue() + 1));
+        assertEquals(version, Course.getSearchedFieldsVersion());
+        course.setName(course.getName() + "X");
+        assertTrue(Course.getSearchedFieldsVersion() > version);
+        version = Course.getSearchedFieldsVersion();
+        course.localeProperty().set(Locale.CHINESE);
+        assertTrue(Course.getSearchedFieldsVersion() > version);
+    }
+}
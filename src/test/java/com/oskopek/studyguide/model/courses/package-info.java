@@ -0,0 +1,4 @@
+/**
+ * Tests of {@link com.oskopek.studyguide.model.courses}.
+ */
+package com.oskopek.studyguide.model.courses;
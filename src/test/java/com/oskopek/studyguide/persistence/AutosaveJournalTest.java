@@ -0,0 +1,205 @@
+package com.oskopek.studyguide.persistence;
+
+import com.google.common.eventbus.EventBus;
+import com.oskopek.studyguide.model.CourseEnrollment;
+import com.oskopek.studyguide.model.CourseGenerator;
+import com.oskopek.studyguide.model.DefaultStudyPlan;
+import com.oskopek.studyguide.model.Semester;
+import com.oskopek.studyguide.model.StudyPlan;
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.Credits;
+import com.oskopek.studyguide.model.courses.EnrollableIn;
+import javafx.collections.FXCollections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link AutosaveJournal}.
+ */
+public class AutosaveJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ResourceBundle messages = ResourceBundle.getBundle("com.oskopek.studyguide.view.messages");
+    private final List<Runnable> dispatched = new ArrayList<>();
+    private final Path planFile = Paths.get("src/test/resources/com/oskopek/studyguide/persistence/my_study.json");
+    private Path directory;
+    private AutosaveJournal journal;
+    private StudyPlan plan;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.getRoot().toPath().resolve("autosave");
+        EventBus eventBus = new EventBus();
+        JsonDataReaderWriter readerWriter = new JsonDataReaderWriter(messages, eventBus, false);
+        plan = readerWriter.readFrom(planFile.toString());
+        journal = new AutosaveJournal(directory, readerWriter, eventBus, dispatched::add, Runnable::run);
+        journal.attach(plan);
+    }
+
+    @Test
+    public void recoverReplaysChanges() throws Exception {
+        long snapshotSize = Files.size(directory.resolve("snapshot-1.json"));
+        Course course = plan.getCourseRegistry().courseMapValues().iterator().next();
+        course.setCredits(Credits.valueOf(course.getCredits().getCreditValue() + 3));
+        course.setEnrollableIn(EnrollableIn.SUMMER);
+        List<Semester> semesters = plan.getSemesterPlan().getSemesterList();
+        Semester from = semesters.get(0);
+        Semester to = semesters.get(semesters.size() - 1);
+        CourseEnrollment moved = from.getCourseEnrollmentList().get(0);
+        to.addCourseEnrollment(moved);
+        from.removeCourseEnrollment(moved);
+        moved.semesterProperty().set(to);
+        moved.setFulfilled(!moved.isFulfilled());
+        to.setName("Renamed");
+        Semester removed = semesters.get(1);
+        plan.getSemesterPlan().removeSemester(removed); // as in SemesterController#removeSemester
+        plan.getConstraints().removeAllCourseEnrollmentConstraints(removed.getCourseEnrollmentList());
+        pulse();
+
+        assertTrue(Files.exists(directory.resolve("snapshot-1.json"))); // no compaction
+        // header, course, added and removed enrollment, semester name, removed semester, fulfilled
+        assertEquals(7, Files.readAllLines(directory.resolve("journal.log")).size());
+        long journalSize = Files.size(directory.resolve("journal.log"));
+        assertTrue(journalSize + " < " + snapshotSize, journalSize < snapshotSize / 10);
+
+        StudyPlan recovered = recoverInNewJournal();
+        assertEquals(layout(plan), layout(recovered));
+        Course recoveredCourse = recovered.getCourseRegistry().getCourse(course.getId());
+        assertEquals(course.getCredits(), recoveredCourse.getCredits());
+        assertEquals(EnrollableIn.SUMMER, recoveredCourse.getEnrollableIn());
+        assertEquals(plan.getConstraints().getCourseEnrollmentConstraintList().size(),
+                recovered.getConstraints().getCourseEnrollmentConstraintList().size());
+    }
+
+    @Test
+    public void recoverKeepsEnrollmentsOfRenamedCourse() throws Exception {
+        CourseEnrollment enrollment = plan.getSemesterPlan().allCourseEnrollments().findFirst().get();
+        Course course = enrollment.getCourse();
+        course.setId(course.getId() + "-renamed");
+        pulse();
+        enrollment.setFulfilled(!enrollment.isFulfilled());
+        pulse();
+
+        StudyPlan recovered = recoverInNewJournal();
+        assertEquals(layout(plan), layout(recovered));
+        assertNotNull(recovered.getCourseRegistry().getCourse(course.getId()));
+        assertEquals(plan.getConstraints().getCourseEnrollmentConstraintList().size(),
+                recovered.getConstraints().getCourseEnrollmentConstraintList().size());
+    }
+
+    @Test
+    public void registryChangesRecorded() throws Exception {
+        Course required = CourseGenerator.generateRandomCourse();
+        Course added = CourseGenerator.generateRandomCourse();
+        added.getPrerequisites().add(required);
+        plan.getCourseRegistry().putCourse(added);
+        plan.getCourseRegistry().putCourse(required);
+        Semester semester = plan.getSemesterPlan().getSemesterList().get(0);
+        Course removed = semester.getCourseEnrollmentList().get(0).getCourse();
+        ((DefaultStudyPlan) plan).removeCourse(removed);
+        plan.getConstraints().addAllCourseEnrollmentConstraints(semester.addCourseEnrollment(added),
+                plan.getSemesterPlan()); // as in FindCoursesController
+        pulse();
+        assertTrue(Files.exists(directory.resolve("snapshot-1.json"))); // no compaction
+
+        StudyPlan recovered = recoverInNewJournal();
+        Course recoveredAdded = recovered.getCourseRegistry().getCourse(added.getId());
+        assertNotNull(recoveredAdded);
+        assertEquals(Collections.singletonList(required.getId()),
+                recoveredAdded.getPrerequisites().stream().map(Course::getId).collect(Collectors.toList()));
+        assertNull(recovered.getCourseRegistry().getCourse(removed.getId()));
+        assertEquals(layout(plan), layout(recovered));
+        assertEquals(plan.getConstraints().getCourseEnrollmentConstraintList().size(),
+                recovered.getConstraints().getCourseEnrollmentConstraintList().size());
+    }
+
+    @Test
+    public void recoverReplaysPermutations() throws Exception {
+        Semester semester = plan.getSemesterPlan().getSemesterList().get(0);
+        FXCollections.sort(semester.getCourseEnrollmentList(),
+                Comparator.comparing((CourseEnrollment e) -> e.getCourse().getId()).reversed());
+        FXCollections.reverse(plan.getSemesterPlan().semesterListProperty());
+        pulse();
+
+        StudyPlan recovered = recoverInNewJournal();
+        assertEquals(order(plan), order(recovered));
+    }
+
+    @Test
+    public void largeJournalCompacts() throws Exception {
+        CourseEnrollment enrollment = plan.getSemesterPlan().allCourseEnrollments().findFirst().get();
+        while (Files.exists(directory.resolve("snapshot-1.json"))) {
+            enrollment.setFulfilled(!enrollment.isFulfilled());
+            pulse();
+        }
+        assertTrue(Files.exists(directory.resolve("snapshot-2.json")));
+        enrollment.getSemester().setName("Renamed");
+        pulse();
+        assertEquals(2, Files.readAllLines(directory.resolve("journal.log")).size());
+
+        Files.write(directory.resolve("journal.log"), "{\"type\":\"cou".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND); // torn by a crash
+        StudyPlan recovered = recoverInNewJournal();
+        assertEquals(layout(plan), layout(recovered));
+    }
+
+    @Test
+    public void discard() throws Exception {
+        journal.discard();
+        assertNull(recoverInNewJournal());
+    }
+
+    private void pulse() {
+        List<Runnable> tasks = new ArrayList<>(dispatched);
+        dispatched.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private StudyPlan recoverInNewJournal() throws IOException {
+        EventBus eventBus = new EventBus();
+        return new AutosaveJournal(directory, new JsonDataReaderWriter(messages, eventBus, false), eventBus,
+                Runnable::run, Runnable::run).recover();
+    }
+
+    private static List<String> order(StudyPlan plan) {
+        List<String> order = new ArrayList<>();
+        for (Semester semester : plan.getSemesterPlan()) {
+            order.add(semester.getName());
+            semester.getCourseEnrollmentList().forEach(enrollment -> order.add(enrollment.getCourse().getId()));
+        }
+        return order;
+    }
+
+    private static List<String> layout(StudyPlan plan) {
+        List<String> layout = new ArrayList<>();
+        for (Semester semester : plan.getSemesterPlan()) {
+            layout.add(semester.getName());
+            List<String> enrollments = new ArrayList<>();
+            for (CourseEnrollment enrollment : semester) {
+                enrollments.add(enrollment.getCourse().getId() + "=" + enrollment.isFulfilled());
+            }
+            Collections.sort(enrollments);
+            layout.addAll(enrollments);
+        }
+        return layout;
+    }
+}
@@ -0,0 +1,125 @@
+package com.oskopek.studyguide.persistence;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * A local test of {@link HttpPageCache} against a stand-in HTTP server.
+ */
+public class HttpPageCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> requestConditions = new ArrayList<>();
+    private HttpServer server;
+    private String page = "<html>v1</html>";
+    private String etag = "\"v1\"";
+    private String url;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", this::handle);
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/page");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/page";
+        directory = temporaryFolder.getRoot().toPath().resolve("cache");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void freshPagesAreNotRequested() throws Exception {
+        HttpPageCache cache = new HttpPageCache(directory, Duration.ofHours(1), false);
+        assertEquals("<html>v1</html>", read(cache.fetch(url)));
+        page = "<html>v2</html>";
+        assertEquals("<html>v1</html>", read(cache.fetch(url)));
+        assertEquals("<html>v1</html>", read(new HttpPageCache(directory, Duration.ofHours(1), false).fetch(url)));
+        assertEquals(1, requestConditions.size());
+    }
+
+    @Test
+    public void stalePagesAreRevalidated() throws Exception {
+        HttpPageCache cache = new HttpPageCache(directory, Duration.ZERO, false);
+        assertEquals("<html>v1</html>", read(cache.fetch(url)));
+        assertEquals("<html>v1</html>", read(cache.fetch(url)));
+        assertEquals("\"v1\"", requestConditions.get(1)); // answered 304
+        page = "<html>v2</html>";
+        etag = "\"v2\"";
+        assertEquals("<html>v2</html>", read(cache.fetch(url)));
+        assertEquals("<html>v2</html>", read(cache.fetch(url)));
+        assertEquals(4, requestConditions.size());
+        assertEquals(null, requestConditions.get(0));
+        assertEquals("\"v2\"", requestConditions.get(3));
+    }
+
+    @Test
+    public void offlineServesOnlyCachedPages() throws Exception {
+        assertEquals("<html>v1</html>", read(new HttpPageCache(directory, Duration.ZERO, false).fetch(url)));
+        HttpPageCache offline = new HttpPageCache(directory, Duration.ZERO, true);
+        page = "<html>v2</html>";
+        assertEquals("<html>v1</html>", read(offline.fetch(url)));
+        try {
+            offline.fetch(url + "?other");
+            fail("The page is not cached.");
+        } catch (IOException e) {
+            assertEquals(1, requestConditions.size());
+        }
+    }
+
+    @Test
+    public void followsRedirects() throws Exception {
+        HttpPageCache cache = new HttpPageCache(directory, Duration.ofHours(1), false);
+        assertEquals("<html>v1</html>", read(cache.fetch(url.replace("/page", "/moved"))));
+        assertEquals(1, requestConditions.size());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requestConditions.add(condition);
+        exchange.getResponseHeaders().add("ETag", etag);
+        if (etag.equals(condition)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            byte[] body = page.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private static String read(HttpPageCache.Page page) throws IOException {
+        try (InputStream is = page.openStream()) {
+            return new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.oskopek.studyguide.model.StudyPlan;
 import com.oskopek.studyguide.model.courses.Course;
 import org.junit.After;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -20,6 +21,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Probably deserves more thorough testing.
@@ -59,6 +66,51 @@ public class JsonDataReaderWriterTest {
         assertEquals("{", Files.readAllLines(jsonPath).get(0));
     }
 
+    @Test
+    public void writeToFileIsAtomic() throws IOException {
+        byte[] original = Files.readAllBytes(jsonPath);
+        StudyPlan failingPlan = Mockito.mock(StudyPlan.class);
+        when(failingPlan.getCourseRegistry()).thenThrow(new IllegalStateException("Cannot serialize."));
+        try {
+            jsonDataReaderWriter.writeTo(failingPlan, jsonPath.toString());
+            fail("The plan cannot be written.");
+        } catch (IOException e) {
+            assertArrayEquals(original, Files.readAllBytes(jsonPath));
+        }
+        jsonDataReaderWriter.writeTo(jsonDataReaderWriter.readFrom(jsonPath.toString()), jsonPath.toString());
+        assertEquals(6, jsonDataReaderWriter.readFrom(jsonPath.toString()).getSemesterPlan().getSemesterList().size());
+        try (Stream<Path> files = Files.list(jsonPath.getParent())) {
+            assertFalse(files.anyMatch(f -> f.getFileName().toString().startsWith(jsonPath.getFileName().toString())
+                    && f.toString().endsWith(".tmp"))); // no temporary files left behind
+        }
+    }
+
+    @Test
+    public void writeToFileKeepsPermissionsAndLinks() throws IOException {
+        assumeTrue(Files.getFileStore(jsonPath).supportsFileAttributeView(PosixFileAttributeView.class));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+        Files.setPosixFilePermissions(jsonPath, permissions);
+        Path link = jsonPath.resolveSibling("link-" + jsonPath.getFileName());
+        Files.createSymbolicLink(link, jsonPath);
+        try {
+            jsonDataReaderWriter.writeTo(plan, link.toString());
+            assertTrue(Files.isSymbolicLink(link));
+            assertEquals("{", Files.readAllLines(jsonPath).get(0));
+            assertEquals(permissions, Files.getPosixFilePermissions(jsonPath));
+        } finally {
+            Files.delete(link);
+        }
+    }
+
+    @Test
+    public void writeCompact() throws IOException {
+        new JsonDataReaderWriter(null, mockedEventBus, false).writeTo(plan, jsonPath.toString());
+        List<String> lines = Files.readAllLines(jsonPath);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("{\""));
+        assertEquals(plan, jsonDataReaderWriter.readFrom(jsonPath.toString()));
+    }
+
     @Test
     public void readFromString() throws IOException {
         StudyPlan plan = jsonDataReaderWriter.readFrom(jsonPath.toString());
@@ -73,6 +125,16 @@ public class JsonDataReaderWriterTest {
         assertNotNull(plan);
     }
 
+    @Test
+    public void readPostsOneLoadedEvent() throws IOException {
+        StudyPlan plan = jsonDataReaderWriter.readFrom(jsonPath.toString());
+        verify(mockedEventBus, times(1)).post(anyObject());
+        verify(mockedEventBus).post(isA(StudyPlanLoadedEvent.class));
+        Course course = plan.getCourseRegistry().courseMapValues().iterator().next();
+        course.setId(course.getId() + "X"); // the bus is attached nevertheless
+        verify(mockedEventBus).post(course);
+    }
+
     @Test
     public void readComplexInput() throws IOException {
         DefaultStudyPlan plan = (DefaultStudyPlan) jsonDataReaderWriter.readFrom(Files.newInputStream(jsonPath));
@@ -29,6 +29,15 @@ public class MFFHtmlScraperTest {
 
     @Test
     public void testScrapeCourses() throws Exception {
+        verifyScrapedPlan(scraper);
+    }
+
+    @Test
+    public void testScrapeCoursesParallel() throws Exception {
+        verifyScrapedPlan(new MFFHtmlScraper(sisUrl, 4, 2));
+    }
+
+    private void verifyScrapedPlan(MFFHtmlScraper scraper) throws Exception {
         StudyPlan studyPlan = scraper.scrapeStudyPlan(Paths.get(mffIoiInfoPath));
         assertNotNull(studyPlan);
         // 61 base from IOI + 4 required courses + random deps
@@ -0,0 +1,62 @@
+package com.oskopek.studyguide.persistence;
+
+import com.oskopek.studyguide.model.courses.Course;
+import com.oskopek.studyguide.model.courses.CourseRegistry;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * A local test of the parallel scraping of {@link SISHtmlScraper}.
+ */
+public class SISHtmlScraperTest {
+
+    private final String sisUrl = "file://" + Paths.get(".").toAbsolutePath()
+            + "/src/test/resources/com/oskopek/studyguide/persistence/siscopy";
+    private final List<String> courseIds = Arrays.asList("NPRG041", "NDBI025", "NMIN102", "NPRG021");
+
+    @Test
+    public void parallelSameAsSerial() throws Exception {
+        CourseRegistry serialRegistry = new CourseRegistry();
+        List<Course> serial = new SISHtmlScraper(sisUrl).scrapeCourses(serialRegistry, courseIds);
+        CourseRegistry registry = new CourseRegistry();
+        registry.putCourse(serialRegistry.getCourse("NPRG021")); // already known courses are not scraped again
+        int knownCount = registry.courseMapValues().size();
+        SISHtmlScraper scraper = new SISHtmlScraper(sisUrl, 4, 2);
+        List<Course> parallel = scraper.scrapeCourses(registry, courseIds);
+
+        assertEquals(courseIds, parallel.stream().map(Course::getId).collect(Collectors.toList()));
+        assertEquals(serial, parallel);
+        assertSame(serialRegistry.getCourse("NPRG021"), parallel.get(3));
+        assertEquals(serialRegistry, registry);
+        assertEquals(registry.courseMapValues().size() - knownCount, scraper.getFetchedPageCount()); // each once
+        for (Course course : registry.courseMapValues()) {
+            Course expected = serialRegistry.getCourse(course.getId());
+            assertEquals(expected.getName(), course.getName());
+            assertEquals(expected.getCredits(), course.getCredits());
+            assertEquals(expected.getTeacherNames(), course.getTeacherNames());
+            assertEquals(expected.getPrerequisites(), course.getPrerequisites());
+            assertEquals(expected.getCorequisites(), course.getCorequisites());
+            for (Course dependency : course.getPrerequisites()) {
+                assertSame(registry.getCourse(dependency.getId()), dependency);
+            }
+        }
+    }
+
+    @Test
+    public void failedFetchAddsNothing() throws Exception {
+        CourseRegistry registry = new CourseRegistry();
+        try {
+            new SISHtmlScraper(sisUrl, 4, 4).scrapeCourses(registry, Arrays.asList("NPRG041", "NONE000"));
+            fail("The page of NONE000 does not exist.");
+        } catch (IOException e) {
+            assertTrue(registry.courseMapValues().isEmpty());
+        }
+    }
+}
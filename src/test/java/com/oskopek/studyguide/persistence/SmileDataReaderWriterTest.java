@@ -0,0 +1,76 @@
+package com.oskopek.studyguide.persistence;
+
+import com.oskopek.studyguide.model.StudyPlan;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trip tests of {@link SmileDataReaderWriter} against {@link JsonDataReaderWriter}.
+ */
+public class SmileDataReaderWriterTest {
+
+    private final String[] plans = {"mff_bc_ioi_2017_2018.json", "my_study.json", "my_mgr_mff_ai.json"};
+    private final String plansPath = "src/test/resources/com/oskopek/studyguide/persistence/";
+    private final Pattern uuid = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private final JsonDataReaderWriter json = new JsonDataReaderWriter();
+    private final SmileDataReaderWriter smile = new SmileDataReaderWriter();
+
+    @Test
+    public void roundTripSameAsJson() throws Exception {
+        for (String fileName : plans) {
+            StudyPlan plan = json.readFrom(plansPath + fileName);
+            byte[] binary = write(smile, plan);
+            StudyPlan read = smile.readFrom(new ByteArrayInputStream(binary));
+            assertEquals(fileName, plan, read);
+            // the same JSON (up to the UUIDs), so everything was read, not just what the plans' equals compare
+            assertEquals(fileName, toJson(plan), toJson(read));
+            assertTrue(fileName, binary.length < write(json, plan).length / 2);
+        }
+    }
+
+    @Test
+    public void writeToFile() throws Exception {
+        Path file = Files.createTempFile("tmpPlan", SmileDataReaderWriter.fileExtension);
+        try {
+            StudyPlan plan = json.readFrom(plansPath + plans[0]);
+            smile.writeTo(plan, file.toString());
+            assertTrue(SmileDataReaderWriter.isBinaryPlanFile(file.toString()));
+            assertEquals(toJson(plan), toJson(smile.readFrom(file.toString())));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static byte[] write(JsonDataReaderWriter writer, StudyPlan plan) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer.writeTo(plan, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Serialize the plan to JSON, replacing the random UUIDs by their order of appearance.
+     */
+    private String toJson(StudyPlan plan) throws IOException {
+        Matcher matcher = uuid.matcher(new String(write(json, plan), StandardCharsets.UTF_8));
+        Map<String, Integer> ids = new HashMap<>();
+        StringBuffer normalized = new StringBuffer();
+        while (matcher.find()) {
+            Integer id = ids.computeIfAbsent(matcher.group(), u -> ids.size());
+            matcher.appendReplacement(normalized, "id" + id);
+        }
+        matcher.appendTail(normalized);
+        return normalized.toString();
+    }
+}